@@ -25,6 +25,10 @@ android {
             )
         }
     }
+    androidResources {
+        // Opening books and NNUE networks are memory-mapped straight out of the APK
+        noCompress += listOf("bin", "nnue")
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
@@ -37,8 +41,9 @@ dependencies {
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
+    implementation(libs.recyclerview)
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
-    implementation("com.github.bhlangonijr:chesslib:1.3.4")
+    implementation(libs.chesslib)
 }
\ No newline at end of file
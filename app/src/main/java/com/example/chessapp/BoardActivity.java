@@ -1,18 +1,16 @@
 package com.example.chessapp;
 
 import android.content.Intent;
-import android.graphics.Color;
-import android.graphics.drawable.Drawable;
+import android.content.res.AssetFileDescriptor;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
+import android.view.MenuItem;
 import android.view.View;
-import android.widget.GridLayout;
 import android.widget.ImageButton;
 import android.widget.ImageView;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
-import android.widget.HorizontalScrollView;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
@@ -20,36 +18,91 @@ import androidx.appcompat.widget.PopupMenu;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
-
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.chessapp.engine.ComputerPlayer;
+import com.example.chessapp.engine.EnginePlayer;
+import com.example.chessapp.engine.NnueNetwork;
+import com.example.chessapp.engine.PolyglotBook;
+import com.example.chessapp.engine.SearchLimits;
+import com.example.chessapp.engine.SyzygyTablebase;
+import com.example.chessapp.uci.UciEngine;
 import com.github.bhlangonijr.chesslib.Board;
 import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.Side;
 import com.github.bhlangonijr.chesslib.Square;
 import com.github.bhlangonijr.chesslib.move.Move;
-import com.github.bhlangonijr.chesslib.move.MoveList;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 public class BoardActivity extends AppCompatActivity {
 
     private TextView whiteTimerText, blackTimerText;
-    private android.os.CountDownTimer whiteTimer, blackTimer;
-    private long timerDuration = 10000; // default 10s
+    private GameClock gameClock;
+    private long timerDuration = 10000; // default 10s per side
+    private long timerIncrement = 0;
+    private long timerDelay = 0;
     private boolean isWhiteTurn = true;
 
-    private GridLayout chessboard;
-    private ImageView selectedCell = null;
+    private ChessBoardView chessboard;
     //    private Map<String, Integer> initialPieces;
     private Board board;
+    private final LegalMoveIndex moveIndex = new LegalMoveIndex();
     private Square selectedSquare = Square.NONE;
-
-    LinearLayout blackMoves;
-    LinearLayout whiteMoves;
-    HorizontalScrollView blackScrollView;
-    HorizontalScrollView whiteScrollView;
-
-    int moveRecordLimit = 10,movesRecorded=0;//default is 10
+    private String startFen;
+    private final List<Move> playedMoves = new ArrayList<>();
+    private boolean isGameOver = false;
+
+    // Play with Computer
+    private boolean isVsComputer;
+    private Side computerSide = Side.BLACK;
+    private SearchLimits computerLimits;
+    private EnginePlayer computerPlayer;
+    private int computerRequestId = 0;
+    // Second move of the computer's last principal variation, pondered on the human's clock
+    private Move expectedReply;
+    private static final String OPENING_BOOK_ASSET = "book/book.bin";
+    // Optional, offered in GameModeActivity only when bundled
+    static final String NETWORK_ASSET = "nnue/network.nnue";
+    // An external UCI engine built for the device ABI and packaged as jniLibs/<abi>/libuciengine.so;
+    // the native library directory is the one place an app may execute files from
+    private static final String UCI_ENGINE_LIBRARY = "libuciengine.so";
+
+    // Analyze mode, with its own engine
+    private ComputerPlayer analysisEngine;
+    private LiveAnalysis liveAnalysis;
+    // Analysis that onPause stopped and onResume starts again
+    private boolean isAnalysisPaused;
+    private TextView analysisText;
+    private TextView explorerText;
+
+    // Endgame tablebases copied by the user to <external files>/syzygy
+    private static final String TABLEBASE_DIRECTORY = "syzygy";
+    // Off until SyzygyTablebaseTest runs against real tables, so no game is ended on an unverified probe
+    private static final boolean ADJUDICATE_WITH_TABLEBASE = false;
+    private SyzygyTablebase tablebase;
+
+    // Game in progress, checkpointed in onPause and restored when the activity is recreated
+    private static final String SNAPSHOT_FILE = "current_game.snapshot";
+    // Most recent games listed by "Find Games With This Position"
+    private static final int POSITION_MATCH_LIMIT = 50;
+
+    RecyclerView blackMovesList;
+    RecyclerView whiteMovesList;
+
+    int moveRecordLimit = 10;//default is 10, latest moves kept per side
+    private final MoveHistory blackHistory = new MoveHistory(moveRecordLimit);
+    private final MoveHistory whiteHistory = new MoveHistory(moveRecordLimit);
+    private final MoveHistoryAdapter blackMovesAdapter = new MoveHistoryAdapter(blackHistory);
+    private final MoveHistoryAdapter whiteMovesAdapter = new MoveHistoryAdapter(whiteHistory);
 
     String playerWhiteName,playerBlackName;
     
@@ -59,43 +112,57 @@ public class BoardActivity extends AppCompatActivity {
     private long gameStartTime;
     private boolean isPlayer1Registered;
 
-    private void startWhiteTimer() {
-        cancelTimers();
+    /**
+     * @return false if Black had run out of time, the game then being over
+     */
+    private boolean startWhiteTimer() {
         isWhiteTurn = true;
-        whiteTimer = new android.os.CountDownTimer(timerDuration, 1000) {
-            public void onTick(long millisUntilFinished) {
-                whiteTimerText.setText("⏱ " + millisUntilFinished / 1000 + "s");
-            }
-            public void onFinish() {
-                Toast.makeText(BoardActivity.this, "White's time over! Black wins!", Toast.LENGTH_LONG).show();
-                // Update winner statistics - Black wins due to White timeout
-                updateGameStatistics(playerBlackName, false);
-                Intent i = new Intent(BoardActivity.this, MainActivity.class);
-                startActivity(i);
-            }
-        }.start();
+        // Charges Black's move and adds the increment before White's clock runs
+        if (!gameClock.startSide(Side.WHITE)) return false;
+        startPonderingIfNeeded();
+        return true;
     }
 
-    private void startBlackTimer() {
-        cancelTimers();
+    /**
+     * @return false if White had run out of time, the game then being over
+     */
+    private boolean startBlackTimer() {
         isWhiteTurn = false;
-        blackTimer = new android.os.CountDownTimer(timerDuration, 1000) {
-            public void onTick(long millisUntilFinished) {
-                blackTimerText.setText("⏱ " + millisUntilFinished / 1000 + "s");
+        if (!gameClock.startSide(Side.BLACK)) return false;
+        startPonderingIfNeeded();
+        return true;
+    }
+
+    private void cancelTimers() {
+        if (gameClock != null) gameClock.stop();
+        // The computer only ponders while the human's clock runs
+        if (computerPlayer != null) computerPlayer.stop();
+    }
+
+    private GameClock.Listener createClockListener() {
+        return new GameClock.Listener() {
+            @Override
+            public void onClockTick(Side side, long remainingMillis) {
+                // Only the running side ticks, the other display is left alone
+                TextView timerText = side == Side.WHITE ? whiteTimerText : blackTimerText;
+                timerText.setText(GameClock.format(remainingMillis));
             }
-            public void onFinish() {
-                Toast.makeText(BoardActivity.this, "Black's time over! White wins!", Toast.LENGTH_LONG).show();
-                // Update winner statistics - White wins due to Black timeout
-                updateGameStatistics(playerWhiteName, true);
+
+            @Override
+            public void onFlag(Side side) {
+                isGameOver = true;
+                computerRequestId++;
+                if (side == Side.WHITE) {
+                    Toast.makeText(BoardActivity.this, "White's time over! Black wins!", Toast.LENGTH_LONG).show();
+                    recordFinishedGame(GameRecord.RESULT_BLACK_WINS, GameRecord.TERMINATION_TIMEOUT);
+                } else {
+                    Toast.makeText(BoardActivity.this, "Black's time over! White wins!", Toast.LENGTH_LONG).show();
+                    recordFinishedGame(GameRecord.RESULT_WHITE_WINS, GameRecord.TERMINATION_TIMEOUT);
+                }
                 Intent i = new Intent(BoardActivity.this, MainActivity.class);
                 startActivity(i);
             }
-        }.start();
-    }
-
-    private void cancelTimers() {
-        if (whiteTimer != null) whiteTimer.cancel();
-        if (blackTimer != null) blackTimer.cancel();
+        };
     }
 
 
@@ -106,9 +173,22 @@ public class BoardActivity extends AppCompatActivity {
         final int menu_timer_id = R.id.menu_timer;
         final int menu_move_record_limit_id = R.id.menu_move_record_limit;
         final int menu_clear_moves = R.id.menu_clear_moves;
+        final int menu_analysis_id = R.id.menu_analysis;
+        final int menu_find_games_id = R.id.menu_find_games;
+        final int menu_explorer_id = R.id.menu_explorer;
         final int menu_restart_game_id = R.id.menu_restart_game;
         final int menu_exit_game_id = R.id.menu_exit_game;
 
+        // Analysis is for two-player games: against the computer it would be both help and competition for the CPU
+        MenuItem analysisItem = popup.getMenu().findItem(menu_analysis_id);
+        analysisItem.setVisible(!isVsComputer);
+        if (liveAnalysis != null && liveAnalysis.isRunning()) {
+            analysisItem.setTitle("Stop Analysis");
+        }
+        if (explorerText.getVisibility() == View.VISIBLE) {
+            popup.getMenu().findItem(menu_explorer_id).setTitle("Hide Opening Explorer");
+        }
+
         popup.setOnMenuItemClickListener(item -> {
 
             if(item.getItemId()==menu_timer_id) {
@@ -123,6 +203,18 @@ public class BoardActivity extends AppCompatActivity {
                 clearMoveRecords();
                 return true;
             }
+            else if (item.getItemId() == menu_analysis_id) {
+                toggleAnalysis();
+                return true;
+            }
+            else if (item.getItemId() == menu_explorer_id) {
+                toggleExplorer();
+                return true;
+            }
+            else if (item.getItemId() == menu_find_games_id) {
+                showGamesWithPosition();
+                return true;
+            }
             else if (item.getItemId() == menu_restart_game_id) {
                 restartGame();
                 return true;
@@ -138,12 +230,18 @@ public class BoardActivity extends AppCompatActivity {
     }
 
     private void showTimerDialog() {
-        String[] options = {"10s", "20s", "30s"};
-        final long[] durations = {10000, 20000, 30000};
+        String[] options = {"10s", "20s", "30s", "1 min + 1s", "3 min + 2s", "5 min, 3s delay"};
+        final long[] durations = {10000, 20000, 30000, 60000, 180000, 300000};
+        final long[] increments = {0, 0, 0, 1000, 2000, 0};
+        final long[] delays = {0, 0, 0, 0, 0, 3000};
         new AlertDialog.Builder(this)
                 .setTitle("Select Timer Duration")
                 .setItems(options, (dialog, which) -> {
                     timerDuration = durations[which];
+                    timerIncrement = increments[which];
+                    timerDelay = delays[which];
+                    // Both clocks restart from the new base time
+                    gameClock.setTimeControl(timerDuration, timerIncrement, timerDelay);
                     Toast.makeText(this, "Timer set to " + options[which], Toast.LENGTH_SHORT).show();
                 })
                 .show();
@@ -163,6 +261,10 @@ public class BoardActivity extends AppCompatActivity {
                     else if(options[which].equals("Last 30")){
                         moveRecordLimit = 30;
                     }
+                    blackHistory.setCapacity(moveRecordLimit);
+                    whiteHistory.setCapacity(moveRecordLimit);
+                    blackMovesAdapter.notifyDataSetChanged();
+                    whiteMovesAdapter.notifyDataSetChanged();
                     Toast.makeText(this, "Move record limit set to " + options[which], Toast.LENGTH_SHORT).show();
                 })
                 .show();
@@ -170,192 +272,544 @@ public class BoardActivity extends AppCompatActivity {
 
 
     private void clearMoveRecords() {
-        LinearLayout blackMoves = findViewById(R.id.black_moves_container);
-        LinearLayout whiteMoves = findViewById(R.id.white_moves_container);
-
-        blackMoves.removeAllViews();
-        whiteMoves.removeAllViews();
+        blackHistory.clear();
+        whiteHistory.clear();
+        blackMovesAdapter.notifyDataSetChanged();
+        whiteMovesAdapter.notifyDataSetChanged();
 
         Toast.makeText(this, "Move records cleared", Toast.LENGTH_SHORT).show();
     }
 
     private void restartGame() {
+        computerRequestId++;
+        expectedReply = null;
+        if (computerPlayer != null) computerPlayer.stop();
+        if (computerPlayer instanceof UciEngine) ((UciEngine) computerPlayer).newGame();
+        // Picks up tables copied since the last game
+        SyzygyTablebase previousTablebase = tablebase;
+        tablebase = openTablebase();
+        if (computerPlayer instanceof ComputerPlayer) ((ComputerPlayer) computerPlayer).setTablebase(tablebase);
+        if (previousTablebase != null) previousTablebase.close();
         board = new Board();
+        startFen = board.getFen();
+        playedMoves.clear();
+        isGameOver = false;
+        gameStartTime = System.currentTimeMillis();
+        moveIndex.rebuild(board);
+        selectedSquare = Square.NONE;
+        chessboard.setLastMove(Square.NONE, Square.NONE);
         clearMoveRecords();
-        movesRecorded = 0;
         syncBoardWithUI();
-        cancelTimers();
+        gameClock.reset();
         startWhiteTimer();
+        requestComputerMoveIfNeeded();
+        updateAnalysis();
+        updateExplorer();
 
         Toast.makeText(this, "Game Restarted", Toast.LENGTH_SHORT).show();
     }
 
+    private void toggleAnalysis() {
+        if (liveAnalysis != null && liveAnalysis.isRunning()) {
+            liveAnalysis.stop();
+            analysisText.setVisibility(View.GONE);
+            return;
+        }
+        if (liveAnalysis == null) {
+            analysisEngine = new ComputerPlayer();
+            liveAnalysis = new LiveAnalysis(analysisEngine, LiveAnalysis.DEFAULT_LINES, analysisText::setText);
+        }
+        analysisText.setVisibility(View.VISIBLE);
+        liveAnalysis.analyze(startFen, playedMoves, board.getSideToMove() == Side.WHITE);
+    }
+
+    /**
+     * Moves the running analysis on to the current position.
+     */
+    private void updateAnalysis() {
+        if (liveAnalysis != null && liveAnalysis.isRunning()) {
+            liveAnalysis.analyze(startFen, playedMoves, board.getSideToMove() == Side.WHITE);
+        }
+    }
+
+    private void toggleExplorer() {
+        if (explorerText.getVisibility() == View.VISIBLE) {
+            explorerText.setVisibility(View.GONE);
+            return;
+        }
+        explorerText.setVisibility(View.VISIBLE);
+        updateExplorer();
+    }
+
+    /**
+     * Shows what the stored games played from the position on the board. A single read of the
+     * opening moves table on a connection kept open, cheap enough to do on the main thread
+     * after every move.
+     */
+    private void updateExplorer() {
+        if (explorerText.getVisibility() != View.VISIBLE) {
+            return;
+        }
+        List<OpeningMove> moves = databaseHelper.getOpeningMoves(PositionIndex.keyOf(board.getFen()));
+        if (moves.isEmpty()) {
+            explorerText.setText("No stored games from this position");
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (OpeningMove move : moves) {
+            if (sb.length() > 0) sb.append('\n');
+            int games = move.getGames();
+            sb.append(String.format(Locale.US, "%-6s %6d  W %3d%%  D %3d%%  B %3d%%",
+                    MoveCodec.toUci(move.getMove()), games,
+                    100 * move.getWhiteWins() / games, 100 * move.getDraws() / games, 100 * move.getBlackWins() / games));
+        }
+        explorerText.setText(sb.toString());
+    }
+
+    /**
+     * Lists the stored games that went through the position on the board; picking one
+     * replays it from that position.
+     */
+    private void showGamesWithPosition() {
+        List<PositionMatch> matches = databaseHelper.findGamesByPosition(
+                PositionIndex.keyOf(board.getFen()), POSITION_MATCH_LIMIT);
+        if (matches.isEmpty()) {
+            Toast.makeText(this, "No stored game reached this position", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String[] labels = new String[matches.size()];
+        for (int m = 0; m < labels.length; m++) {
+            labels[m] = ReplayActivity.describe(matches.get(m).getGame());
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Games With This Position")
+                .setItems(labels, (dialog, which) -> {
+                    PositionMatch match = matches.get(which);
+                    Intent intent = new Intent(this, ReplayActivity.class);
+                    intent.putExtra(ReplayActivity.EXTRA_GAME_ID, match.getGame().getId());
+                    intent.putExtra(ReplayActivity.EXTRA_PLY, match.getPly());
+                    startActivity(intent);
+                })
+                .show();
+    }
+
     private void exitGame() {
         cancelTimers();
         finish();
     }
 
+    /**
+     * Adjourns the game: the clock and any search stop until the activity is back in front,
+     * and the position is checkpointed in case the process does not survive that long.
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        gameClock.pause();
+        computerRequestId++;
+        expectedReply = null;
+        if (computerPlayer != null) computerPlayer.stop();
+        if (liveAnalysis != null && liveAnalysis.isRunning()) {
+            liveAnalysis.stop();
+            isAnalysisPaused = true;
+        }
+
+        if (isGameOver || isFinishing()) {
+            deleteSnapshot();
+        } else {
+            saveSnapshot();
+        }
+    }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (isAnalysisPaused) {
+            isAnalysisPaused = false;
+            liveAnalysis.analyze(startFen, playedMoves, board.getSideToMove() == Side.WHITE);
+        }
+        if (!isGameOver) {
+            gameClock.resume();
+            requestComputerMoveIfNeeded();
+        }
+    }
 
-// This handler function will now work correctly
-    private void handleCellClick(ImageView clickedCell) {
-        Square clickedSquare = (Square) clickedCell.getTag();
+    private File snapshotFile() {
+        return new File(getFilesDir(), SNAPSHOT_FILE);
+    }
 
-        // Get ALL legal moves for the current player
-        List<Move> allLegalMoves = board.legalMoves();
+    private void saveSnapshot() {
+        short[] moves = new short[playedMoves.size()];
+        for (int m = 0; m < moves.length; m++) {
+            moves[m] = MoveCodec.encode(playedMoves.get(m));
+        }
+        GameSnapshot snapshot = new GameSnapshot(playerWhiteName, playerBlackName, startFen, moves,
+                timerDuration, timerIncrement, timerDelay,
+                gameClock.getRemainingMillis(Side.WHITE), gameClock.getRemainingMillis(Side.BLACK), gameStartTime);
+        try {
+            snapshot.write(snapshotFile());
+        } catch (IOException e) {
+            Log.w("BoardActivity", "Could not save the game in progress", e);
+        }
+    }
+
+    private void deleteSnapshot() {
+        File file = snapshotFile();
+        if (file.exists() && !file.delete()) {
+            Log.w("BoardActivity", "Could not delete " + file);
+        }
+    }
+
+    /**
+     * Puts the checkpointed game back on the board. The moves are replayed straight into the
+     * board without validation, and the move lists, legal moves and view are rebuilt once at the end.
+     *
+     * @return false if there was no readable snapshot
+     */
+    private boolean restoreSnapshot() {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        GameSnapshot snapshot = GameSnapshot.read(snapshotFile());
+        if (snapshot == null) {
+            return false;
+        }
+
+        Board restored = new Board();
+        restored.loadFromFen(snapshot.getStartFen());
+        List<Move> moves = new ArrayList<>(snapshot.getMoves().length);
+        for (short encoded : snapshot.getMoves()) {
+            Move move = MoveCodec.decode(encoded);
+            // Same lists as commitMove: each side keeps its own latest moves
+            (restored.getSideToMove() == Side.BLACK ? blackHistory : whiteHistory).add(encoded);
+            restored.doMove(move, false);
+            moves.add(move);
+        }
+
+        board = restored;
+        startFen = snapshot.getStartFen();
+        playedMoves.clear();
+        playedMoves.addAll(moves);
+        gameStartTime = snapshot.getStartedAt();
+        playerWhiteName = snapshot.getWhiteName();
+        playerBlackName = snapshot.getBlackName();
+        ((TextView) findViewById(R.id.player_white_name)).setText("Player White: " + playerWhiteName);
+        ((TextView) findViewById(R.id.player_black_name)).setText("Player Black: " + playerBlackName);
+
+        blackMovesAdapter.notifyDataSetChanged();
+        whiteMovesAdapter.notifyDataSetChanged();
+        moveIndex.rebuild(board);
+        if (!moves.isEmpty()) {
+            Move last = moves.get(moves.size() - 1);
+            chessboard.setLastMove(last.getFrom(), last.getTo());
+        }
+        syncBoardWithUI();
+
+        timerDuration = snapshot.getTimeBaseMillis();
+        timerIncrement = snapshot.getTimeIncrementMillis();
+        timerDelay = snapshot.getTimeDelayMillis();
+        gameClock.stop();
+        gameClock.setTimeControl(timerDuration, timerIncrement, timerDelay);
+        gameClock.setRemainingMillis(snapshot.getRemainingMillis(Side.WHITE), snapshot.getRemainingMillis(Side.BLACK));
+        if (board.getSideToMove() == Side.WHITE) startWhiteTimer();
+        else startBlackTimer();
+
+        Log.d("BoardActivity", "Restored game with " + moves.size() + " moves in "
+                + (SystemClock.elapsedRealtimeNanos() - startNanos) / 1000 + " us");
+        return true;
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        cancelTimers();
+        if (computerPlayer != null) {
+            computerPlayer.shutdown();
+        }
+        if (liveAnalysis != null) {
+            liveAnalysis.stop();
+            analysisEngine.shutdown();
+        }
+        if (tablebase != null) {
+            tablebase.close();
+        }
+        // The explorer, the position search and game saves share one connection, open until now
+        databaseHelper.close();
+    }
+
+
+
+// This handler function will now work correctly
+    private void handleCellClick(Square clickedSquare) {
+        // The board is locked while the computer is thinking
+        if (isComputerTurn()) {
+            return;
+        }
 
         if (selectedSquare == Square.NONE) {
             // --- First Click (Select Piece) ---
             Piece piece = board.getPiece(clickedSquare);
 
-            // Check if a piece was clicked and it's the correct player's turn
-            if (piece != Piece.NONE && piece.getPieceSide() == board.getSideToMove()) {
-
-                // Check if this piece has any legal moves
-                boolean hasLegalMoves = false;
-                for (Move move : allLegalMoves) {
-                    if (move.getFrom().equals(clickedSquare)) {
-                        hasLegalMoves = true;
-                        break;
-                    }
-                }
-
-                if (hasLegalMoves) {
-                    selectedSquare = clickedSquare;
-                    // Highlight selected square
-                    clickedCell.setColorFilter(0x9900FF00, android.graphics.PorterDuff.Mode.SRC_ATOP);
-                    for (Move move : allLegalMoves) {
-                        if (move.getFrom().equals(clickedSquare)) {
-                            Square toSquare = move.getTo();
-
-                            // Loop through all 64 cells to find the matching ImageView
-                            for (int i = 0; i < chessboard.getChildCount(); i++) {
-                                ImageView cell = (ImageView) chessboard.getChildAt(i);
-                                Square cellSquare = (Square) cell.getTag();
-                                if (cellSquare.equals(toSquare)) {
-                                    cell.setBackgroundColor(Color.argb(150, 255, 255, 0)); // translucent yellow overlay
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
+            // Check if a piece was clicked, it's the correct player's turn and it can move
+            if (piece != Piece.NONE && piece.getPieceSide() == board.getSideToMove()
+                    && moveIndex.hasMovesFrom(clickedSquare)) {
+                selectedSquare = clickedSquare;
+                // Highlight the selected square and its targets
+                chessboard.setSelection(selectedSquare, moveIndex.getTargetMask(selectedSquare));
             }
         } else {
             // --- Second Click (Try to Move) ---
 
-            // Find the move in the legal move list
-            Move intendedMove = null;
-            for (Move move : allLegalMoves) {
-                if (move.getFrom().equals(selectedSquare) && move.getTo().equals(clickedSquare)) {
-
-                    // This logic handles the case where there are multiple promotion
-                    // options (e.g., to Queen, Rook, etc.) for the same square.
-                    // We will default to Queen, which is what the library does.
-                    // If you want to ask the user, you'd do it here.
-                    intendedMove = move;
-
-                    // If the move is a promotion, prefer the Queen
-                    if (move.getPromotion() == Piece.WHITE_QUEEN || move.getPromotion() == Piece.BLACK_QUEEN) {
-                        break; // Found the best (Queen) promotion, stop searching
-                    }
-                }
-            }
+            // Promotions default to the Queen, which is what the library does.
+            // If you want to ask the user, use moveIndex.getPromotionVariants() here.
+            Move intendedMove = moveIndex.findMove(selectedSquare, clickedSquare);
 
             if (intendedMove != null) {
                 // --- This is a LEGAL move ---
-
-                if( ((board.getSideToMove()).toString()).equalsIgnoreCase("BLACK") ){
-                    if(movesRecorded<moveRecordLimit) {
-                        TextView move = new TextView(this);
-                        move.setText(" "+intendedMove.toString());
-                        move.setTextColor(Color.WHITE);
-                        blackMoves.addView(move);
-                        blackScrollView.post(() -> blackScrollView.fullScroll(View.FOCUS_RIGHT));
-                        movesRecorded++;
-                    }
-                }
-                else{
-                    TextView move = new TextView(this);
-                    if(movesRecorded<moveRecordLimit) {
-                        move.setText(" "+intendedMove.toString());
-                        move.setTextColor(Color.WHITE);
-                        whiteMoves.addView(move);
-                        whiteScrollView.post(() -> whiteScrollView.fullScroll(View.FOCUS_RIGHT));
-                        movesRecorded++;
-                    }
-                }
-
-                board.doMove(intendedMove);
-                if (isWhiteTurn) startBlackTimer();
-                else startWhiteTimer();
-
-                // --- Check for special conditions ---
-                if (board.isMated()) {
-                    String winnerColor = (board.getSideToMove().flip()).toString();
-                    String winnerPlayerName;
-                    boolean isWhiteWinner;
-                    if(winnerColor.equalsIgnoreCase("BLACK")){
-                        winnerPlayerName = playerBlackName;
-                        isWhiteWinner = false;
-                    } else {
-                        winnerPlayerName = playerWhiteName;
-                        isWhiteWinner = true;
-                    }
-                    Toast.makeText(this, "Checkmate! " + winnerPlayerName + " wins!", Toast.LENGTH_LONG).show();
-                    // Update winner statistics
-                    updateGameStatistics(winnerPlayerName, isWhiteWinner);
-                }
-                else if (board.isKingAttacked()) {
-                    Toast.makeText(this, "Check!", Toast.LENGTH_SHORT).show();
-                }
-                else if (board.isDraw()) {
-                    Toast.makeText(this, "Game drawn!", Toast.LENGTH_LONG).show();
-                }
-
-                // --- Promotion check (optional logging) ---
-                if (intendedMove.getPromotion() != Piece.NONE) {
-                    // A promotion just happened
-                }
+                commitMove(intendedMove);
             }
 
 
             // --- Illegal move OR deselecting ---
             selectedSquare = Square.NONE;
             syncBoardWithUI(); // Update UI and clear all highlights
+
+            if (intendedMove != null) {
+                requestComputerMoveIfNeeded();
+            }
         }
     }
 
-    private void syncBoardWithUI() {
-        for (int i = 0; i < chessboard.getChildCount(); i++) {
-            ImageView cellView = (ImageView) chessboard.getChildAt(i);
-            Square square = (Square) cellView.getTag();
-            Piece piece = board.getPiece(square);
+    /**
+     * Plays a legal move on the board and updates the move lists, clocks and game state.
+     * Used for both the player's taps and the computer's replies.
+     */
+    private void commitMove(Move intendedMove) {
+        // Keep the latest moves of each side, the lists only bind what is visible
+        short encodedMove = MoveCodec.encode(intendedMove);
+        if( ((board.getSideToMove()).toString()).equalsIgnoreCase("BLACK") ){
+            blackMovesAdapter.addMove(encodedMove);
+            blackMovesList.scrollToPosition(blackHistory.size() - 1);
+        }
+        else{
+            whiteMovesAdapter.addMove(encodedMove);
+            whiteMovesList.scrollToPosition(whiteHistory.size() - 1);
+        }
 
-            // --- Determine the square's original color ---
-            int index = i; // position in GridLayout
-            int row = index / 8;
-            int col = index % 8;
-            boolean isLightSquare = (row + col) % 2 == 0;
+        board.doMove(intendedMove);
+        playedMoves.add(intendedMove);
+        moveIndex.rebuild(board);
+        chessboard.setLastMove(intendedMove.getFrom(), intendedMove.getTo());
+        boolean isClockRunning = isWhiteTurn ? startBlackTimer() : startWhiteTimer();
+        if (!isClockRunning) {
+            // The mover flagged before moving: onFlag has already ended and recorded the game
+            return;
+        }
 
-            int lightColor = Color.parseColor("#e8dda9");
-            int darkColor = Color.parseColor("#649962");
+        // --- Check for special conditions ---
+        if (board.isMated()) {
+            cancelTimers();
+            isGameOver = true;
+            String winnerColor = (board.getSideToMove().flip()).toString();
+            String winnerPlayerName;
+            boolean isWhiteWinner;
+            if(winnerColor.equalsIgnoreCase("BLACK")){
+                winnerPlayerName = playerBlackName;
+                isWhiteWinner = false;
+            } else {
+                winnerPlayerName = playerWhiteName;
+                isWhiteWinner = true;
+            }
+            Toast.makeText(this, "Checkmate! " + winnerPlayerName + " wins!", Toast.LENGTH_LONG).show();
+            recordFinishedGame(isWhiteWinner ? GameRecord.RESULT_WHITE_WINS : GameRecord.RESULT_BLACK_WINS,
+                    GameRecord.TERMINATION_CHECKMATE);
+        }
+        else if (board.isKingAttacked()) {
+            Toast.makeText(this, "Check!", Toast.LENGTH_SHORT).show();
+        }
+        else if (board.isDraw()) {
+            cancelTimers();
+            isGameOver = true;
+            Toast.makeText(this, "Game drawn!", Toast.LENGTH_LONG).show();
+            recordFinishedGame(GameRecord.RESULT_DRAW, drawTermination());
+        }
 
-            // --- Restore original background color ---
-            cellView.setBackgroundColor(isLightSquare ? lightColor : darkColor);
+        if (!isGameOver) {
+            adjudicateWithTablebase();
+        }
+        updateAnalysis();
+        updateExplorer();
+    }
 
-            // --- Clear old tint from pieces ---
-            cellView.clearColorFilter();
+    /**
+     * Ends the game if the tablebases know its result. Wins that the 50-move rule spoils count as draws.
+     */
+    private void adjudicateWithTablebase() {
+        if (!ADJUDICATE_WITH_TABLEBASE || tablebase == null || !tablebase.canProbe(board)) {
+            return;
+        }
+        int wdl = tablebase.probeWdl(board);
+        if (wdl == SyzygyTablebase.UNKNOWN) {
+            return;
+        }
 
-            // --- Update the piece image ---
-            if (piece != Piece.NONE) {
-                cellView.setImageResource(getDrawableIdForPiece(piece));
-            } else {
-                cellView.setImageDrawable(null);
+        cancelTimers();
+        isGameOver = true;
+        if (wdl == SyzygyTablebase.WDL_WIN || wdl == SyzygyTablebase.WDL_LOSS) {
+            // WDL is from the side to move's point of view
+            boolean isWhiteWinner = (board.getSideToMove() == Side.WHITE) == (wdl == SyzygyTablebase.WDL_WIN);
+            String winnerPlayerName = isWhiteWinner ? playerWhiteName : playerBlackName;
+            Toast.makeText(this, "Tablebase win! " + winnerPlayerName + " wins!", Toast.LENGTH_LONG).show();
+            recordFinishedGame(isWhiteWinner ? GameRecord.RESULT_WHITE_WINS : GameRecord.RESULT_BLACK_WINS,
+                    GameRecord.TERMINATION_TABLEBASE);
+        } else {
+            Toast.makeText(this, "Tablebase draw! Game drawn!", Toast.LENGTH_LONG).show();
+            recordFinishedGame(GameRecord.RESULT_DRAW, GameRecord.TERMINATION_TABLEBASE);
+        }
+    }
+
+    /**
+     * @return Why the drawn board position is a draw
+     */
+    private String drawTermination() {
+        if (board.isStaleMate()) {
+            return GameRecord.TERMINATION_STALEMATE;
+        }
+        if (board.isInsufficientMaterial()) {
+            return GameRecord.TERMINATION_INSUFFICIENT_MATERIAL;
+        }
+        if (board.isRepetition()) {
+            return GameRecord.TERMINATION_REPETITION;
+        }
+        return GameRecord.TERMINATION_FIFTY_MOVES;
+    }
+
+    /**
+     * @return The tablebases found in app storage, or null if none were copied there
+     */
+    private SyzygyTablebase openTablebase() {
+        File directory = getExternalFilesDir(TABLEBASE_DIRECTORY);
+        if (directory == null) {
+            return null;
+        }
+        SyzygyTablebase tables = new SyzygyTablebase(directory, SyzygyTablebase.DEFAULT_MAX_OPEN_TABLES);
+        if (tables.getMaxPieces() == 0) {
+            return null;
+        }
+        Log.d("BoardActivity", "Tablebases up to " + tables.getMaxPieces() + " pieces in " + directory);
+        return tables;
+    }
+
+    private boolean isComputerTurn() {
+        return isVsComputer && board.getSideToMove() == computerSide;
+    }
+
+    /**
+     * Starts a background search if it is the computer's turn. The reply is played on the UI thread.
+     */
+    private void requestComputerMoveIfNeeded() {
+        if (!isComputerTurn() || isGameOver) {
+            return;
+        }
+
+        final int requestId = ++computerRequestId;
+        SearchLimits limits = computerLimits.withClock(gameClock.getRemainingMillis(computerSide), timerIncrement);
+        computerPlayer.findBestMove(startFen, playedMoves, limits, result -> runOnUiThread(() -> {
+            // Ignore replies for a position that no longer exists (restart, exit)
+            if (requestId != computerRequestId || isFinishing() || isDestroyed()) {
+                return;
+            }
+            Log.d("BoardActivity", "Computer searched depth " + result.getDepth() + ", " + result.getNodes()
+                    + " nodes, " + result.getNodesPerSecond() + " nps");
+            if (result.getBestMove() != null && moveIndex.findMove(result.getBestMove().getFrom(),
+                    result.getBestMove().getTo()) != null) {
+                expectedReply = result.getPonderMove();
+                commitMove(result.getBestMove());
+                selectedSquare = Square.NONE;
+                syncBoardWithUI();
             }
+        }));
+    }
+
+    /**
+     * Lets the computer search the reply it expects while the human thinks. If the human plays
+     * it, the next request continues that search; otherwise the ponder search is dropped.
+     * Called when a clock starts, after the move is on the board.
+     */
+    private void startPonderingIfNeeded() {
+        Move reply = expectedReply;
+        expectedReply = null;
+        if (computerPlayer == null || isGameOver || isComputerTurn() || reply == null
+                || moveIndex.findMove(reply.getFrom(), reply.getTo()) == null) {
+            return;
+        }
+        List<Move> moves = new ArrayList<>(playedMoves);
+        moves.add(reply);
+        // The computer's clock does not run until the reply, so this is the budget it will get
+        SearchLimits limits = computerLimits.withClock(gameClock.getRemainingMillis(computerSide), timerIncrement);
+        computerPlayer.ponder(startFen, moves, limits);
+    }
+
+    /**
+     * Maps the bundled Polyglot book straight out of the APK. The asset is stored uncompressed
+     * (see noCompress in build.gradle.kts), so no copy is made.
+     *
+     * @return The book, or null if it is not bundled
+     */
+    private PolyglotBook openOpeningBook() {
+        try (AssetFileDescriptor descriptor = getAssets().openFd(OPENING_BOOK_ASSET);
+             FileInputStream bookIn = new FileInputStream(descriptor.getFileDescriptor());
+             FileChannel channel = bookIn.getChannel()) {
+            PolyglotBook book = PolyglotBook.map(channel, descriptor.getStartOffset(), descriptor.getLength());
+            Log.d("BoardActivity", "Opening book loaded, " + book.size() + " entries");
+            return book;
+        } catch (IOException e) {
+            Log.w("BoardActivity", "No opening book, the computer searches from the first move", e);
+            return null;
         }
     }
 
+    /**
+     * Loads the bundled NNUE network through a mapping of the uncompressed asset.
+     *
+     * @return The network, or null to fall back to the hand-written evaluator
+     */
+    private NnueNetwork openNetwork() {
+        try (AssetFileDescriptor descriptor = getAssets().openFd(NETWORK_ASSET);
+             FileInputStream in = new FileInputStream(descriptor.getFileDescriptor());
+             FileChannel channel = in.getChannel()) {
+            NnueNetwork network = NnueNetwork.map(channel, descriptor.getStartOffset(), descriptor.getLength());
+            Log.d("BoardActivity", "NNUE network loaded, " + network.getHiddenSize() + " hidden units");
+            return network;
+        } catch (IOException e) {
+            Log.w("BoardActivity", "No NNUE network, using the hand-written evaluator", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return The packaged UCI engine if there is one, else the built-in engine with
+     * the bundled book, the tablebases and, if chosen, the NNUE network
+     */
+    private EnginePlayer createComputerPlayer(Intent intent) {
+        File engine = new File(getApplicationInfo().nativeLibraryDir, UCI_ENGINE_LIBRARY);
+        if (engine.canExecute()) {
+            Log.d("BoardActivity", "Playing with the UCI engine " + engine);
+            return new UciEngine(Collections.singletonList(engine.getAbsolutePath()));
+        }
+        ComputerPlayer player = new ComputerPlayer();
+        player.setOpeningBook(openOpeningBook());
+        player.setTablebase(tablebase);
+        if (intent.getBooleanExtra("neuralEvaluator", false)) {
+            player.setNetwork(openNetwork());
+        }
+        return player;
+    }
+
+    private void syncBoardWithUI() {
+        // The board view only redraws if the position or highlights changed
+        chessboard.setPosition(board);
+        chessboard.clearSelection();
+    }
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -370,10 +824,14 @@ public class BoardActivity extends AppCompatActivity {
         ImageView settingsButton = findViewById(R.id.settingIcon);
         settingsButton.setOnClickListener(v -> showCustomizationMenu(v));
 
-        blackMoves = findViewById(R.id.black_moves_container);
-        whiteMoves = findViewById(R.id.white_moves_container);
-        blackScrollView = findViewById(R.id.black_scroll_view);
-        whiteScrollView = findViewById(R.id.white_scroll_view);
+        analysisText = findViewById(R.id.analysis_text);
+        explorerText = findViewById(R.id.explorer_text);
+        blackMovesList = findViewById(R.id.black_moves_list);
+        whiteMovesList = findViewById(R.id.white_moves_list);
+        blackMovesList.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
+        whiteMovesList.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
+        blackMovesList.setAdapter(blackMovesAdapter);
+        whiteMovesList.setAdapter(whiteMovesAdapter);
 
         // Initialize database and authentication components
         databaseHelper = new DatabaseHelper(this);
@@ -388,6 +846,7 @@ public class BoardActivity extends AppCompatActivity {
 
         whiteTimerText = findViewById(R.id.white_timer);
         blackTimerText = findViewById(R.id.black_timer);
+        gameClock = new GameClock(timerDuration, timerIncrement, timerDelay, createClockListener());
         startWhiteTimer();
 
         TextView playerwhitetext = findViewById(R.id.player_white_name);
@@ -408,129 +867,79 @@ public class BoardActivity extends AppCompatActivity {
 
 
         board = new Board();
+        startFen = board.getFen();
+        moveIndex.rebuild(board);
         chessboard = findViewById(R.id.chessboard);
+        chessboard.setOnSquareClickListener(this::handleCellClick);
+        syncBoardWithUI();
 
-        // We use post() to ensure the layout is measured before we get its width
-        chessboard.post(this::createChessBoard);
-    }
-
-    private void createChessBoard() {
-        // Colors from the image provided
-        int lightColor = Color.parseColor("#e8dda9");
-        int darkColor = Color.parseColor("#649962");
-
-        int boardSize = chessboard.getWidth();
-        int tileSize = boardSize / 8;
-
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                // *** KEY CHANGE: Create ONLY ONE ImageView per cell ***
-                ImageView cellView = new ImageView(this);
-
-                GridLayout.LayoutParams params = new GridLayout.LayoutParams();
-                params.width = tileSize;
-                params.height = tileSize;
-                params.rowSpec = GridLayout.spec(row);
-                params.columnSpec = GridLayout.spec(col);
-                cellView.setLayoutParams(params);
-
-                // Set background color for the square
-                boolean isLightSquare = (row + col) % 2 == 0;
-                cellView.setBackgroundColor(isLightSquare ? lightColor : darkColor);
-
-                int index = (7 - row) * 8 + col;
-                Square square = Square.squareAt(index);
-                Piece piece = board.getPiece(square);
-
-                // Check for a piece and set it as the image, not as a new View
-                //String key = row + "_" + col;
-                //Integer pieceDrawableId = initialPieces.get(key);
-                if (piece != Piece.NONE) {
-                    cellView.setImageResource(getDrawableIdForPiece(piece)); // You'll need to write this helper
-                    cellView.setScaleType(ImageView.ScaleType.CENTER_CROP);
-                    cellView.setPadding(8, 8, 8, 8);
-                }
-
-                // Set click listener
-                cellView.setTag(square);
-                cellView.setOnClickListener(v -> handleCellClick((ImageView) v));
-                chessboard.addView(cellView);
-            }
+        // A new game from the menu replaces any checkpoint; a recreated activity continues it
+        if (savedInstanceState == null || !restoreSnapshot()) {
+            deleteSnapshot();
         }
-    }
-    // Helper method you need to create
-    private int getDrawableIdForPiece(Piece piece) {
-        switch (piece) {
-            case WHITE_PAWN: return R.drawable.white_pawn;
-            case WHITE_ROOK: return R.drawable.white_rook;
-            case WHITE_BISHOP: return R.drawable.white_bishop;
-            case WHITE_KNIGHT: return R.drawable.white_knight;
-            case WHITE_QUEEN: return  R. drawable.white_queen;
-            case WHITE_KING: return  R.drawable.white_king;
-            case BLACK_PAWN: return R.drawable.black_pawn;
-            case BLACK_ROOK: return R.drawable.black_rook;
-            case BLACK_BISHOP: return R.drawable.black_bishop;
-            case BLACK_KNIGHT: return R.drawable.black_knight;
-            case BLACK_QUEEN: return R.drawable.black_queen;
-            case BLACK_KING: return R.drawable.black_king;
-            default: return 0; // Or null
+
+        // Adjudicates both kinds of games, and the computer probes it
+        tablebase = openTablebase();
+
+        // Player 1 is the human when playing against the computer
+        isVsComputer = i.getBooleanExtra("vsComputer", false);
+        if (isVsComputer) {
+            computerSide = player1Color.equals("Black") ? Side.WHITE : Side.BLACK;
+            computerLimits = SearchLimits.forLevel(i.getIntExtra("difficulty", 1));
+            // onResume asks for the computer's move if it is its turn
+            computerPlayer = createComputerPlayer(i);
         }
     }
 
     /**
-     * Updates game statistics for the winning player.
-     * Handles both registered and unregistered player scenarios.
-     * 
-     * @param winnerName The name of the winning player
-     * @param isWhiteWinner True if the winner played as white, false if black
+     * Stores the finished game with its moves and, for a registered winner, updates their
+     * statistics. Both are written in one transaction.
+     *
+     * @param result One of the GameRecord.RESULT_ constants
+     * @param termination One of the GameRecord.TERMINATION_ constants
      */
-    private void updateGameStatistics(String winnerName, boolean isWhiteWinner) {
+    private void recordFinishedGame(String result, String termination) {
         try {
             // Calculate game duration in milliseconds
             long gameEndTime = System.currentTimeMillis();
             long gameDuration = gameEndTime - gameStartTime;
-            
-            // Determine if the winner is a registered user
-            User winnerUser = null;
-            boolean isWinnerRegistered = false;
-            
-            // Check if the winner is the currently logged-in user
-            if (authManager.isLoggedIn() && authManager.getCurrentUsername().equals(winnerName)) {
-                winnerUser = authManager.getCurrentUser();
-                isWinnerRegistered = true;
-            } else {
-                // Check if the winner is a registered user (but not currently logged in)
-                winnerUser = databaseHelper.getUserByUsername(winnerName);
-                isWinnerRegistered = (winnerUser != null);
+
+            GameRecord game = new GameRecord(playerWhiteName, playerBlackName, result, termination,
+                    timerDuration, timerIncrement, timerDelay, startFen,
+                    MoveCodec.toBytes(playedMoves), gameStartTime, gameEndTime);
+
+            String winnerName = null;
+            if (GameRecord.RESULT_WHITE_WINS.equals(result)) {
+                winnerName = playerWhiteName;
+            } else if (GameRecord.RESULT_BLACK_WINS.equals(result)) {
+                winnerName = playerBlackName;
             }
-            
-            // Only update statistics for registered users
-            if (isWinnerRegistered && winnerUser != null) {
-                // Increment win count and add game time
-                int newWinCount = winnerUser.getWins() + 1;
-                long newTotalTime = winnerUser.getTotalTimePlayed() + gameDuration;
-                
-                // Update database
-                int rowsUpdated = databaseHelper.updateUserStats(winnerUser.getId(), newWinCount, newTotalTime);
-                
-                if (rowsUpdated > 0) {
-                    Log.d("BoardActivity", "Updated stats for user: " + winnerName + 
-                          ", Wins: " + newWinCount + ", Total Time: " + newTotalTime);
-                    
-                    // Refresh current user data if they are the winner
-                    if (authManager.isLoggedIn() && authManager.getCurrentUsername().equals(winnerName)) {
-                        authManager.refreshCurrentUser();
-                    }
+
+            // Only registered winners get statistics
+            User winnerUser = null;
+            if (winnerName != null) {
+                if (authManager.isLoggedIn() && authManager.getCurrentUsername().equals(winnerName)) {
+                    winnerUser = authManager.getCurrentUser();
                 } else {
-                    Log.w("BoardActivity", "Failed to update stats for user: " + winnerName);
+                    winnerUser = databaseHelper.getUserByUsername(winnerName);
                 }
-            } else {
-                Log.d("BoardActivity", "Winner " + winnerName + " is not a registered user, skipping stats update");
             }
-            
+
+            long gameId = databaseHelper.saveFinishedGame(game, winnerUser, gameDuration);
+            if (gameId == -1) {
+                Log.w("BoardActivity", "Failed to save game: " + game);
+                Toast.makeText(this, "Error saving game", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            Log.d("BoardActivity", "Saved game " + gameId + ": " + result + " by " + termination);
+
+            // Refresh current user data if they are the winner
+            if (winnerUser != null && authManager.isLoggedIn() && authManager.getCurrentUsername().equals(winnerName)) {
+                authManager.refreshCurrentUser();
+            }
         } catch (Exception e) {
-            Log.e("BoardActivity", "Error updating game statistics", e);
-            Toast.makeText(this, "Error updating game statistics", Toast.LENGTH_SHORT).show();
+            Log.e("BoardActivity", "Error saving game", e);
+            Toast.makeText(this, "Error saving game", Toast.LENGTH_SHORT).show();
         }
     }
-}
\ No newline at end of file
+}
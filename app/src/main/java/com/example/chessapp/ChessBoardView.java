@@ -0,0 +1,239 @@
+package com.example.chessapp;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.Square;
+
+/**
+ * Single view that draws the whole chessboard: squares, pieces, the last move,
+ * the selected piece and its target squares. Replaces the 64-ImageView grid,
+ * so there is no per-cell layout and nothing is allocated while drawing.
+ * Touches are mapped to squares arithmetically and reported to an
+ * {@link OnSquareClickListener}.
+ */
+public class ChessBoardView extends View {
+
+    /**
+     * Callback for taps on a square of the board.
+     */
+    public interface OnSquareClickListener {
+        void onSquareClick(Square square);
+    }
+
+    private static final int SQUARES = 64;
+    private static final int PIECE_PADDING = 8;
+
+    private static final int LIGHT_SQUARE_COLOR = 0xFFE8DDA9;
+    private static final int DARK_SQUARE_COLOR = 0xFF649962;
+    private static final int TARGET_COLOR = Color.argb(150, 255, 255, 0); // translucent yellow overlay
+    private static final int LAST_MOVE_COLOR = Color.argb(90, 255, 200, 0);
+    private static final int SELECTED_FILTER = 0x9900FF00;
+
+    private final Paint lightPaint = new Paint();
+    private final Paint darkPaint = new Paint();
+    private final Paint targetPaint = new Paint();
+    private final Paint lastMovePaint = new Paint();
+    private final Paint selectedPiecePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private final PieceSpriteCache spriteCache;
+
+    // Indexed by Square.ordinal()
+    private final Piece[] pieces = new Piece[SQUARES];
+    private int selectedIndex = -1;
+    private long targetMask;
+    private int lastMoveFrom = -1;
+    private int lastMoveTo = -1;
+
+    private float tileSize;
+    private OnSquareClickListener listener;
+
+    public ChessBoardView(Context context) {
+        this(context, null);
+    }
+
+    public ChessBoardView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        lightPaint.setColor(LIGHT_SQUARE_COLOR);
+        darkPaint.setColor(DARK_SQUARE_COLOR);
+        targetPaint.setColor(TARGET_COLOR);
+        lastMovePaint.setColor(LAST_MOVE_COLOR);
+        selectedPiecePaint.setColorFilter(new PorterDuffColorFilter(SELECTED_FILTER, PorterDuff.Mode.SRC_ATOP));
+
+        spriteCache = new PieceSpriteCache(context.getResources());
+        for (int i = 0; i < SQUARES; i++) {
+            pieces[i] = Piece.NONE;
+        }
+        setClickable(true);
+    }
+
+    public void setOnSquareClickListener(OnSquareClickListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Copies the piece placement of the board. Only redraws if a square changed.
+     */
+    public void setPosition(Board board) {
+        boolean changed = false;
+        for (int i = 0; i < SQUARES; i++) {
+            Piece piece = board.getPiece(Square.squareAt(i));
+            if (pieces[i] != piece) {
+                pieces[i] = piece;
+                changed = true;
+            }
+        }
+        if (changed) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Highlights a selected square and the squares it can move to.
+     *
+     * @param selected The selected square, or {@link Square#NONE}
+     * @param targets Bitmask of target squares (bit index = {@link Square#ordinal()})
+     */
+    public void setSelection(Square selected, long targets) {
+        int index = selected == Square.NONE ? -1 : selected.ordinal();
+        if (index != selectedIndex || targets != targetMask) {
+            selectedIndex = index;
+            targetMask = targets;
+            invalidate();
+        }
+    }
+
+    public void clearSelection() {
+        setSelection(Square.NONE, 0L);
+    }
+
+    /**
+     * Marks the squares of the last move played, pass {@link Square#NONE} to clear.
+     */
+    public void setLastMove(Square from, Square to) {
+        int fromIndex = from == Square.NONE ? -1 : from.ordinal();
+        int toIndex = to == Square.NONE ? -1 : to.ordinal();
+        if (fromIndex != lastMoveFrom || toIndex != lastMoveTo) {
+            lastMoveFrom = fromIndex;
+            lastMoveTo = toIndex;
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        // The board is always square
+        int size = Math.min(getMeasuredWidth(), getMeasuredHeight());
+        setMeasuredDimension(size, size);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        tileSize = Math.min(w, h) / 8f;
+        // Sprites are pre-scaled once per tile size, not on every draw
+        spriteCache.ensureSpriteSize(getWidth() / 8 - 2 * PIECE_PADDING);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        spriteCache.release();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        spriteCache.ensureSpriteSize(getWidth() / 8 - 2 * PIECE_PADDING);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (tileSize <= 0) {
+            return;
+        }
+
+        for (int index = 0; index < SQUARES; index++) {
+            int rank = index >> 3;
+            int file = index & 7;
+            float left = file * tileSize;
+            float top = (7 - rank) * tileSize;
+            float right = left + tileSize;
+            float bottom = top + tileSize;
+
+            // a1 (index 0) is a dark square
+            boolean isLightSquare = ((rank + file) & 1) != 0;
+            canvas.drawRect(left, top, right, bottom, isLightSquare ? lightPaint : darkPaint);
+
+            if (index == lastMoveFrom || index == lastMoveTo) {
+                canvas.drawRect(left, top, right, bottom, lastMovePaint);
+            }
+            if ((targetMask & (1L << index)) != 0) {
+                canvas.drawRect(left, top, right, bottom, targetPaint);
+            }
+
+            if (pieces[index] != Piece.NONE) {
+                spriteCache.draw(canvas, pieces[index], (int) left + PIECE_PADDING, (int) top + PIECE_PADDING,
+                        index == selectedIndex ? selectedPiecePaint : null);
+            }
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!isEnabled() || tileSize <= 0) {
+            return false;
+        }
+
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                return true;
+            case MotionEvent.ACTION_UP:
+                int file = (int) (event.getX() / tileSize);
+                int row = (int) (event.getY() / tileSize);
+                if (file >= 0 && file < 8 && row >= 0 && row < 8) {
+                    performClick();
+                    if (listener != null) {
+                        listener.onSquareClick(Square.squareAt((7 - row) * 8 + file));
+                    }
+                }
+                return true;
+            default:
+                return super.onTouchEvent(event);
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    static int getDrawableIdForPiece(Piece piece) {
+        switch (piece) {
+            case WHITE_PAWN: return R.drawable.white_pawn;
+            case WHITE_ROOK: return R.drawable.white_rook;
+            case WHITE_BISHOP: return R.drawable.white_bishop;
+            case WHITE_KNIGHT: return R.drawable.white_knight;
+            case WHITE_QUEEN: return R.drawable.white_queen;
+            case WHITE_KING: return R.drawable.white_king;
+            case BLACK_PAWN: return R.drawable.black_pawn;
+            case BLACK_ROOK: return R.drawable.black_rook;
+            case BLACK_BISHOP: return R.drawable.black_bishop;
+            case BLACK_KNIGHT: return R.drawable.black_knight;
+            case BLACK_QUEEN: return R.drawable.black_queen;
+            case BLACK_KING: return R.drawable.black_king;
+            default: return 0;
+        }
+    }
+}
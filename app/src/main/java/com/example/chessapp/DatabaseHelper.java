@@ -3,16 +3,18 @@ package com.example.chessapp;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * DatabaseHelper class extending SQLiteOpenHelper for managing user data.
- * Handles database creation, upgrades, and CRUD operations for users.
+ * DatabaseHelper class extending SQLiteOpenHelper for managing user and game data.
+ * Handles database creation, upgrades, and CRUD operations for users and finished games.
  */
 public class DatabaseHelper extends SQLiteOpenHelper {
     
@@ -20,7 +22,9 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     
     // Database configuration
     private static final String DATABASE_NAME = "chess_app.db";
-    private static final int DATABASE_VERSION = 1;
+    // Version 2 adds the games table, version 3 the positions table, version 4 the opening moves
+    // table, version 5 the leaderboard index
+    private static final int DATABASE_VERSION = 5;
     
     // Table and column names
     private static final String TABLE_USERS = "users";
@@ -42,6 +46,107 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         COLUMN_CREATED_AT + " INTEGER DEFAULT " + System.currentTimeMillis() +
         ");";
 
+    // Leaderboard order; the rowid every index entry ends with breaks the remaining ties by id
+    private static final String CREATE_INDEX_USERS_LEADERBOARD =
+        "CREATE INDEX idx_users_leaderboard ON " + TABLE_USERS + " (" +
+        COLUMN_WINS + " DESC, " + COLUMN_TOTAL_TIME + " ASC)";
+
+    // Games table
+    private static final String TABLE_GAMES = "games";
+    private static final String COLUMN_WHITE_NAME = "white_name";
+    private static final String COLUMN_BLACK_NAME = "black_name";
+    private static final String COLUMN_RESULT = "result";
+    private static final String COLUMN_TERMINATION = "termination";
+    private static final String COLUMN_TIME_BASE = "time_base_ms";
+    private static final String COLUMN_TIME_INCREMENT = "time_increment_ms";
+    private static final String COLUMN_TIME_DELAY = "time_delay_ms";
+    private static final String COLUMN_START_FEN = "start_fen";
+    private static final String COLUMN_MOVES = "moves";
+    private static final String COLUMN_PLY_COUNT = "ply_count";
+    private static final String COLUMN_STARTED_AT = "started_at";
+    private static final String COLUMN_ENDED_AT = "ended_at";
+
+    // Moves are a BLOB of 16-bit moves (see MoveCodec.toBytes), not PGN text
+    private static final String CREATE_TABLE_GAMES =
+        "CREATE TABLE " + TABLE_GAMES + " (" +
+        COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+        COLUMN_WHITE_NAME + " TEXT NOT NULL, " +
+        COLUMN_BLACK_NAME + " TEXT NOT NULL, " +
+        COLUMN_RESULT + " TEXT NOT NULL, " +
+        COLUMN_TERMINATION + " TEXT NOT NULL, " +
+        COLUMN_TIME_BASE + " INTEGER NOT NULL, " +
+        COLUMN_TIME_INCREMENT + " INTEGER NOT NULL, " +
+        COLUMN_TIME_DELAY + " INTEGER NOT NULL, " +
+        COLUMN_START_FEN + " TEXT, " +
+        COLUMN_MOVES + " BLOB NOT NULL, " +
+        COLUMN_PLY_COUNT + " INTEGER NOT NULL, " +
+        COLUMN_STARTED_AT + " INTEGER NOT NULL, " +
+        COLUMN_ENDED_AT + " INTEGER NOT NULL" +
+        ");";
+
+    // Most recent games first
+    private static final String CREATE_INDEX_GAMES_ENDED_AT =
+        "CREATE INDEX idx_games_ended_at ON " + TABLE_GAMES + " (" + COLUMN_ENDED_AT + ")";
+
+    // Positions table: one row per position of every game, keyed by PositionIndex.keyOf
+    private static final String TABLE_POSITIONS = "positions";
+    private static final String COLUMN_ZOBRIST_KEY = "zobrist_key";
+    private static final String COLUMN_GAME_ID = "game_id";
+    private static final String COLUMN_PLY = "ply";
+
+    // Clustered on the key, so all games of a position are one range scan, newest game first
+    private static final String CREATE_TABLE_POSITIONS =
+        "CREATE TABLE " + TABLE_POSITIONS + " (" +
+        COLUMN_ZOBRIST_KEY + " INTEGER NOT NULL, " +
+        COLUMN_GAME_ID + " INTEGER NOT NULL, " +
+        COLUMN_PLY + " INTEGER NOT NULL, " +
+        "PRIMARY KEY (" + COLUMN_ZOBRIST_KEY + ", " + COLUMN_GAME_ID + ", " + COLUMN_PLY + ")" +
+        ") WITHOUT ROWID;";
+
+    private static final String INSERT_POSITION =
+        "INSERT INTO " + TABLE_POSITIONS + " (" +
+        COLUMN_ZOBRIST_KEY + ", " + COLUMN_GAME_ID + ", " + COLUMN_PLY + ") VALUES (?, ?, ?)";
+
+    // Opening explorer: per position and move, how many games played it and how they ended.
+    // Kept up to date as games are stored, so a lookup never aggregates over the games.
+    private static final String TABLE_OPENING_MOVES = "opening_moves";
+    private static final String COLUMN_MOVE = "move";
+    private static final String COLUMN_GAMES = "games";
+    private static final String COLUMN_WHITE_WINS = "white_wins";
+    private static final String COLUMN_DRAWS = "draws";
+    private static final String COLUMN_BLACK_WINS = "black_wins";
+
+    private static final String CREATE_TABLE_OPENING_MOVES =
+        "CREATE TABLE " + TABLE_OPENING_MOVES + " (" +
+        COLUMN_ZOBRIST_KEY + " INTEGER NOT NULL, " +
+        COLUMN_MOVE + " INTEGER NOT NULL, " +
+        COLUMN_GAMES + " INTEGER NOT NULL, " +
+        COLUMN_WHITE_WINS + " INTEGER NOT NULL, " +
+        COLUMN_DRAWS + " INTEGER NOT NULL, " +
+        COLUMN_BLACK_WINS + " INTEGER NOT NULL, " +
+        "PRIMARY KEY (" + COLUMN_ZOBRIST_KEY + ", " + COLUMN_MOVE + ")" +
+        ") WITHOUT ROWID;";
+
+    // No UPSERT before SQLite 3.24 (API 30): update, and insert if there was no row
+    private static final String UPDATE_OPENING_MOVE =
+        "UPDATE " + TABLE_OPENING_MOVES + " SET " +
+        COLUMN_GAMES + " = " + COLUMN_GAMES + " + 1, " +
+        COLUMN_WHITE_WINS + " = " + COLUMN_WHITE_WINS + " + ?, " +
+        COLUMN_DRAWS + " = " + COLUMN_DRAWS + " + ?, " +
+        COLUMN_BLACK_WINS + " = " + COLUMN_BLACK_WINS + " + ? WHERE " +
+        COLUMN_ZOBRIST_KEY + " = ? AND " + COLUMN_MOVE + " = ?";
+
+    private static final String INSERT_OPENING_MOVE =
+        "INSERT INTO " + TABLE_OPENING_MOVES + " (" +
+        COLUMN_ZOBRIST_KEY + ", " + COLUMN_MOVE + ", " + COLUMN_GAMES + ", " +
+        COLUMN_WHITE_WINS + ", " + COLUMN_DRAWS + ", " + COLUMN_BLACK_WINS + ") VALUES (?, ?, 1, ?, ?, ?)";
+
+    // Plies of each game counted in the opening explorer; later positions rarely recur across games
+    static final int OPENING_PLIES = 40;
+
+    // Games read at a time while indexing the games stored before an upgrade
+    private static final int BACKFILL_PAGE_SIZE = 200;
+
     public DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
     }
@@ -50,13 +155,159 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public void onCreate(SQLiteDatabase db) {
         Log.d(TAG, "Creating database tables");
         db.execSQL(CREATE_TABLE_USERS);
+        db.execSQL(CREATE_INDEX_USERS_LEADERBOARD);
+        createGamesTable(db);
+        db.execSQL(CREATE_TABLE_POSITIONS);
+        db.execSQL(CREATE_TABLE_OPENING_MOVES);
     }
 
+    /**
+     * Adds what each version introduced, keeping existing users and their statistics.
+     */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         Log.d(TAG, "Upgrading database from version " + oldVersion + " to " + newVersion);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_USERS);
-        onCreate(db);
+        if (oldVersion < 2) {
+            createGamesTable(db);
+        }
+        if (oldVersion < 3) {
+            db.execSQL(CREATE_TABLE_POSITIONS);
+        }
+        if (oldVersion < 4) {
+            db.execSQL(CREATE_TABLE_OPENING_MOVES);
+        }
+        if (oldVersion < 5) {
+            db.execSQL(CREATE_INDEX_USERS_LEADERBOARD);
+        }
+        // Only versions 2 and 3 have games without positions or opening moves rows
+        if (oldVersion >= 2 && oldVersion < 4) {
+            backfillIndexes(db, oldVersion < 3, oldVersion < 4);
+        }
+    }
+
+    private static void createGamesTable(SQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE_GAMES);
+        db.execSQL(CREATE_INDEX_GAMES_ENDED_AT);
+    }
+
+    /**
+     * Indexes the games stored before the positions or opening moves table existed. Runs
+     * inside the upgrade transaction, reading the games a page at a time.
+     */
+    private static void backfillIndexes(SQLiteDatabase db, boolean positions, boolean openingMoves) {
+        GameIndexer indexer = new GameIndexer(db);
+        String[] columns = {COLUMN_ID, COLUMN_START_FEN, COLUMN_MOVES, COLUMN_RESULT};
+        long lastId = 0;
+        int indexed = 0;
+        while (true) {
+            Cursor cursor = db.query(TABLE_GAMES, columns, COLUMN_ID + " > ?",
+                    new String[]{String.valueOf(lastId)}, null, null, COLUMN_ID + " ASC",
+                    String.valueOf(BACKFILL_PAGE_SIZE));
+            int rows = 0;
+            while (cursor.moveToNext()) {
+                lastId = cursor.getLong(0);
+                indexer.index(lastId, cursor.getString(1), cursor.getBlob(2), cursor.getString(3),
+                        positions, openingMoves);
+                rows++;
+            }
+            cursor.close();
+            indexed += rows;
+            if (rows < BACKFILL_PAGE_SIZE) {
+                break;
+            }
+        }
+        indexer.close();
+        Log.d(TAG, "Indexed " + indexed + " games");
+    }
+
+    /**
+     * Writes the positions and opening moves rows of stored games, through statements
+     * compiled once per transaction.
+     */
+    private static final class GameIndexer {
+        private final SQLiteStatement insertPosition;
+        private final SQLiteStatement updateOpeningMove;
+        private final SQLiteStatement insertOpeningMove;
+
+        GameIndexer(SQLiteDatabase db) {
+            insertPosition = db.compileStatement(INSERT_POSITION);
+            updateOpeningMove = db.compileStatement(UPDATE_OPENING_MOVE);
+            insertOpeningMove = db.compileStatement(INSERT_OPENING_MOVE);
+        }
+
+        void index(long gameId, GameRecord game) {
+            index(gameId, game.getStartFen(), game.getMoves(), game.getResult(), true, true);
+        }
+
+        void index(long gameId, String startFen, byte[] moves, String result,
+                   boolean positions, boolean openingMoves) {
+            if (!positions && !openingMoves) {
+                return;
+            }
+            long[] keys = PositionIndex.keysOf(startFen, moves);
+            if (positions) {
+                indexPositions(gameId, keys);
+            }
+            if (openingMoves) {
+                countOpeningMoves(keys, MoveCodec.fromBytes(moves), result);
+            }
+        }
+
+        /**
+         * Adds a row per ply of the game. A position repeated within the game gets a row per occurrence.
+         */
+        private void indexPositions(long gameId, long[] keys) {
+            for (int ply = 0; ply < keys.length; ply++) {
+                insertPosition.bindLong(1, keys[ply]);
+                insertPosition.bindLong(2, gameId);
+                insertPosition.bindLong(3, ply);
+                insertPosition.executeInsert();
+            }
+        }
+
+        /**
+         * Adds the game to the statistics of each move of its opening. A move played twice from
+         * the same position, by repetition, counts once.
+         */
+        private void countOpeningMoves(long[] keys, short[] moves, String result) {
+            long whiteWin = GameRecord.RESULT_WHITE_WINS.equals(result) ? 1 : 0;
+            long draw = GameRecord.RESULT_DRAW.equals(result) ? 1 : 0;
+            long blackWin = GameRecord.RESULT_BLACK_WINS.equals(result) ? 1 : 0;
+            int plies = Math.min(moves.length, OPENING_PLIES);
+            for (int ply = 0; ply < plies; ply++) {
+                if (playedBefore(keys, moves, ply)) {
+                    continue;
+                }
+                updateOpeningMove.bindLong(1, whiteWin);
+                updateOpeningMove.bindLong(2, draw);
+                updateOpeningMove.bindLong(3, blackWin);
+                updateOpeningMove.bindLong(4, keys[ply]);
+                updateOpeningMove.bindLong(5, moves[ply]);
+                if (updateOpeningMove.executeUpdateDelete() == 0) {
+                    insertOpeningMove.bindLong(1, keys[ply]);
+                    insertOpeningMove.bindLong(2, moves[ply]);
+                    insertOpeningMove.bindLong(3, whiteWin);
+                    insertOpeningMove.bindLong(4, draw);
+                    insertOpeningMove.bindLong(5, blackWin);
+                    insertOpeningMove.executeInsert();
+                }
+            }
+        }
+
+        private static boolean playedBefore(long[] keys, short[] moves, int ply) {
+            for (int earlier = 0; earlier < ply; earlier++) {
+                if (keys[earlier] == keys[ply] && moves[earlier] == moves[ply]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void close() {
+            insertPosition.close();
+            updateOpeningMove.close();
+            insertOpeningMove.close();
+        }
     }
 
     /**
@@ -102,7 +353,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             cursor.close();
         }
         
-        db.close();
         return user;
     }
 
@@ -156,26 +406,51 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     }
 
     /**
-     * Retrieves all users ordered by wins (descending) and total time (ascending for ties).
-     * 
-     * @return List of all users sorted for leaderboard display
+     * Retrieves one page of the leaderboard: users ordered by wins (descending), total time
+     * (ascending for ties) and ID. Pages are keyed by the last entry of the previous page
+     * rather than an offset, so every page is a seek into the leaderboard index no matter
+     * how deep it is.
+     *
+     * SQLite on API 24 and 25 has no row value comparison, and an OR of the tie-breaks would
+     * scan the index from the top of the last entry's win count. Each of the three ranges that
+     * follow the last entry is instead a separate seek, merged in index order.
+     *
+     * @param after Last entry of the previous page, null for the first page
+     * @param limit Maximum number of entries to return
+     * @return List of entries, empty after the last page
      */
-    public List<User> getAllUsersForLeaderboard() {
-        List<User> users = new ArrayList<>();
+    public List<LeaderboardEntry> getLeaderboardPage(LeaderboardEntry after, int limit) {
+        List<LeaderboardEntry> entries = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
-        
-        String orderBy = COLUMN_WINS + " DESC, " + COLUMN_TOTAL_TIME + " ASC";
-        Cursor cursor = db.query(TABLE_USERS, null, null, null, null, null, orderBy);
-        
+
+        String columns = "SELECT " + COLUMN_ID + ", " + COLUMN_USERNAME + ", " + COLUMN_WINS + ", " +
+                COLUMN_TOTAL_TIME + " FROM " + TABLE_USERS;
+        String orderBy = " ORDER BY " + COLUMN_WINS + " DESC, " + COLUMN_TOTAL_TIME + " ASC, " +
+                COLUMN_ID + " ASC LIMIT " + limit;
+        Cursor cursor;
+        if (after == null) {
+            cursor = db.rawQuery(columns + orderBy, null);
+        } else {
+            String wins = String.valueOf(after.getWins());
+            String time = String.valueOf(after.getTotalTimePlayed());
+            String query = columns + " WHERE " + COLUMN_WINS + " = ? AND " + COLUMN_TOTAL_TIME + " = ? AND " + COLUMN_ID + " > ?" +
+                    " UNION ALL " + columns + " WHERE " + COLUMN_WINS + " = ? AND " + COLUMN_TOTAL_TIME + " > ?" +
+                    " UNION ALL " + columns + " WHERE " + COLUMN_WINS + " < ?" +
+                    orderBy;
+            cursor = db.rawQuery(query, new String[]{wins, time, String.valueOf(after.getId()),
+                    wins, time, wins});
+        }
+
         if (cursor != null) {
             while (cursor.moveToNext()) {
-                users.add(cursorToUser(cursor));
+                entries.add(new LeaderboardEntry(cursor.getInt(0), cursor.getString(1),
+                        cursor.getInt(2), cursor.getLong(3)));
             }
             cursor.close();
         }
-        
+
         db.close();
-        return users;
+        return entries;
     }
 
     /**
@@ -219,6 +494,270 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return new User(id, username, passwordHash, wins, totalTime, createdAt);
     }
 
+    /**
+     * Stores a finished game, its positions and its opening moves and, if the winner is a registered user, adds
+     * the win and the game time to their statistics. All writes happen in one transaction.
+     *
+     * @param game The finished game
+     * @param winner The registered winner, or null for a draw or an unregistered winner
+     * @param gameDuration Time the game took in milliseconds
+     * @return The row ID of the game, or -1 if an error occurred
+     */
+    public long saveFinishedGame(GameRecord game, User winner, long gameDuration) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        ContentValues values = new ContentValues();
+
+        values.put(COLUMN_WHITE_NAME, game.getWhiteName());
+        values.put(COLUMN_BLACK_NAME, game.getBlackName());
+        values.put(COLUMN_RESULT, game.getResult());
+        values.put(COLUMN_TERMINATION, game.getTermination());
+        values.put(COLUMN_TIME_BASE, game.getTimeBaseMillis());
+        values.put(COLUMN_TIME_INCREMENT, game.getTimeIncrementMillis());
+        values.put(COLUMN_TIME_DELAY, game.getTimeDelayMillis());
+        values.put(COLUMN_START_FEN, game.getStartFen());
+        values.put(COLUMN_MOVES, game.getMoves());
+        values.put(COLUMN_PLY_COUNT, game.getPlyCount());
+        values.put(COLUMN_STARTED_AT, game.getStartedAt());
+        values.put(COLUMN_ENDED_AT, game.getEndedAt());
+
+        long gameId = -1;
+        db.beginTransaction();
+        try {
+            gameId = db.insertOrThrow(TABLE_GAMES, null, values);
+            GameIndexer indexer = new GameIndexer(db);
+            indexer.index(gameId, game);
+            indexer.close();
+            if (winner != null) {
+                // Incremented in SQL, so a stale User object cannot overwrite newer statistics
+                db.execSQL("UPDATE " + TABLE_USERS + " SET " +
+                        COLUMN_WINS + " = " + COLUMN_WINS + " + 1, " +
+                        COLUMN_TOTAL_TIME + " = " + COLUMN_TOTAL_TIME + " + ? WHERE " + COLUMN_ID + " = ?",
+                        new Object[]{gameDuration, winner.getId()});
+            }
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, "Failed to save game", e);
+            gameId = -1;
+        } finally {
+            db.endTransaction();
+        }
+
+        Log.d(TAG, "Game saved with ID: " + gameId + ", " + game.getPlyCount() + " plies in " + game.getMoves().length + " bytes");
+        return gameId;
+    }
+
+    /**
+     * Stores many games at once, e.g. from a PGN import. All rows go in one transaction
+     * through one compiled statement, which is far faster than a transaction per game.
+     *
+     * @param games The games to insert
+     * @return Number of games inserted, 0 if the batch failed and was rolled back
+     */
+    public int insertGames(List<GameRecord> games) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        int inserted = 0;
+        db.beginTransaction();
+        try {
+            SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_GAMES + " (" +
+                    COLUMN_WHITE_NAME + ", " + COLUMN_BLACK_NAME + ", " + COLUMN_RESULT + ", " +
+                    COLUMN_TERMINATION + ", " + COLUMN_TIME_BASE + ", " + COLUMN_TIME_INCREMENT + ", " +
+                    COLUMN_TIME_DELAY + ", " + COLUMN_START_FEN + ", " + COLUMN_MOVES + ", " +
+                    COLUMN_PLY_COUNT + ", " + COLUMN_STARTED_AT + ", " + COLUMN_ENDED_AT +
+                    ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            GameIndexer indexer = new GameIndexer(db);
+            for (GameRecord game : games) {
+                insert.clearBindings();
+                insert.bindString(1, game.getWhiteName());
+                insert.bindString(2, game.getBlackName());
+                insert.bindString(3, game.getResult());
+                insert.bindString(4, game.getTermination());
+                insert.bindLong(5, game.getTimeBaseMillis());
+                insert.bindLong(6, game.getTimeIncrementMillis());
+                insert.bindLong(7, game.getTimeDelayMillis());
+                if (game.getStartFen() != null) {
+                    insert.bindString(8, game.getStartFen());
+                }
+                insert.bindBlob(9, game.getMoves());
+                insert.bindLong(10, game.getPlyCount());
+                insert.bindLong(11, game.getStartedAt());
+                insert.bindLong(12, game.getEndedAt());
+                long gameId = insert.executeInsert();
+                indexer.index(gameId, game);
+                inserted++;
+            }
+            insert.close();
+            indexer.close();
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, "Failed to insert " + games.size() + " games", e);
+            inserted = 0;
+        } finally {
+            db.endTransaction();
+        }
+        db.close();
+        return inserted;
+    }
+
+    /**
+     * Retrieves games in ID order, one page at a time: pass the ID of the last game of the
+     * previous page to get the next one. Used to export all games in constant memory.
+     *
+     * @param afterId ID of the last game already seen, 0 for the first page
+     * @param limit Maximum number of games to return
+     * @return List of games, empty after the last page
+     */
+    public List<GameRecord> getGamesAfter(long afterId, int limit) {
+        List<GameRecord> games = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        String selection = COLUMN_ID + " > ?";
+        String[] selectionArgs = {String.valueOf(afterId)};
+        Cursor cursor = db.query(TABLE_GAMES, null, selection, selectionArgs, null, null,
+                COLUMN_ID + " ASC", String.valueOf(limit));
+
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                games.add(cursorToGame(cursor));
+            }
+            cursor.close();
+        }
+
+        db.close();
+        return games;
+    }
+
+    /**
+     * Finds the stored games that reached a position, newest game first. Only reads the
+     * matching range of the positions table, so the time depends on the number of matches
+     * returned, not on the number of games stored.
+     *
+     * @param zobristKey Key of the position, from {@link PositionIndex#keyOf(String)}
+     * @param limit Maximum number of games to return
+     * @return The games with the first ply each reached the position at, empty if none did
+     */
+    public List<PositionMatch> findGamesByPosition(long zobristKey, int limit) {
+        List<PositionMatch> matches = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        String query = "SELECT g.*, m." + COLUMN_PLY + " AS match_ply FROM (" +
+                "SELECT " + COLUMN_GAME_ID + ", MIN(" + COLUMN_PLY + ") AS " + COLUMN_PLY +
+                " FROM " + TABLE_POSITIONS + " WHERE " + COLUMN_ZOBRIST_KEY + " = ?" +
+                " GROUP BY " + COLUMN_GAME_ID + " ORDER BY " + COLUMN_GAME_ID + " DESC LIMIT ?" +
+                ") m JOIN " + TABLE_GAMES + " g ON g." + COLUMN_ID + " = m." + COLUMN_GAME_ID +
+                " ORDER BY m." + COLUMN_GAME_ID + " DESC";
+        Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(zobristKey), String.valueOf(limit)});
+
+        if (cursor != null) {
+            int plyIndex = cursor.getColumnIndexOrThrow("match_ply");
+            while (cursor.moveToNext()) {
+                matches.add(new PositionMatch(cursorToGame(cursor), cursor.getInt(plyIndex)));
+            }
+            cursor.close();
+        }
+
+        return matches;
+    }
+
+    /**
+     * Retrieves the opening explorer statistics of a position: every move played from it in
+     * the first {@link #OPENING_PLIES} plies of the stored games, most played first. One range
+     * read of the opening moves table.
+     *
+     * @param zobristKey Key of the position, from {@link PositionIndex#keyOf(String)}
+     * @return List of moves, empty if no stored game played on from the position
+     */
+    public List<OpeningMove> getOpeningMoves(long zobristKey) {
+        List<OpeningMove> moves = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        String[] columns = {COLUMN_MOVE, COLUMN_GAMES, COLUMN_WHITE_WINS, COLUMN_DRAWS, COLUMN_BLACK_WINS};
+        String selection = COLUMN_ZOBRIST_KEY + " = ?";
+        String[] selectionArgs = {String.valueOf(zobristKey)};
+        Cursor cursor = db.query(TABLE_OPENING_MOVES, columns, selection, selectionArgs, null, null,
+                COLUMN_GAMES + " DESC");
+
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                moves.add(new OpeningMove((short) cursor.getInt(0), cursor.getInt(1),
+                        cursor.getInt(2), cursor.getInt(3), cursor.getInt(4)));
+            }
+            cursor.close();
+        }
+
+        return moves;
+    }
+
+    /**
+     * Retrieves a finished game by ID.
+     *
+     * @param gameId The game ID to search for
+     * @return GameRecord object if found, null otherwise
+     */
+    public GameRecord getGameById(long gameId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        GameRecord game = null;
+
+        String selection = COLUMN_ID + " = ?";
+        String[] selectionArgs = {String.valueOf(gameId)};
+
+        Cursor cursor = db.query(TABLE_GAMES, null, selection, selectionArgs, null, null, null);
+
+        if (cursor != null && cursor.moveToFirst()) {
+            game = cursorToGame(cursor);
+            cursor.close();
+        }
+
+        db.close();
+        return game;
+    }
+
+    /**
+     * Retrieves the most recently finished games, newest first.
+     *
+     * @param limit Maximum number of games to return
+     * @return List of games, empty if none were stored
+     */
+    public List<GameRecord> getRecentGames(int limit) {
+        List<GameRecord> games = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        String orderBy = COLUMN_ENDED_AT + " DESC";
+        Cursor cursor = db.query(TABLE_GAMES, null, null, null, null, null, orderBy, String.valueOf(limit));
+
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                games.add(cursorToGame(cursor));
+            }
+            cursor.close();
+        }
+
+        db.close();
+        return games;
+    }
+
+    /**
+     * Converts a database cursor to a GameRecord object.
+     *
+     * @param cursor The cursor pointing to a game record
+     * @return GameRecord object created from cursor data
+     */
+    private GameRecord cursorToGame(Cursor cursor) {
+        GameRecord game = new GameRecord(
+                cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_WHITE_NAME)),
+                cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_BLACK_NAME)),
+                cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_RESULT)),
+                cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TERMINATION)),
+                cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_TIME_BASE)),
+                cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_TIME_INCREMENT)),
+                cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_TIME_DELAY)),
+                cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_START_FEN)),
+                cursor.getBlob(cursor.getColumnIndexOrThrow(COLUMN_MOVES)),
+                cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_STARTED_AT)),
+                cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_ENDED_AT)));
+        game.setId(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_ID)));
+        return game;
+    }
+
     /**
      * Deletes all users from the database (for testing purposes).
      * 
@@ -0,0 +1,258 @@
+package com.example.chessapp;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.github.bhlangonijr.chesslib.Side;
+
+/**
+ * Chess clock for both sides of a game.
+ *
+ * Remaining time is kept per side in monotonic nanoseconds and only the running
+ * side is charged, so time carries over between moves. Supports Fischer
+ * increment (added after each completed move) and simple delay (the first
+ * seconds of every turn are free). A single handler callback is scheduled for
+ * the next moment the running side's display changes or its flag falls, so
+ * there is no per-move timer object and flag detection is exact to the millisecond.
+ */
+public class GameClock {
+
+    /**
+     * Receives clock updates on the main thread.
+     */
+    public interface Listener {
+        /** The displayed time of a side changed. */
+        void onClockTick(Side side, long remainingMillis);
+
+        /** The side ran out of time. The clock is stopped when this is called. */
+        void onFlag(Side side);
+    }
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    // Below this the display switches from whole seconds to tenths
+    private static final long TENTHS_THRESHOLD_MILLIS = 10_000L;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable tickRunnable = this::tick;
+    private final Listener listener;
+
+    private final long[] remainingNanos = new long[2];
+    private long baseNanos;
+    private long incrementNanos;
+    private long delayNanos;
+
+    private int runningSide = -1; // index into remainingNanos, -1 when stopped
+    private int pausedSide = -1;
+    private long turnStartNanos;
+
+    public GameClock(long baseMillis, long incrementMillis, long delayMillis, Listener listener) {
+        this.listener = listener;
+        setTimeControl(baseMillis, incrementMillis, delayMillis);
+    }
+
+    /**
+     * Changes the time control and resets both sides to the new base time.
+     * A running clock keeps running for the same side.
+     */
+    public void setTimeControl(long baseMillis, long incrementMillis, long delayMillis) {
+        baseNanos = baseMillis * NANOS_PER_MILLI;
+        incrementNanos = incrementMillis * NANOS_PER_MILLI;
+        delayNanos = delayMillis * NANOS_PER_MILLI;
+        remainingNanos[0] = baseNanos;
+        remainingNanos[1] = baseNanos;
+        turnStartNanos = SystemClock.elapsedRealtimeNanos();
+        publishBoth();
+        scheduleTick();
+    }
+
+    /**
+     * Stops the clock and resets both sides to the base time.
+     */
+    public void reset() {
+        stop();
+        remainingNanos[0] = baseNanos;
+        remainingNanos[1] = baseNanos;
+        pausedSide = -1;
+        publishBoth();
+    }
+
+    /**
+     * Starts the clock of a side. If the other side was running, its elapsed time is
+     * charged and the increment is added, so call this right after a move is made.
+     *
+     * @return false if the previously running side had already run out of time
+     */
+    public boolean startSide(Side side) {
+        int next = indexOf(side);
+        long now = SystemClock.elapsedRealtimeNanos();
+
+        if (runningSide >= 0 && runningSide != next) {
+            int finished = runningSide;
+            remainingNanos[finished] -= chargeableNanos(now);
+            if (remainingNanos[finished] <= 0) {
+                remainingNanos[finished] = 0;
+                flag(finished);
+                return false;
+            }
+            remainingNanos[finished] += incrementNanos;
+            publish(finished);
+        } else if (runningSide == next) {
+            return true;
+        }
+
+        runningSide = next;
+        pausedSide = -1;
+        turnStartNanos = now;
+        publish(next);
+        scheduleTick();
+        return true;
+    }
+
+    /**
+     * Stops the clock, keeping the remaining time of both sides.
+     */
+    public void stop() {
+        if (runningSide >= 0) {
+            remainingNanos[runningSide] = Math.max(0, remainingNanos[runningSide]
+                    - chargeableNanos(SystemClock.elapsedRealtimeNanos()));
+        }
+        runningSide = -1;
+        handler.removeCallbacks(tickRunnable);
+    }
+
+    /**
+     * Stops the clock and remembers which side was running, see {@link #resume()}.
+     */
+    public void pause() {
+        int side = runningSide;
+        stop();
+        pausedSide = side;
+    }
+
+    /**
+     * Restarts the side that was running when {@link #pause()} was called. The delay restarts too.
+     */
+    public void resume() {
+        if (pausedSide >= 0 && runningSide < 0) {
+            runningSide = pausedSide;
+            pausedSide = -1;
+            turnStartNanos = SystemClock.elapsedRealtimeNanos();
+            publish(runningSide);
+            scheduleTick();
+        }
+    }
+
+    public boolean isRunning() {
+        return runningSide >= 0;
+    }
+
+    /**
+     * @return The side whose clock is running (or was running when paused), null if none
+     */
+    public Side getActiveSide() {
+        int side = runningSide >= 0 ? runningSide : pausedSide;
+        return side < 0 ? null : (side == 0 ? Side.WHITE : Side.BLACK);
+    }
+
+    public long getRemainingMillis(Side side) {
+        return remainingNanosOf(indexOf(side), SystemClock.elapsedRealtimeNanos()) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Overrides the remaining time of both sides, e.g. when restoring a saved game.
+     */
+    public void setRemainingMillis(long whiteMillis, long blackMillis) {
+        remainingNanos[0] = whiteMillis * NANOS_PER_MILLI;
+        remainingNanos[1] = blackMillis * NANOS_PER_MILLI;
+        turnStartNanos = SystemClock.elapsedRealtimeNanos();
+        publishBoth();
+        scheduleTick();
+    }
+
+    private void tick() {
+        if (runningSide < 0) {
+            return;
+        }
+        long remaining = remainingNanosOf(runningSide, SystemClock.elapsedRealtimeNanos());
+        if (remaining <= 0) {
+            remainingNanos[runningSide] = 0;
+            flag(runningSide);
+            return;
+        }
+        listener.onClockTick(sideOf(runningSide), remaining / NANOS_PER_MILLI);
+        scheduleTick();
+    }
+
+    /**
+     * Schedules the next callback for when the running side's display changes or its flag falls.
+     */
+    private void scheduleTick() {
+        handler.removeCallbacks(tickRunnable);
+        if (runningSide < 0) {
+            return;
+        }
+
+        long now = SystemClock.elapsedRealtimeNanos();
+        long delayLeft = Math.max(0, delayNanos - (now - turnStartNanos));
+        long remainingMillis = Math.max(0, remainingNanosOf(runningSide, now) / NANOS_PER_MILLI);
+
+        long step = remainingMillis > TENTHS_THRESHOLD_MILLIS ? 1000L : 100L;
+        long untilChange = remainingMillis == 0 ? 0 : ((remainingMillis - 1) % step) + 1;
+        handler.postDelayed(tickRunnable, delayLeft / NANOS_PER_MILLI + untilChange);
+    }
+
+    private long remainingNanosOf(int side, long now) {
+        if (side != runningSide) {
+            return remainingNanos[side];
+        }
+        return remainingNanos[side] - chargeableNanos(now);
+    }
+
+    private long chargeableNanos(long now) {
+        return Math.max(0, now - turnStartNanos - delayNanos);
+    }
+
+    private void flag(int side) {
+        runningSide = -1;
+        handler.removeCallbacks(tickRunnable);
+        listener.onClockTick(sideOf(side), 0);
+        listener.onFlag(sideOf(side));
+    }
+
+    private void publish(int side) {
+        listener.onClockTick(sideOf(side), remainingNanosOf(side, SystemClock.elapsedRealtimeNanos()) / NANOS_PER_MILLI);
+    }
+
+    private void publishBoth() {
+        publish(0);
+        publish(1);
+    }
+
+    private static int indexOf(Side side) {
+        return side == Side.WHITE ? 0 : 1;
+    }
+
+    private static Side sideOf(int index) {
+        return index == 0 ? Side.WHITE : Side.BLACK;
+    }
+
+    /**
+     * Formats a remaining time for display: whole seconds (rounded up) and
+     * minutes above ten seconds, tenths of a second below.
+     */
+    public static String format(long remainingMillis) {
+        if (remainingMillis <= 0) {
+            return "⏱ 0.0s";
+        }
+        if (remainingMillis <= TENTHS_THRESHOLD_MILLIS) {
+            long tenths = (remainingMillis + 99) / 100;
+            return "⏱ " + (tenths / 10) + "." + (tenths % 10) + "s";
+        }
+        long totalSeconds = (remainingMillis + 999) / 1000;
+        if (totalSeconds < 60) {
+            return "⏱ " + totalSeconds + "s";
+        }
+        return String.format("⏱ %d:%02d", totalSeconds / 60, totalSeconds % 60);
+    }
+}
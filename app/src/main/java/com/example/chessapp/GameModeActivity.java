@@ -9,11 +9,17 @@ import android.view.View;
 import android.widget.Button;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
 // --- ADD THIS IMPORT ---
 import androidx.appcompat.widget.Toolbar;
 
+import com.example.chessapp.engine.SearchLimits;
+
+import java.io.IOException;
+import java.io.InputStream;
+
 
 public class GameModeActivity extends AppCompatActivity {
 
@@ -37,9 +43,7 @@ public class GameModeActivity extends AppCompatActivity {
         btnPlayComputer.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                // TODO: Create and start your PlayWithComputerActivity
-                // Intent intent = new Intent(GameModeActivity.this, PlayWithComputerActivity.class);
-                // startActivity(intent);
+                showComputerGameDialog();
             }
         });
 
@@ -53,6 +57,58 @@ public class GameModeActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Asks for the computer's difficulty and the player's color, then starts the game.
+     * When a neural network is bundled, also asks which evaluator the computer uses.
+     */
+    private void showComputerGameDialog() {
+        new AlertDialog.Builder(this)
+                .setTitle("Select Difficulty")
+                .setItems(SearchLimits.LEVEL_NAMES, (dialog, level) -> {
+                    String[] colors = {"White", "Black"};
+                    new AlertDialog.Builder(this)
+                            .setTitle("Play as")
+                            .setItems(colors, (colorDialog, which) -> chooseEvaluator(level, colors[which]))
+                            .show();
+                })
+                .show();
+    }
+
+    private void chooseEvaluator(int level, String playerColor) {
+        if (!isNetworkBundled()) {
+            startComputerGame(level, playerColor, false);
+            return;
+        }
+        String[] evaluators = {"Classic", "Neural network"};
+        new AlertDialog.Builder(this)
+                .setTitle("Computer evaluation")
+                .setItems(evaluators, (dialog, which) -> startComputerGame(level, playerColor, which == 1))
+                .show();
+    }
+
+    private boolean isNetworkBundled() {
+        try (InputStream ignored = getAssets().open(BoardActivity.NETWORK_ASSET)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void startComputerGame(int level, String playerColor, boolean neuralEvaluator) {
+        AuthManager authManager = AuthManager.getInstance(this);
+        String playerName = authManager.isLoggedIn() ? authManager.getCurrentUsername() : "Player";
+
+        Intent intent = new Intent(GameModeActivity.this, BoardActivity.class);
+        intent.putExtra("player1", playerName);
+        intent.putExtra("player2", "Computer (" + SearchLimits.LEVEL_NAMES[level] + ")");
+        intent.putExtra("color", playerColor);
+        intent.putExtra("isPlayer1Registered", authManager.isLoggedIn());
+        intent.putExtra("vsComputer", true);
+        intent.putExtra("difficulty", level);
+        intent.putExtra("neuralEvaluator", neuralEvaluator);
+        startActivity(intent);
+    }
+
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         MenuInflater inflater = getMenuInflater();
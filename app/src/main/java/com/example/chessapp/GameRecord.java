@@ -0,0 +1,128 @@
+package com.example.chessapp;
+
+/**
+ * A finished game as stored in the games table.
+ * Moves are kept in the compact form written by {@link MoveCodec#toBytes(java.util.List)}:
+ * two bytes per move, about a third of the size of the same game as PGN movetext.
+ */
+public class GameRecord {
+
+    // Results, as in PGN
+    public static final String RESULT_WHITE_WINS = "1-0";
+    public static final String RESULT_BLACK_WINS = "0-1";
+    public static final String RESULT_DRAW = "1/2-1/2";
+
+    // Termination reasons
+    public static final String TERMINATION_CHECKMATE = "checkmate";
+    public static final String TERMINATION_TIMEOUT = "timeout";
+    public static final String TERMINATION_STALEMATE = "stalemate";
+    public static final String TERMINATION_REPETITION = "repetition";
+    public static final String TERMINATION_INSUFFICIENT_MATERIAL = "insufficient_material";
+    public static final String TERMINATION_FIFTY_MOVES = "fifty_moves";
+    public static final String TERMINATION_TABLEBASE = "tablebase";
+    // Imported games that ended some other way, e.g. by resignation or agreement
+    public static final String TERMINATION_OTHER = "other";
+
+    private long id;
+    private String whiteName;
+    private String blackName;
+    private String result;
+    private String termination;
+    private long timeBaseMillis;
+    private long timeIncrementMillis;
+    private long timeDelayMillis;
+    private String startFen;
+    private byte[] moves;
+    private long startedAt;
+    private long endedAt;
+
+    // Constructor for a game that just ended
+    public GameRecord(String whiteName, String blackName, String result, String termination,
+                      long timeBaseMillis, long timeIncrementMillis, long timeDelayMillis,
+                      String startFen, byte[] moves, long startedAt, long endedAt) {
+        this.whiteName = whiteName;
+        this.blackName = blackName;
+        this.result = result;
+        this.termination = termination;
+        this.timeBaseMillis = timeBaseMillis;
+        this.timeIncrementMillis = timeIncrementMillis;
+        this.timeDelayMillis = timeDelayMillis;
+        this.startFen = startFen;
+        this.moves = moves;
+        this.startedAt = startedAt;
+        this.endedAt = endedAt;
+    }
+
+    // Getters
+    public long getId() {
+        return id;
+    }
+
+    public String getWhiteName() {
+        return whiteName;
+    }
+
+    public String getBlackName() {
+        return blackName;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public String getTermination() {
+        return termination;
+    }
+
+    public long getTimeBaseMillis() {
+        return timeBaseMillis;
+    }
+
+    public long getTimeIncrementMillis() {
+        return timeIncrementMillis;
+    }
+
+    public long getTimeDelayMillis() {
+        return timeDelayMillis;
+    }
+
+    public String getStartFen() {
+        return startFen;
+    }
+
+    /**
+     * @return The moves packed by {@link MoveCodec#toBytes(java.util.List)}
+     */
+    public byte[] getMoves() {
+        return moves;
+    }
+
+    public int getPlyCount() {
+        return moves.length / 2;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getEndedAt() {
+        return endedAt;
+    }
+
+    // Setters
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @Override
+    public String toString() {
+        return "GameRecord{" +
+                "id=" + id +
+                ", white='" + whiteName + '\'' +
+                ", black='" + blackName + '\'' +
+                ", result=" + result +
+                ", termination=" + termination +
+                ", plies=" + getPlyCount() +
+                '}';
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.chessapp;
+
+import com.github.bhlangonijr.chesslib.Side;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Checkpoint of a game in progress, written when the board is left and read back when
+ * it is recreated, e.g. after a rotation or after the process was killed in the background.
+ *
+ * The file is a few dozen bytes plus two bytes per move ({@link MoveCodec}); the position
+ * is rebuilt by replaying the moves, which is far cheaper than storing or parsing anything
+ * richer. It is written to a temporary file that is then renamed over the old one, so a
+ * reader sees either the previous snapshot or the new one, never a partial write.
+ */
+public class GameSnapshot {
+
+    private static final int MAGIC = 0x43485353; // "CHSS"
+    private static final int VERSION = 1;
+
+    private final String whiteName;
+    private final String blackName;
+    private final String startFen;
+    private final short[] moves;
+    private final long timeBaseMillis;
+    private final long timeIncrementMillis;
+    private final long timeDelayMillis;
+    private final long whiteRemainingMillis;
+    private final long blackRemainingMillis;
+    private final long startedAt;
+
+    public GameSnapshot(String whiteName, String blackName, String startFen, short[] moves,
+                        long timeBaseMillis, long timeIncrementMillis, long timeDelayMillis,
+                        long whiteRemainingMillis, long blackRemainingMillis, long startedAt) {
+        this.whiteName = whiteName;
+        this.blackName = blackName;
+        this.startFen = startFen;
+        this.moves = moves;
+        this.timeBaseMillis = timeBaseMillis;
+        this.timeIncrementMillis = timeIncrementMillis;
+        this.timeDelayMillis = timeDelayMillis;
+        this.whiteRemainingMillis = whiteRemainingMillis;
+        this.blackRemainingMillis = blackRemainingMillis;
+        this.startedAt = startedAt;
+    }
+
+    // Getters
+    public String getWhiteName() {
+        return whiteName;
+    }
+
+    public String getBlackName() {
+        return blackName;
+    }
+
+    public String getStartFen() {
+        return startFen;
+    }
+
+    /**
+     * @return The moves played from the start position, encoded by {@link MoveCodec#encode}
+     */
+    public short[] getMoves() {
+        return moves;
+    }
+
+    public long getTimeBaseMillis() {
+        return timeBaseMillis;
+    }
+
+    public long getTimeIncrementMillis() {
+        return timeIncrementMillis;
+    }
+
+    public long getTimeDelayMillis() {
+        return timeDelayMillis;
+    }
+
+    public long getRemainingMillis(Side side) {
+        return side == Side.WHITE ? whiteRemainingMillis : blackRemainingMillis;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file next to the target and renames it into place.
+     */
+    public void write(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(whiteName);
+            out.writeUTF(blackName);
+            out.writeUTF(startFen);
+            out.writeLong(timeBaseMillis);
+            out.writeLong(timeIncrementMillis);
+            out.writeLong(timeDelayMillis);
+            out.writeLong(whiteRemainingMillis);
+            out.writeLong(blackRemainingMillis);
+            out.writeLong(startedAt);
+            out.writeInt(moves.length);
+            for (short move : moves) {
+                out.writeShort(move);
+            }
+            out.flush();
+            // On disk before the rename, or a crash could leave the new name on empty data
+            fileOut.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not rename " + temp + " to " + file);
+        }
+    }
+
+    /**
+     * @return The snapshot in the file, or null if there is none or it is not readable
+     */
+    public static GameSnapshot read(File file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            String whiteName = in.readUTF();
+            String blackName = in.readUTF();
+            String startFen = in.readUTF();
+            long timeBase = in.readLong();
+            long timeIncrement = in.readLong();
+            long timeDelay = in.readLong();
+            long whiteRemaining = in.readLong();
+            long blackRemaining = in.readLong();
+            long startedAt = in.readLong();
+            int count = in.readInt();
+            if (count < 0 || count > file.length() / 2) {
+                return null;
+            }
+            short[] moves = new short[count];
+            for (int i = 0; i < count; i++) {
+                moves[i] = in.readShort();
+            }
+            return new GameSnapshot(whiteName, blackName, startFen, moves, timeBase, timeIncrement,
+                    timeDelay, whiteRemaining, blackRemaining, startedAt);
+        } catch (IOException e) {
+            // Missing or truncated: start over rather than fail
+            return null;
+        }
+    }
+}
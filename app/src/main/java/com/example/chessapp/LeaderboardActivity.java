@@ -7,6 +7,7 @@ import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.widget.LinearLayout;
+import android.widget.ScrollView;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import android.view.View;
@@ -19,11 +20,19 @@ import java.util.List;
 public class LeaderboardActivity extends AppCompatActivity {
 
     private static final String TAG = "LeaderboardActivity";
+    // Entries loaded at a time; the next page is loaded when the end is less than a screen away
+    private static final int PAGE_SIZE = 50;
     
     private LinearLayout leaderboardContainer;
     private DatabaseHelper databaseHelper;
     private AuthManager authManager;
 
+    // Paging state: the last entry shown, which the next page starts after
+    private LeaderboardEntry lastEntry;
+    private int loadedEntries;
+    private boolean hasMorePages;
+    private User currentUser;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         ThemeHelper.applyTheme(this);
@@ -38,6 +47,13 @@ public class LeaderboardActivity extends AppCompatActivity {
         title.setText("LEADERBOARD");
 
         leaderboardContainer = findViewById(R.id.leaderboardContainer);
+        ScrollView leaderboardScroll = findViewById(R.id.leaderboardScroll);
+        leaderboardScroll.setOnScrollChangeListener((v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+            int distanceToEnd = leaderboardContainer.getBottom() - (scrollY + v.getHeight());
+            if (hasMorePages && distanceToEnd < v.getHeight()) {
+                loadNextPage();
+            }
+        });
         
         // Initialize database helper and auth manager
         databaseHelper = new DatabaseHelper(this);
@@ -48,42 +64,54 @@ public class LeaderboardActivity extends AppCompatActivity {
     }
 
     private void populateLeaderboard() {
+        // Clear existing views
+        leaderboardContainer.removeAllViews();
+        lastEntry = null;
+        loadedEntries = 0;
+        hasMorePages = true;
+
+        // Get current logged-in user for highlighting
+        currentUser = authManager.getCurrentUser();
+
+        loadNextPage();
+        if (loadedEntries == 0 && leaderboardContainer.getChildCount() == 0) {
+            // Show message when no users exist
+            showEmptyLeaderboard();
+        }
+    }
+
+    /**
+     * Appends the next page of users, by wins desc, then by time asc.
+     */
+    private void loadNextPage() {
         try {
-            // Clear existing views
-            leaderboardContainer.removeAllViews();
-            
-            // Get all users sorted for leaderboard (by wins desc, then by time asc)
-            List<User> users = databaseHelper.getAllUsersForLeaderboard();
-            
-            if (users.isEmpty()) {
-                // Show message when no users exist
-                showEmptyLeaderboard();
-                return;
-            }
-            
-            // Get current logged-in user for highlighting
-            User currentUser = authManager.getCurrentUser();
-            
+            List<LeaderboardEntry> entries = databaseHelper.getLeaderboardPage(lastEntry, PAGE_SIZE);
+            hasMorePages = entries.size() == PAGE_SIZE;
+
             LayoutInflater inflater = LayoutInflater.from(this);
-            
+
             // Create leaderboard entries
-            for (int i = 0; i < users.size(); i++) {
-                User user = users.get(i);
+            for (LeaderboardEntry entry : entries) {
                 View item = inflater.inflate(R.layout.item_leaderboard, leaderboardContainer, false);
-                
-                populateLeaderboardItem(item, user, i + 1, currentUser);
+
+                loadedEntries++;
+                populateLeaderboardItem(item, entry, loadedEntries, currentUser);
                 leaderboardContainer.addView(item);
             }
-            
-            Log.d(TAG, "Leaderboard populated with " + users.size() + " users");
-            
+            if (!entries.isEmpty()) {
+                lastEntry = entries.get(entries.size() - 1);
+            }
+
+            Log.d(TAG, "Leaderboard page loaded, " + loadedEntries + " users shown");
+
         } catch (Exception e) {
             Log.e(TAG, "Error populating leaderboard", e);
+            hasMorePages = false;
             showErrorMessage();
         }
     }
     
-    private void populateLeaderboardItem(View item, User user, int rank, User currentUser) {
+    private void populateLeaderboardItem(View item, LeaderboardEntry user, int rank, User currentUser) {
         TextView textRank = item.findViewById(R.id.textRank);
         TextView textUsername = item.findViewById(R.id.textUsername);
         TextView textStats = item.findViewById(R.id.textStats);
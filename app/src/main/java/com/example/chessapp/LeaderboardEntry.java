@@ -0,0 +1,36 @@
+package com.example.chessapp;
+
+/**
+ * A row of the leaderboard: only the columns it shows, and the id that breaks ties.
+ * Also the position a following page of the leaderboard starts after.
+ */
+public class LeaderboardEntry {
+
+    private final int id;
+    private final String username;
+    private final int wins;
+    private final long totalTimePlayed; // in milliseconds
+
+    public LeaderboardEntry(int id, String username, int wins, long totalTimePlayed) {
+        this.id = id;
+        this.username = username;
+        this.wins = wins;
+        this.totalTimePlayed = totalTimePlayed;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public long getTotalTimePlayed() {
+        return totalTimePlayed;
+    }
+}
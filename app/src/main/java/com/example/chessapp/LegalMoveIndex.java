@@ -0,0 +1,136 @@
+package com.example.chessapp;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-position index of the legal moves of a chesslib {@link Board}.
+ * Built once after every move so that tap handling never has to generate
+ * or scan the full legal move list again.
+ *
+ * For every from-square it keeps a bitmask of target squares and the list of
+ * moves leaving that square. Promotion variants to the same target square are
+ * stored next to each other, with the queen promotion used as the default move.
+ */
+public class LegalMoveIndex {
+
+    private static final int SQUARES = 64;
+
+    private final long[] targetMasks = new long[SQUARES];
+    private final Move[] defaultMoves = new Move[SQUARES * SQUARES];
+    private final List<List<Move>> movesByFrom = new ArrayList<>(SQUARES);
+    private long fromMask;
+
+    public LegalMoveIndex() {
+        for (int i = 0; i < SQUARES; i++) {
+            movesByFrom.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Rebuilds the index for the current position of the board.
+     *
+     * @param board The board to index
+     */
+    public void rebuild(Board board) {
+        clear();
+
+        for (Move move : board.legalMoves()) {
+            int from = move.getFrom().ordinal();
+            int to = move.getTo().ordinal();
+
+            fromMask |= 1L << from;
+            targetMasks[from] |= 1L << to;
+            movesByFrom.get(from).add(move);
+
+            // Promotions come in groups of four per target square, prefer the queen
+            int key = from * SQUARES + to;
+            Move current = defaultMoves[key];
+            if (current == null || isQueenPromotion(move)) {
+                defaultMoves[key] = move;
+            }
+        }
+    }
+
+    private void clear() {
+        long mask = fromMask;
+        while (mask != 0) {
+            int from = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+
+            long targets = targetMasks[from];
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                defaultMoves[from * SQUARES + to] = null;
+            }
+            targetMasks[from] = 0L;
+            movesByFrom.get(from).clear();
+        }
+        fromMask = 0L;
+    }
+
+    private static boolean isQueenPromotion(Move move) {
+        return move.getPromotion() != Piece.NONE
+                && move.getPromotion().getPieceType() == PieceType.QUEEN;
+    }
+
+    /**
+     * @return true if the side to move has at least one legal move from the square
+     */
+    public boolean hasMovesFrom(Square from) {
+        return from != Square.NONE && (fromMask & (1L << from.ordinal())) != 0;
+    }
+
+    /**
+     * @return Bitmask of target squares (bit index = {@link Square#ordinal()}) reachable from the square
+     */
+    public long getTargetMask(Square from) {
+        return from == Square.NONE ? 0L : targetMasks[from.ordinal()];
+    }
+
+    /**
+     * @return Unmodifiable list of the legal moves leaving the square
+     */
+    public List<Move> getMovesFrom(Square from) {
+        if (from == Square.NONE) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(movesByFrom.get(from.ordinal()));
+    }
+
+    /**
+     * Finds the move between two squares. For promotions the queen variant is returned.
+     *
+     * @return The legal move, or null if there is none
+     */
+    public Move findMove(Square from, Square to) {
+        if (from == Square.NONE || to == Square.NONE) {
+            return null;
+        }
+        return defaultMoves[from.ordinal() * SQUARES + to.ordinal()];
+    }
+
+    /**
+     * @return All promotion variants between two squares, empty if the move is not a promotion
+     */
+    public List<Move> getPromotionVariants(Square from, Square to) {
+        List<Move> variants = new ArrayList<>(4);
+        if (from == Square.NONE || to == Square.NONE) {
+            return variants;
+        }
+        for (Move move : movesByFrom.get(from.ordinal())) {
+            if (move.getTo() == to && move.getPromotion() != Piece.NONE) {
+                variants.add(move);
+            }
+        }
+        return variants;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.chessapp;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.chessapp.engine.ComputerPlayer;
+import com.example.chessapp.engine.Search;
+import com.example.chessapp.engine.SearchResult;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Infinite multi-PV analysis of the board position, shown while the user keeps playing.
+ *
+ * The engine reports every completed line, up to hundreds of times per second early on.
+ * Instead of posting each report to the main thread, the engine thread only swaps the
+ * newest one into a single-slot mailbox; the main thread takes it out at most
+ * {@link #REFRESH_INTERVAL_MILLIS} apart. Reports in between are simply overwritten, so
+ * the engine never waits for the main looper and the looper never backs up with
+ * stale updates that would delay touch events.
+ */
+public class LiveAnalysis {
+
+    /**
+     * Shows analysis on the main thread.
+     */
+    public interface Display {
+        /**
+         * @param text The lines, one per row, or a placeholder while the first depth runs
+         */
+        void showAnalysis(String text);
+    }
+
+    public static final int DEFAULT_LINES = 3;
+    static final long REFRESH_INTERVAL_MILLIS = 100; // at most 10 refreshes per second
+
+    private static final class Update {
+        final int analysisId;
+        final SearchResult result;
+
+        Update(int analysisId, SearchResult result) {
+            this.analysisId = analysisId;
+            this.result = result;
+        }
+    }
+
+    private final ComputerPlayer engine;
+    private final Display display;
+    private final int lines;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final AtomicReference<Update> mailbox = new AtomicReference<>();
+    private final Runnable refreshRunnable = this::refresh;
+
+    // Main thread only
+    private int analysisId;
+    private boolean whiteToMove;
+    private boolean running;
+
+    public LiveAnalysis(ComputerPlayer engine, int lines, Display display) {
+        this.engine = engine;
+        this.lines = lines;
+        this.display = display;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts analysing the position reached by the moves, replacing the previous analysis.
+     *
+     * @param whiteToMove Side to move, for showing scores from White's point of view
+     */
+    public void analyze(String startFen, List<Move> moves, boolean whiteToMove) {
+        final int id = ++analysisId;
+        this.whiteToMove = whiteToMove;
+        display.showAnalysis("Analyzing...");
+        // Runs on the engine thread: one atomic swap, nothing is posted
+        engine.analyze(startFen, moves, lines, result -> mailbox.set(new Update(id, result)));
+        if (!running) {
+            running = true;
+            handler.postDelayed(refreshRunnable, REFRESH_INTERVAL_MILLIS);
+        }
+    }
+
+    public void stop() {
+        analysisId++;
+        running = false;
+        handler.removeCallbacks(refreshRunnable);
+        mailbox.set(null);
+        engine.stop();
+    }
+
+    private void refresh() {
+        if (!running) {
+            return;
+        }
+        Update update = mailbox.getAndSet(null);
+        // Reports of a position that was left behind are dropped
+        if (update != null && update.analysisId == analysisId) {
+            display.showAnalysis(format(update.result, whiteToMove));
+        }
+        handler.postDelayed(refreshRunnable, REFRESH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @return One row per line, e.g. "+0.35  e2e4 e7e5 g1f3", under a row with depth, nodes and speed
+     */
+    static String format(SearchResult result, boolean whiteToMove) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("Depth ").append(result.getDepth())
+                .append("   ").append(formatCount(result.getNodes())).append(" nodes")
+                .append("   ").append(formatCount(result.getNodesPerSecond())).append("/s");
+        for (SearchResult line : result.getLines()) {
+            sb.append('\n').append(formatScore(line.getScore(), whiteToMove)).append(' ');
+            for (Move move : line.getPrincipalVariation()) {
+                sb.append(' ').append(MoveCodec.toUci(MoveCodec.encode(move)));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The score in pawns from White's point of view, or "#N" / "#-N" for a mate in N moves
+     */
+    static String formatScore(int score, boolean whiteToMove) {
+        int whiteScore = whiteToMove ? score : -score;
+        if (Math.abs(whiteScore) >= Search.MATE - Search.MAX_PLY) {
+            int moves = (Search.MATE - Math.abs(whiteScore) + 1) / 2;
+            return whiteScore > 0 ? "#" + moves : "#-" + moves;
+        }
+        return String.format(Locale.US, "%+.2f", whiteScore / 100.0);
+    }
+
+    private static String formatCount(long count) {
+        if (count >= 1_000_000) {
+            return String.format(Locale.US, "%.1fM", count / 1_000_000.0);
+        }
+        if (count >= 1_000) {
+            return String.format(Locale.US, "%.1fk", count / 1_000.0);
+        }
+        return Long.toString(count);
+    }
+}
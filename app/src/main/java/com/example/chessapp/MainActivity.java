@@ -34,6 +34,7 @@ public class MainActivity extends AppCompatActivity {
         tvUserGreeting = findViewById(R.id.tvUserGreeting);
         Button btnPlay = findViewById(R.id.btnPlay);
         Button btnLeaderboard = findViewById(R.id.btnLeaderboard);
+        Button btnReplay = findViewById(R.id.btnReplay);
         Button btnRules = findViewById(R.id.btnRules);
         Button btnAbout = findViewById(R.id.btnAbout);
         Button btnLogout = findViewById(R.id.btnLogout);
@@ -51,6 +52,11 @@ public class MainActivity extends AppCompatActivity {
              startActivity(new Intent(MainActivity.this, LeaderboardActivity.class))
         );
 
+        // REPLAY -> step through a finished game
+        btnReplay.setOnClickListener(v ->
+                startActivity(new Intent(MainActivity.this, ReplayActivity.class))
+        );
+
         // RULES
         btnRules.setOnClickListener(v ->
                 startActivity(new Intent(MainActivity.this, RulesActivity.class))
@@ -0,0 +1,165 @@
+package com.example.chessapp;
+
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.List;
+
+/**
+ * Packs chesslib moves into 16 bits and back.
+ *
+ * Layout: bits 0-5 from-square, bits 6-11 to-square (both {@link Square#ordinal()}),
+ * bits 12-14 promotion piece type (0 = none, 1 = knight, 2 = bishop, 3 = rook, 4 = queen).
+ * The promotion color follows from the target rank, so no side is needed to decode.
+ */
+public final class MoveCodec {
+
+    /** Encoded value that never represents a legal move (a1 to a1). */
+    public static final short NONE = 0;
+
+    private MoveCodec() {
+    }
+
+    public static short encode(Move move) {
+        int from = move.getFrom().ordinal();
+        int to = move.getTo().ordinal();
+        return (short) (from | (to << 6) | (promotionCode(move.getPromotion()) << 12));
+    }
+
+    public static Move decode(short encoded) {
+        Square from = Square.squareAt(getFrom(encoded));
+        int toIndex = getTo(encoded);
+        Square to = Square.squareAt(toIndex);
+
+        int promotionCode = (encoded >>> 12) & 0x7;
+        if (promotionCode == 0) {
+            return new Move(from, to);
+        }
+        Side side = toIndex >= 56 ? Side.WHITE : Side.BLACK;
+        return new Move(from, to, Piece.make(side, promotionType(promotionCode)));
+    }
+
+    public static int getFrom(short encoded) {
+        return encoded & 0x3F;
+    }
+
+    public static int getTo(short encoded) {
+        return (encoded >>> 6) & 0x3F;
+    }
+
+    /**
+     * Formats an encoded move in the same coordinate notation as {@link Move#toString()}, e.g. "e7e8q".
+     */
+    public static String toUci(short encoded) {
+        StringBuilder sb = new StringBuilder(5);
+        appendSquare(sb, getFrom(encoded));
+        appendSquare(sb, getTo(encoded));
+        switch ((encoded >>> 12) & 0x7) {
+            case 1: sb.append('n'); break;
+            case 2: sb.append('b'); break;
+            case 3: sb.append('r'); break;
+            case 4: sb.append('q'); break;
+            default: break;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses coordinate notation as written by {@link #toUci(short)}, e.g. "e7e8q".
+     *
+     * @return The encoded move, or {@link #NONE} if the text is not a move
+     */
+    public static short fromUci(String text) {
+        if (text.length() != 4 && text.length() != 5) {
+            return NONE;
+        }
+        int from = parseSquare(text, 0);
+        int to = parseSquare(text, 2);
+        if (from < 0 || to < 0) {
+            return NONE;
+        }
+        int promotionCode = 0;
+        if (text.length() == 5) {
+            promotionCode = "nbrq".indexOf(Character.toLowerCase(text.charAt(4))) + 1;
+            if (promotionCode == 0) {
+                return NONE;
+            }
+        }
+        return (short) (from | (to << 6) | (promotionCode << 12));
+    }
+
+    /**
+     * Packs moves two bytes each, big-endian, for storage.
+     */
+    public static byte[] toBytes(List<Move> moves) {
+        byte[] bytes = new byte[2 * moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            short encoded = encode(moves.get(i));
+            bytes[2 * i] = (byte) (encoded >>> 8);
+            bytes[2 * i + 1] = (byte) encoded;
+        }
+        return bytes;
+    }
+
+    /**
+     * Packs the first count encoded moves the same way as {@link #toBytes(List)}.
+     */
+    public static byte[] toBytes(short[] moves, int count) {
+        byte[] bytes = new byte[2 * count];
+        for (int i = 0; i < count; i++) {
+            bytes[2 * i] = (byte) (moves[i] >>> 8);
+            bytes[2 * i + 1] = (byte) moves[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * Unpacks moves written by {@link #toBytes(List)}.
+     */
+    public static short[] fromBytes(byte[] bytes) {
+        short[] moves = new short[bytes.length / 2];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = (short) (((bytes[2 * i] & 0xFF) << 8) | (bytes[2 * i + 1] & 0xFF));
+        }
+        return moves;
+    }
+
+    private static int parseSquare(String text, int index) {
+        int file = text.charAt(index) - 'a';
+        int rank = text.charAt(index + 1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            return -1;
+        }
+        return rank * 8 + file;
+    }
+
+    private static void appendSquare(StringBuilder sb, int square) {
+        sb.append((char) ('a' + (square & 7)));
+        sb.append((char) ('1' + (square >> 3)));
+    }
+
+    private static int promotionCode(Piece promotion) {
+        if (promotion == null || promotion == Piece.NONE) {
+            return 0;
+        }
+        switch (promotion.getPieceType()) {
+            case KNIGHT: return 1;
+            case BISHOP: return 2;
+            case ROOK: return 3;
+            case QUEEN: return 4;
+            default: return 0;
+        }
+    }
+
+    private static PieceType promotionType(int code) {
+        switch (code) {
+            case 1: return PieceType.KNIGHT;
+            case 2: return PieceType.BISHOP;
+            case 3: return PieceType.ROOK;
+            default: return PieceType.QUEEN;
+        }
+    }
+}
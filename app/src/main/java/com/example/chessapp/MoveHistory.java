@@ -0,0 +1,88 @@
+package com.example.chessapp;
+
+/**
+ * Fixed-capacity ring buffer of encoded moves (see {@link MoveCodec}).
+ * Keeps the latest N moves; once full, every new move replaces the oldest one.
+ */
+public class MoveHistory {
+
+    private short[] moves;
+    private int head; // index of the oldest entry
+    private int size;
+    private int totalAdded;
+
+    public MoveHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        moves = new short[capacity];
+    }
+
+    /**
+     * Appends a move, dropping the oldest one if the buffer is full.
+     *
+     * @return true if an old move was dropped
+     */
+    public boolean add(short move) {
+        totalAdded++;
+        if (size < moves.length) {
+            moves[(head + size) % moves.length] = move;
+            size++;
+            return false;
+        }
+        moves[head] = move;
+        head = (head + 1) % moves.length;
+        return true;
+    }
+
+    /**
+     * @param position 0 for the oldest kept move, {@link #size()} - 1 for the latest
+     */
+    public short get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size);
+        }
+        return moves[(head + position) % moves.length];
+    }
+
+    /**
+     * @return Number of moves added since the last clear that are no longer kept
+     */
+    public int getDroppedCount() {
+        return totalAdded - size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return moves.length;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+        totalAdded = 0;
+    }
+
+    /**
+     * Changes the capacity, keeping the latest moves that still fit.
+     */
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (capacity == moves.length) {
+            return;
+        }
+        int kept = Math.min(size, capacity);
+        short[] resized = new short[capacity];
+        for (int i = 0; i < kept; i++) {
+            resized[i] = get(size - kept + i);
+        }
+        moves = resized;
+        head = 0;
+        size = kept;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.chessapp;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Horizontal, recycled list of the moves kept in a {@link MoveHistory}.
+ * Only the visible entries are bound, and a move is only formatted when its row is bound.
+ */
+public class MoveHistoryAdapter extends RecyclerView.Adapter<MoveHistoryAdapter.MoveViewHolder> {
+
+    private final MoveHistory history;
+
+    public MoveHistoryAdapter(MoveHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Records a move and notifies the list about the inserted (and possibly dropped) entry.
+     */
+    public void addMove(short move) {
+        boolean dropped = history.add(move);
+        if (dropped) {
+            notifyItemRemoved(0);
+        }
+        notifyItemInserted(history.size() - 1);
+    }
+
+    @NonNull
+    @Override
+    public MoveViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_move, parent, false);
+        return new MoveViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull MoveViewHolder holder, int position) {
+        holder.textMove.setText(MoveCodec.toUci(history.get(position)));
+    }
+
+    @Override
+    public int getItemCount() {
+        return history.size();
+    }
+
+    static class MoveViewHolder extends RecyclerView.ViewHolder {
+        final TextView textMove;
+
+        MoveViewHolder(View itemView) {
+            super(itemView);
+            textMove = (TextView) itemView;
+        }
+    }
+}
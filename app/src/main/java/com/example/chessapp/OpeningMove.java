@@ -0,0 +1,49 @@
+package com.example.chessapp;
+
+/**
+ * A move played from a position in the stored games, with how those games ended.
+ */
+public class OpeningMove {
+
+    private final short move;
+    private final int games;
+    private final int whiteWins;
+    private final int draws;
+    private final int blackWins;
+
+    /**
+     * @param move The move in the {@link MoveCodec} layout
+     */
+    public OpeningMove(short move, int games, int whiteWins, int draws, int blackWins) {
+        this.move = move;
+        this.games = games;
+        this.whiteWins = whiteWins;
+        this.draws = draws;
+        this.blackWins = blackWins;
+    }
+
+    public short getMove() {
+        return move;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public int getWhiteWins() {
+        return whiteWins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getBlackWins() {
+        return blackWins;
+    }
+
+    @Override
+    public String toString() {
+        return MoveCodec.toUci(move) + " " + games + " games +" + whiteWins + " =" + draws + " -" + blackWins;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.chessapp;
+
+import android.os.SystemClock;
+
+import com.example.chessapp.pgn.PgnReader;
+import com.example.chessapp.pgn.PgnWriter;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves games between PGN files and the games table. Runs on a worker thread.
+ *
+ * Both directions stream: an import holds one batch of games at a time and commits it in a
+ * single transaction, an export reads the table a page at a time. Memory stays the same for
+ * a file of a hundred games or of millions.
+ */
+public class PgnTransfer {
+
+    /**
+     * Receives progress after every batch, on the worker thread.
+     */
+    public interface ProgressListener {
+        /**
+         * @param games Games imported or exported so far
+         * @param bytes Bytes read or written so far
+         * @param totalBytes Size of the file being imported, -1 if unknown or exporting
+         * @param elapsedMillis Time since the transfer started
+         */
+        void onProgress(int games, long bytes, long totalBytes, long elapsedMillis);
+    }
+
+    static final int BATCH_SIZE = 500;
+
+    private final DatabaseHelper databaseHelper;
+
+    public PgnTransfer(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Reads every finished game of the PGN into the games table.
+     *
+     * @param totalBytes Size of the input, for progress, -1 if unknown
+     * @return Number of games imported; games the reader skipped are not counted
+     */
+    public int importGames(ReadableByteChannel channel, long totalBytes, ProgressListener listener)
+            throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        int imported = 0;
+        List<GameRecord> batch = new ArrayList<>(BATCH_SIZE);
+        try (PgnReader reader = new PgnReader(channel)) {
+            GameRecord game;
+            while ((game = reader.next()) != null && !Thread.currentThread().isInterrupted()) {
+                batch.add(game);
+                if (batch.size() == BATCH_SIZE) {
+                    imported += databaseHelper.insertGames(batch);
+                    batch.clear();
+                    listener.onProgress(imported, reader.getBytesRead(), totalBytes,
+                            SystemClock.elapsedRealtime() - start);
+                }
+            }
+            if (!batch.isEmpty()) {
+                imported += databaseHelper.insertGames(batch);
+            }
+            listener.onProgress(imported, reader.getBytesRead(), totalBytes, SystemClock.elapsedRealtime() - start);
+        }
+        return imported;
+    }
+
+    /**
+     * Writes every game of the games table as PGN, oldest first.
+     *
+     * @return Number of games exported
+     */
+    public int exportGames(WritableByteChannel channel, ProgressListener listener) throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        int exported = 0;
+        try (PgnWriter writer = new PgnWriter(channel)) {
+            long lastId = 0;
+            List<GameRecord> page;
+            while (!(page = databaseHelper.getGamesAfter(lastId, BATCH_SIZE)).isEmpty()
+                    && !Thread.currentThread().isInterrupted()) {
+                for (GameRecord game : page) {
+                    writer.write(game);
+                }
+                exported += page.size();
+                lastId = page.get(page.size() - 1).getId();
+                listener.onProgress(exported, writer.getBytesWritten(), -1, SystemClock.elapsedRealtime() - start);
+            }
+        }
+        return exported;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.chessapp;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import com.github.bhlangonijr.chesslib.Piece;
+
+/**
+ * Atlas of the 12 piece sprites, pre-scaled to the current sprite size.
+ *
+ * The piece PNGs are 1024x1024, so letting the framework scale them on every
+ * draw is expensive. The cache decodes each image once per sprite size
+ * (subsampled close to the target size), scales it and packs it into one
+ * bitmap strip that every frame draws from. It is only rebuilt when the
+ * sprite size changes.
+ */
+public class PieceSpriteCache {
+
+    private static final Piece[] PIECES = {
+            Piece.WHITE_PAWN, Piece.WHITE_KNIGHT, Piece.WHITE_BISHOP,
+            Piece.WHITE_ROOK, Piece.WHITE_QUEEN, Piece.WHITE_KING,
+            Piece.BLACK_PAWN, Piece.BLACK_KNIGHT, Piece.BLACK_BISHOP,
+            Piece.BLACK_ROOK, Piece.BLACK_QUEEN, Piece.BLACK_KING
+    };
+
+    private final Resources resources;
+    // Atlas slot per Piece.ordinal(), -1 for Piece.NONE
+    private final int[] slots = new int[Piece.values().length];
+    private final Rect srcRect = new Rect();
+    private final Rect dstRect = new Rect();
+
+    private Bitmap atlas;
+    private int spriteSize;
+
+    public PieceSpriteCache(Resources resources) {
+        this.resources = resources;
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = -1;
+        }
+        for (int i = 0; i < PIECES.length; i++) {
+            slots[PIECES[i].ordinal()] = i;
+        }
+    }
+
+    /**
+     * Makes sure the atlas holds sprites of the given size, rebuilding it only if the size changed.
+     *
+     * @param size The sprite edge length in pixels
+     */
+    public void ensureSpriteSize(int size) {
+        if (size <= 0 || (atlas != null && size == spriteSize)) {
+            return;
+        }
+        release();
+
+        Bitmap newAtlas = Bitmap.createBitmap(size * PIECES.length, size, Bitmap.Config.ARGB_8888);
+        Canvas atlasCanvas = new Canvas(newAtlas);
+        Paint scalePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        Rect dst = new Rect();
+
+        for (int i = 0; i < PIECES.length; i++) {
+            Bitmap source = decodeSampled(ChessBoardView.getDrawableIdForPiece(PIECES[i]), size);
+            if (source == null) {
+                continue;
+            }
+            dst.set(i * size, 0, (i + 1) * size, size);
+            atlasCanvas.drawBitmap(source, null, dst, scalePaint);
+            source.recycle();
+        }
+
+        atlas = newAtlas;
+        spriteSize = size;
+    }
+
+    private Bitmap decodeSampled(int drawableId, int size) {
+        // Read the bounds only, then subsample to the smallest power of two above the sprite size
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;
+        BitmapFactory.decodeResource(resources, drawableId, options);
+
+        int sampleSize = 1;
+        int largest = Math.max(options.outWidth, options.outHeight);
+        while (largest / (sampleSize * 2) >= size) {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        return BitmapFactory.decodeResource(resources, drawableId, options);
+    }
+
+    /**
+     * Draws a piece sprite with its top-left corner at the given position.
+     * Does nothing for {@link Piece#NONE} or before the atlas is built.
+     *
+     * @param paint Paint to draw with, e.g. carrying a color filter; may be null
+     */
+    public void draw(Canvas canvas, Piece piece, int left, int top, Paint paint) {
+        int slot = slots[piece.ordinal()];
+        if (atlas == null || slot < 0) {
+            return;
+        }
+        srcRect.set(slot * spriteSize, 0, (slot + 1) * spriteSize, spriteSize);
+        dstRect.set(left, top, left + spriteSize, top + spriteSize);
+        canvas.drawBitmap(atlas, srcRect, dstRect, paint);
+    }
+
+    public int getSpriteSize() {
+        return spriteSize;
+    }
+
+    /**
+     * Frees the atlas bitmap. The next {@link #ensureSpriteSize(int)} call rebuilds it.
+     */
+    public void release() {
+        if (atlas != null) {
+            atlas.recycle();
+            atlas = null;
+        }
+        spriteSize = 0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.chessapp;
+
+import com.example.chessapp.engine.Position;
+
+/**
+ * Zobrist keys for the positions table, which maps every position of every stored game to
+ * the game and ply it occurred at.
+ *
+ * Keys come from the engine's {@link Position} rather than chesslib: they are fixed by its
+ * seed, so keys written by one version of the app still match in the next, and an en passant
+ * square no pawn can take on does not change the key.
+ */
+public final class PositionIndex {
+
+    private PositionIndex() {
+    }
+
+    /**
+     * @return The key of the position, as stored in the positions table
+     */
+    public static long keyOf(String fen) {
+        return new Position(fen).key();
+    }
+
+    /**
+     * Replays a game and returns the key of every position in it.
+     *
+     * @param startFen Starting position, null for the standard one
+     * @param moves Moves in the {@link MoveCodec#toBytes(short[], int)} form
+     * @return One key per ply, element 0 being the starting position
+     */
+    public static long[] keysOf(String startFen, byte[] moves) {
+        Position position = new Position(startFen != null ? startFen : Position.START_FEN);
+        short[] decoded = MoveCodec.fromBytes(moves);
+        long[] keys = new long[decoded.length + 1];
+        keys[0] = position.key();
+        for (int ply = 0; ply < decoded.length; ply++) {
+            position.makeMove(decoded[ply]);
+            keys[ply + 1] = position.key();
+        }
+        return keys;
+    }
+}
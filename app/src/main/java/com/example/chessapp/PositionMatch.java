@@ -0,0 +1,23 @@
+package com.example.chessapp;
+
+/**
+ * A stored game that reached a searched position, and the first ply it did so at.
+ */
+public class PositionMatch {
+
+    private final GameRecord game;
+    private final int ply;
+
+    public PositionMatch(GameRecord game, int ply) {
+        this.game = game;
+        this.ply = ply;
+    }
+
+    public GameRecord getGame() {
+        return game;
+    }
+
+    public int getPly() {
+        return ply;
+    }
+}
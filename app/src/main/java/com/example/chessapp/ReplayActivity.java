@@ -0,0 +1,309 @@
+package com.example.chessapp;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.View;
+import android.widget.Button;
+import android.widget.SeekBar;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Steps and scrubs through a finished game from the games table.
+ *
+ * Positions come from {@link ReplayPositions}, so any ply is at most 15 moves away from a
+ * keyframe. Slider events can arrive faster than the display refreshes; only the latest one
+ * is drawn, once per frame.
+ *
+ * PGN collections can be imported into and exported from the games table here; the transfer
+ * streams on its own thread and reports progress below the buttons.
+ */
+public class ReplayActivity extends AppCompatActivity {
+
+    // Optional, the game to open; without it the recent games are offered
+    static final String EXTRA_GAME_ID = "gameId";
+    // Optional, the ply to open the game at
+    static final String EXTRA_PLY = "ply";
+    private static final String STATE_GAME_ID = "gameId";
+    private static final String STATE_PLY = "ply";
+    private static final int RECENT_GAMES = 50;
+
+    // Keyframes of the last games replayed, so going back to one does not rebuild them
+    private static final int CACHED_GAMES = 8;
+    private static final LruCache<Long, ReplayPositions> positionsCache = new LruCache<>(CACHED_GAMES);
+
+    private final ExecutorService keyframeBuilder = Executors.newSingleThreadExecutor();
+    private Future<?> keyframeTask;
+    private final ExecutorService transferExecutor = Executors.newSingleThreadExecutor();
+    private boolean transferRunning;
+
+    private final ActivityResultLauncher<String[]> importLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importPgn);
+    private final ActivityResultLauncher<String> exportLauncher =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("application/x-chess-pgn"),
+                    this::exportPgn);
+
+    private DatabaseHelper databaseHelper;
+    private ChessBoardView chessboard;
+    private TextView titleText;
+    private TextView moveText;
+    private TextView transferStatusText;
+    private SeekBar slider;
+
+    private ReplayPositions positions;
+    private long gameId = -1;
+    private int currentPly;
+    // Latest ply asked for by the slider, drawn on the next frame
+    private int requestedPly;
+    private boolean seekPending;
+    private final Runnable seekRunnable = () -> {
+        seekPending = false;
+        showPly(requestedPly);
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_replay);
+
+        titleText = findViewById(R.id.replay_title);
+        moveText = findViewById(R.id.replay_move_text);
+        chessboard = findViewById(R.id.replay_board);
+        slider = findViewById(R.id.replay_slider);
+        transferStatusText = findViewById(R.id.replay_transfer_status);
+        databaseHelper = new DatabaseHelper(this);
+
+        slider.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+                requestPly(progress);
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+            }
+        });
+        Button firstButton = findViewById(R.id.replay_first);
+        Button previousButton = findViewById(R.id.replay_previous);
+        Button nextButton = findViewById(R.id.replay_next);
+        Button lastButton = findViewById(R.id.replay_last);
+        Button chooseButton = findViewById(R.id.replay_choose_game);
+        firstButton.setOnClickListener(v -> slider.setProgress(0));
+        previousButton.setOnClickListener(v -> slider.setProgress(Math.max(0, currentPly - 1)));
+        nextButton.setOnClickListener(v -> slider.setProgress(Math.min(slider.getMax(), currentPly + 1)));
+        lastButton.setOnClickListener(v -> slider.setProgress(slider.getMax()));
+        chooseButton.setOnClickListener(v -> chooseGame());
+        Button importButton = findViewById(R.id.replay_import_pgn);
+        Button exportButton = findViewById(R.id.replay_export_pgn);
+        // Most providers do not know a PGN MIME type, so any file can be picked
+        importButton.setOnClickListener(v -> {
+            if (!transferRunning) importLauncher.launch(new String[]{"*/*"});
+        });
+        exportButton.setOnClickListener(v -> {
+            if (!transferRunning) exportLauncher.launch("games.pgn");
+        });
+
+        long id = getIntent().getLongExtra(EXTRA_GAME_ID, -1);
+        int ply = getIntent().getIntExtra(EXTRA_PLY, 0);
+        if (savedInstanceState != null) {
+            id = savedInstanceState.getLong(STATE_GAME_ID, id);
+            ply = savedInstanceState.getInt(STATE_PLY, 0);
+        }
+        GameRecord game = id >= 0 ? databaseHelper.getGameById(id) : null;
+        if (game != null) {
+            openGame(game, ply);
+        } else {
+            chooseGame();
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putLong(STATE_GAME_ID, gameId);
+        outState.putInt(STATE_PLY, currentPly);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        chessboard.removeCallbacks(seekRunnable);
+        keyframeBuilder.shutdownNow();
+        transferExecutor.shutdownNow();
+    }
+
+    /**
+     * Offers the recent games.
+     */
+    private void chooseGame() {
+        if (transferRunning) {
+            return;
+        }
+        List<GameRecord> games = databaseHelper.getRecentGames(RECENT_GAMES);
+        if (games.isEmpty()) {
+            Toast.makeText(this, "No finished games yet, play one or import a PGN", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String[] labels = new String[games.size()];
+        for (int g = 0; g < labels.length; g++) {
+            labels[g] = describe(games.get(g));
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Choose Game")
+                .setItems(labels, (dialog, which) -> openGame(games.get(which), 0))
+                .show();
+    }
+
+    private void openGame(GameRecord game, int ply) {
+        ReplayPositions cached = positionsCache.get(game.getId());
+        if (cached == null) {
+            cached = new ReplayPositions(game.getStartFen(), MoveCodec.fromBytes(game.getMoves()));
+            positionsCache.put(game.getId(), cached);
+            if (keyframeTask != null) {
+                keyframeTask.cancel(true);
+            }
+            keyframeTask = keyframeBuilder.submit(cached::buildKeyframes);
+        }
+        positions = cached;
+        gameId = game.getId();
+        titleText.setText(describe(game));
+
+        int target = Math.min(ply, positions.getPlyCount());
+        slider.setMax(positions.getPlyCount());
+        slider.setProgress(target);
+        // setProgress does not call back if the slider was already there
+        chessboard.removeCallbacks(seekRunnable);
+        seekPending = false;
+        showPly(target);
+    }
+
+    /**
+     * Draws the ply on the next frame, replacing any ply requested before it.
+     */
+    private void requestPly(int ply) {
+        requestedPly = ply;
+        if (!seekPending && positions != null) {
+            seekPending = true;
+            chessboard.postOnAnimation(seekRunnable);
+        }
+    }
+
+    private void showPly(int ply) {
+        currentPly = ply;
+        chessboard.setPosition(positions.seek(ply));
+        if (ply == 0) {
+            chessboard.setLastMove(Square.NONE, Square.NONE);
+            moveText.setText("Start  (0/" + positions.getPlyCount() + ")");
+            return;
+        }
+        Move move = positions.getMove(ply);
+        chessboard.setLastMove(move.getFrom(), move.getTo());
+        String number = (ply + 1) / 2 + (ply % 2 == 1 ? ". " : "... ");
+        moveText.setText(number + MoveCodec.toUci(MoveCodec.encode(move))
+                + "  (" + ply + "/" + positions.getPlyCount() + ")");
+    }
+
+    private void importPgn(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        startTransfer("Importing", () -> {
+            try (ParcelFileDescriptor descriptor = getContentResolver().openFileDescriptor(uri, "r");
+                 FileInputStream in = new FileInputStream(descriptor.getFileDescriptor());
+                 FileChannel channel = in.getChannel()) {
+                int games = new PgnTransfer(databaseHelper).importGames(channel, descriptor.getStatSize(),
+                        (count, bytes, totalBytes, elapsed) -> showTransferProgress("Imported", count, bytes, totalBytes, elapsed));
+                return "Imported " + games + " games";
+            }
+        });
+    }
+
+    private void exportPgn(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        startTransfer("Exporting", () -> {
+            try (ParcelFileDescriptor descriptor = getContentResolver().openFileDescriptor(uri, "wt");
+                 FileOutputStream out = new FileOutputStream(descriptor.getFileDescriptor());
+                 FileChannel channel = out.getChannel()) {
+                int games = new PgnTransfer(databaseHelper).exportGames(channel,
+                        (count, bytes, totalBytes, elapsed) -> showTransferProgress("Exported", count, bytes, totalBytes, elapsed));
+                return "Exported " + games + " games";
+            }
+        });
+    }
+
+    private interface Transfer {
+        String run() throws IOException;
+    }
+
+    /**
+     * Runs an import or export on the transfer thread and shows its outcome.
+     */
+    private void startTransfer(String verb, Transfer transfer) {
+        transferRunning = true;
+        transferStatusText.setVisibility(View.VISIBLE);
+        transferStatusText.setText(verb + "...");
+        transferExecutor.execute(() -> {
+            String message;
+            try {
+                message = transfer.run();
+            } catch (IOException | RuntimeException e) {
+                Log.e("ReplayActivity", verb + " PGN failed", e);
+                message = verb + " failed: " + e.getMessage();
+            }
+            final String outcome = message;
+            runOnUiThread(() -> {
+                transferRunning = false;
+                transferStatusText.setText(outcome);
+                Toast.makeText(this, outcome, Toast.LENGTH_SHORT).show();
+            });
+        });
+    }
+
+    /**
+     * Called on the transfer thread after every batch.
+     */
+    private void showTransferProgress(String verb, int games, long bytes, long totalBytes, long elapsedMillis) {
+        double seconds = Math.max(1, elapsedMillis) / 1000.0;
+        StringBuilder sb = new StringBuilder(96);
+        sb.append(verb).append(' ').append(games).append(" games");
+        if (totalBytes > 0) {
+            sb.append(String.format(Locale.US, " (%d%%)", 100 * bytes / totalBytes));
+        }
+        sb.append(String.format(Locale.US, ", %.0f games/s, %.1f MB/s",
+                games / seconds, bytes / seconds / (1024 * 1024)));
+        String text = sb.toString();
+        runOnUiThread(() -> transferStatusText.setText(text));
+    }
+
+    static String describe(GameRecord game) {
+        return game.getWhiteName() + " vs " + game.getBlackName() + "  " + game.getResult()
+                + " (" + game.getTermination().replace('_', ' ') + ")";
+    }
+}
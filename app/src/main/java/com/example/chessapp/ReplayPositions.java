@@ -0,0 +1,83 @@
+package com.example.chessapp;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Random access to the positions of a stored game, for scrubbing through a replay.
+ *
+ * Every {@link #KEYFRAME_INTERVAL} plies the position is kept as a FEN keyframe, so reaching any
+ * ply loads the nearest keyframe at or before it and applies at most 15 moves, however long
+ * the game. Keyframes are filled in by {@link #buildKeyframes()} on a background thread and by
+ * seeks that pass a missing one; until then a seek simply starts from an earlier keyframe.
+ */
+public class ReplayPositions {
+
+    public static final int KEYFRAME_INTERVAL = 16;
+
+    private final short[] moves;
+    // Keyframe k is the position after k * KEYFRAME_INTERVAL plies, null until built
+    private final AtomicReferenceArray<String> keyframes;
+    // Reused by every seek, so seeking allocates no board; main thread only
+    private final Board board = new Board();
+
+    /**
+     * @param startFen Position the game started from, null for the standard start
+     * @param moves The moves of the game, encoded by {@link MoveCodec#encode}
+     */
+    public ReplayPositions(String startFen, short[] moves) {
+        this.moves = moves;
+        this.keyframes = new AtomicReferenceArray<>(moves.length / KEYFRAME_INTERVAL + 1);
+        keyframes.set(0, startFen != null ? startFen : board.getFen());
+    }
+
+    public int getPlyCount() {
+        return moves.length;
+    }
+
+    /**
+     * @param ply 1 for the first move of the game
+     * @return The move that led to the position at the ply
+     */
+    public Move getMove(int ply) {
+        return MoveCodec.decode(moves[ply - 1]);
+    }
+
+    /**
+     * Walks the game once and stores every keyframe. Safe to call from any thread.
+     */
+    public void buildKeyframes() {
+        Board walker = new Board();
+        walker.loadFromFen(keyframes.get(0));
+        for (int ply = 1; ply <= moves.length && !Thread.currentThread().isInterrupted(); ply++) {
+            walker.doMove(MoveCodec.decode(moves[ply - 1]), false);
+            if (ply % KEYFRAME_INTERVAL == 0) {
+                keyframes.compareAndSet(ply / KEYFRAME_INTERVAL, null, walker.getFen());
+            }
+        }
+    }
+
+    /**
+     * Puts the position at the ply on the reused board.
+     *
+     * @param ply 0 for the start position, {@link #getPlyCount()} for the final one
+     * @return The board, valid until the next seek
+     */
+    public Board seek(int ply) {
+        int keyframe = ply / KEYFRAME_INTERVAL;
+        while (keyframes.get(keyframe) == null) {
+            keyframe--;
+        }
+        board.loadFromFen(keyframes.get(keyframe));
+        for (int current = keyframe * KEYFRAME_INTERVAL; current < ply; current++) {
+            // Stored moves were legal when played
+            board.doMove(MoveCodec.decode(moves[current]), false);
+            if ((current + 1) % KEYFRAME_INTERVAL == 0) {
+                keyframes.compareAndSet((current + 1) / KEYFRAME_INTERVAL, null, board.getFen());
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.chessapp.engine;
+
+/**
+ * Precomputed attack tables for the in-house move generator.
+ *
+ * Squares are numbered like {@code Square.ordinal()} in chesslib: a1 = 0, h1 = 7, h8 = 63.
+ * Sliding attacks use magic bitboards: the relevant blockers of a square are
+ * multiplied by a magic number so that the top bits form a perfect hash into
+ * a per-square attack table. The magics below were found offline by trial with
+ * sparse random numbers; only the attack tables are filled at class initialization.
+ */
+final class Bitboards {
+
+    static final long FILE_A = 0x0101010101010101L;
+    static final long FILE_H = FILE_A << 7;
+    static final long RANK_1 = 0xFFL;
+    static final long RANK_2 = RANK_1 << 8;
+    static final long RANK_3 = RANK_1 << 16;
+    static final long RANK_6 = RANK_1 << 40;
+    static final long RANK_7 = RANK_1 << 48;
+    static final long RANK_8 = RANK_1 << 56;
+
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    /** PAWN_ATTACKS[color][square]: squares attacked by a pawn of that color (0 = white). */
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+    /** Squares strictly between two squares on a common line, else 0. */
+    static final long[][] BETWEEN = new long[64][64];
+    /** The full line through two squares (including both), else 0. */
+    static final long[][] LINE = new long[64][64];
+
+    private static final long[] ROOK_MAGICS = {
+            0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+            0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+            0x0400800040008021L, 0x0400400020005000L, 0x8240801000200080L, 0x8611001004200900L,
+            0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+            0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+            0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+            0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+            0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+            0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+            0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+            0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+            0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+            0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+            0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+            0x8044110480002441L, 0x2008110084402202L, 0x90806005090010C1L, 0x000420310A004A42L,
+            0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x0045010808008680L, 0x2002080204004898L, 0x0210009A10400006L, 0x0824050200810200L,
+            0x0006061105004090L, 0x00010108C0000000L, 0x0814040282104004L, 0x0012012201106800L,
+            0x10823014100C1040L, 0x0080C2088802808CL, 0x0281108410404000L, 0x0101212041826200L,
+            0x0020141028221058L, 0x2201020202200202L, 0x000082A801482000L, 0x0000008401411044L,
+            0x0007103014300404L, 0x0002091110010100L, 0x42140012040C0808L, 0x0800808802004020L,
+            0x90C4004210140000L, 0x0800200900A01000L, 0x00D0400201108810L, 0x80820183814412A0L,
+            0x00A01008202202B4L, 0x01C2021A09500402L, 0x0084440208042400L, 0x800400400C090100L,
+            0xBA10040010802100L, 0xD182009006005000L, 0x5011021001009004L, 0x0020420200510400L,
+            0x0292104000468800L, 0x00043009091C0500L, 0x0280441000020025L, 0x0042820080080080L,
+            0x0440101010010040L, 0x1000900100808080L, 0x0108108120089800L, 0x0044010200012682L,
+            0xC002500420900400L, 0x0040482210710800L, 0x0002060024000200L, 0x0281020A44000800L,
+            0xA0021200A4000200L, 0x0001301000840840L, 0x2868500108444220L, 0x0004111041000200L,
+            0x8044020842080200L, 0x0000220104210200L, 0x0000021201044000L, 0x0000280884040028L,
+            0x4012114010858003L, 0x0000081004082B88L, 0x3892700508208002L, 0x00220A041B060400L,
+            0x0812020284014881L, 0x010434A282103100L, 0x0490400824020800L, 0x4A20002C00208800L,
+            0x000000A011020200L, 0x4002940A02482202L, 0x5100100202140406L, 0x02102000840540C1L
+    };
+
+    private static final int[] ROOK_DIRECTIONS = {8, -8, 1, -1};
+    private static final int[] BISHOP_DIRECTIONS = {9, 7, -7, -9};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            KNIGHT_ATTACKS[sq] = leaperAttacks(sq, new int[][]{{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}});
+            KING_ATTACKS[sq] = leaperAttacks(sq, new int[][]{{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}});
+            PAWN_ATTACKS[0][sq] = leaperAttacks(sq, new int[][]{{-1, 1}, {1, 1}});
+            PAWN_ATTACKS[1][sq] = leaperAttacks(sq, new int[][]{{-1, -1}, {1, -1}});
+        }
+
+        ROOK_TABLE = new long[initMasks(ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS, ROOK_DIRECTIONS)];
+        BISHOP_TABLE = new long[initMasks(BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS, BISHOP_DIRECTIONS)];
+        fillTable(ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS, ROOK_TABLE, ROOK_DIRECTIONS);
+        fillTable(BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS, BISHOP_TABLE, BISHOP_DIRECTIONS);
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long bit = 1L << b;
+                if ((rookAttacks(a, 0) & bit) != 0) {
+                    BETWEEN[a][b] = rookAttacks(a, bit) & rookAttacks(b, 1L << a);
+                    LINE[a][b] = (rookAttacks(a, 0) & rookAttacks(b, 0)) | (1L << a) | bit;
+                } else if ((bishopAttacks(a, 0) & bit) != 0) {
+                    BETWEEN[a][b] = bishopAttacks(a, bit) & bishopAttacks(b, 1L << a);
+                    LINE[a][b] = (bishopAttacks(a, 0) & bishopAttacks(b, 0)) | (1L << a) | bit;
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    static long rookAttacks(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSETS[square]
+                + (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    static long bishopAttacks(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square]
+                + (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    private static long leaperAttacks(int square, int[][] steps) {
+        int file = square & 7;
+        int rank = square >>> 3;
+        long attacks = 0;
+        for (int[] step : steps) {
+            int f = file + step[0];
+            int r = rank + step[1];
+            if (f >= 0 && f < 8 && r >= 0 && r < 8) {
+                attacks |= 1L << (r * 8 + f);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Attacks along the given directions, stopping at (and including) the first blocker.
+     */
+    private static long slidingAttacks(int square, long occupied, int[] directions) {
+        long attacks = 0;
+        for (int direction : directions) {
+            int sq = square;
+            while (true) {
+                int file = sq & 7;
+                int next = sq + direction;
+                // Stop at the board edge, including wrap-around between the a and h files
+                if (next < 0 || next > 63 || Math.abs((next & 7) - file) > 1) {
+                    break;
+                }
+                sq = next;
+                attacks |= 1L << sq;
+                if ((occupied & (1L << sq)) != 0) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Computes the relevant-blocker masks (edges excluded) and the table layout.
+     *
+     * @return Total table size
+     */
+    private static int initMasks(long[] masks, int[] shifts, int[] offsets, int[] directions) {
+        int size = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            long edges = ((RANK_1 | RANK_8) & ~(RANK_1 << (8 * (sq >>> 3))))
+                    | ((FILE_A | FILE_H) & ~(FILE_A << (sq & 7)));
+            masks[sq] = slidingAttacks(sq, 0, directions) & ~edges;
+            int bits = Long.bitCount(masks[sq]);
+            shifts[sq] = 64 - bits;
+            offsets[sq] = size;
+            size += 1 << bits;
+        }
+        return size;
+    }
+
+    /**
+     * Stores the attacks of every blocker subset (enumerated with the carry-rippler trick) at its magic index.
+     */
+    private static void fillTable(long[] masks, long[] magics, int[] shifts, int[] offsets, long[] table,
+                                  int[] directions) {
+        for (int sq = 0; sq < 64; sq++) {
+            long subset = 0;
+            do {
+                int index = (int) ((subset * magics[sq]) >>> shifts[sq]);
+                table[offsets[sq] + index] = slidingAttacks(sq, subset, directions);
+                subset = (subset - masks[sq]) & masks[sq];
+            } while (subset != 0);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.chessapp.engine;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs engine searches on a dedicated background thread.
+ *
+ * Every request rebuilds its own board from the game's start position and move
+ * list, so the search never touches the board the UI is using and still sees
+ * the full game history for repetition detection. Callbacks are invoked on the
+ * engine thread; callers post them to the UI thread themselves. Searches use
+ * {@link LazySmpSearch} with one thread per spare core by default.
+ *
+ * A ponder search runs on the same engine thread. A hit hands it the request's
+ * callback and limits while it keeps searching; a miss stops it, and the new
+ * request, queued behind it, starts as soon as it has returned.
+ */
+public class ComputerPlayer implements EnginePlayer {
+
+    /** Transposition table budget that is safe on 2 GB devices. */
+    public static final int DEFAULT_HASH_MB = 16;
+
+    // Off until SyzygyTablebaseTest runs against real tables: an unverified DTZ probe would
+    // otherwise pick the move without any search
+    private static final boolean PLAY_TABLEBASE_MOVES = false;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chess-engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LazySmpSearch search;
+    private final Random bookRandom = new Random();
+    private volatile PolyglotBook openingBook;
+    private volatile SyzygyTablebase tablebase;
+
+    /**
+     * State of a ponder search, guarded by {@link #ponderLock}.
+     */
+    private static final class PonderSearch {
+        final String startFen;
+        final List<Move> moves;
+        boolean started;
+        boolean finished;
+        boolean cancelled;
+        // Set by a hit
+        SearchLimits hitLimits;
+        Callback callback;
+        // Set if the search returned before a hit, e.g. at the depth limit
+        SearchResult result;
+
+        PonderSearch(String startFen, List<Move> moves) {
+            this.startFen = startFen;
+            this.moves = moves;
+        }
+
+        boolean matches(String startFen, List<Move> moves) {
+            return this.startFen.equals(startFen) && this.moves.equals(moves);
+        }
+    }
+
+    private final Object ponderLock = new Object();
+    private PonderSearch ponderSearch;
+    // Bumped by every analyze() and stop(), so an analysis that is no longer wanted stops itself
+    private final AtomicInteger analysisId = new AtomicInteger();
+
+    public ComputerPlayer() {
+        this(DEFAULT_HASH_MB, LazySmpSearch.defaultThreadCount());
+    }
+
+    /**
+     * @param hashSizeMb Memory budget of the transposition table in megabytes
+     * @param threadCount Number of searching threads; 1 gives deterministic results
+     */
+    public ComputerPlayer(int hashSizeMb, int threadCount) {
+        search = new LazySmpSearch(new TranspositionTable(hashSizeMb), threadCount);
+    }
+
+    /**
+     * Changes the number of searching threads, taking effect from the next request.
+     */
+    public void setThreadCount(int threadCount) {
+        executor.execute(() -> search.setThreadCount(threadCount));
+    }
+
+    /**
+     * Sets the opening book consulted before searching, or null to always search.
+     */
+    public void setOpeningBook(PolyglotBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Sets the endgame tablebases probed inside the search, or null to search without them.
+     */
+    public void setTablebase(SyzygyTablebase tablebase) {
+        this.tablebase = tablebase;
+        executor.execute(() -> search.setTablebase(tablebase));
+    }
+
+    /**
+     * Evaluates with a neural network, or with the hand-written evaluator if null,
+     * taking effect from the next request.
+     */
+    public void setNetwork(NnueNetwork network) {
+        executor.execute(() -> search.setNetwork(network));
+    }
+
+    /**
+     * Queues a search for the best move in the position reached by playing the moves from the start FEN.
+     * While the position is in the opening book a weighted random book move is returned instead,
+     * as a result with depth 0 and no nodes.
+     *
+     * @param startFen FEN of the game's initial position
+     * @param moves Moves played so far, copied before this method returns
+     * @param limits Compute budget of the search
+     * @param callback Notified on the engine thread when the search ends
+     */
+    @Override
+    public void findBestMove(String startFen, List<Move> moves, SearchLimits limits, Callback callback) {
+        final List<Move> movesCopy = new ArrayList<>(moves);
+        final SearchResult pondered;
+        synchronized (ponderLock) {
+            PonderSearch ponder = ponderSearch;
+            ponderSearch = null;
+            if (ponder != null && ponder.matches(startFen, movesCopy)) {
+                ponder.hitLimits = limits;
+                if (!ponder.finished) {
+                    // The ponder task reports to this callback; before it starts, it searches regularly
+                    ponder.callback = callback;
+                    if (ponder.started) {
+                        search.ponderHit(limits);
+                    }
+                    return;
+                }
+                pondered = ponder.result;
+            } else {
+                cancel(ponder);
+                pondered = null;
+            }
+        }
+        executor.execute(() -> {
+            if (pondered != null) {
+                callback.onSearchFinished(pondered);
+                return;
+            }
+            SearchResult bookOrTablebase = probeBookAndTablebase(startFen, movesCopy);
+            if (bookOrTablebase != null) {
+                callback.onSearchFinished(bookOrTablebase);
+                return;
+            }
+            callback.onSearchFinished(search.search(startFen, movesCopy, limits, null));
+        });
+    }
+
+    @Override
+    public void ponder(String startFen, List<Move> moves, SearchLimits limits) {
+        final PonderSearch ponder = new PonderSearch(startFen, new ArrayList<>(moves));
+        synchronized (ponderLock) {
+            cancel(ponderSearch);
+            ponderSearch = ponder;
+        }
+        executor.execute(() -> {
+            SearchResult result = runPonder(ponder, limits);
+            Callback callback;
+            synchronized (ponderLock) {
+                ponder.finished = true;
+                ponder.result = result;
+                callback = ponder.cancelled ? null : ponder.callback;
+            }
+            if (callback != null) {
+                callback.onSearchFinished(result);
+            }
+        });
+    }
+
+    /**
+     * @return The result of the ponder search, or null if it was cancelled before it started
+     */
+    private SearchResult runPonder(PonderSearch ponder, SearchLimits limits) {
+        SearchLimits startLimits;
+        boolean startPondering;
+        synchronized (ponderLock) {
+            if (ponder.cancelled) {
+                return null;
+            }
+            ponder.started = true;
+            startPondering = ponder.hitLimits == null;
+            startLimits = startPondering ? limits : ponder.hitLimits;
+        }
+        SearchResult bookOrTablebase = probeBookAndTablebase(ponder.startFen, ponder.moves);
+        if (bookOrTablebase != null) {
+            return bookOrTablebase;
+        }
+        return search.search(ponder.startFen, ponder.moves, startLimits, iteration -> {
+            // A stop or hit that came after the check above but before the search reset its flags is repeated here
+            synchronized (ponderLock) {
+                if (ponder.cancelled) {
+                    search.stop();
+                } else if (ponder.hitLimits != null && search.isPondering()) {
+                    search.ponderHit(ponder.hitLimits);
+                }
+            }
+        }, startPondering);
+    }
+
+    /**
+     * Starts an infinite search of the position for analysis, replacing a running analysis.
+     * Runs until {@link #stop()} or the next call; neither the book nor the tablebases are
+     * consulted at the root, so every line has a score.
+     *
+     * @param lines Number of principal variations
+     * @param listener Notified on the engine thread after every completed line, with all lines
+     *                 in {@link SearchResult#getLines()}
+     */
+    public void analyze(String startFen, List<Move> moves, int lines, Search.Listener listener) {
+        final int id = analysisId.incrementAndGet();
+        final List<Move> movesCopy = new ArrayList<>(moves);
+        search.stop();
+        executor.execute(() -> {
+            if (id != analysisId.get()) {
+                return;
+            }
+            search.setMultiPv(lines);
+            try {
+                search.search(startFen, movesCopy, SearchLimits.infinite(), result -> {
+                    // Also catches a stop that came before the search reset its flags
+                    if (id != analysisId.get()) {
+                        search.stop();
+                        return;
+                    }
+                    listener.onIteration(result);
+                });
+            } finally {
+                search.setMultiPv(1);
+            }
+        });
+    }
+
+    /**
+     * Cancels a ponder search, stopping it if it is running. Called with {@link #ponderLock} held.
+     */
+    private void cancel(PonderSearch ponder) {
+        if (ponder == null) {
+            return;
+        }
+        ponder.cancelled = true;
+        if (ponder.started && !ponder.finished) {
+            search.stop();
+        }
+    }
+
+    private SearchResult probeBookAndTablebase(String startFen, List<Move> moves) {
+        Board board = LazySmpSearch.createBoard(startFen, moves);
+        Move bookMove = probeBook(board);
+        if (bookMove != null) {
+            return new SearchResult(bookMove, 0, 0, 0, 0, Collections.singletonList(bookMove));
+        }
+        return probeTablebase(board);
+    }
+
+    private Move probeBook(Board board) {
+        PolyglotBook book = openingBook;
+        if (book == null) {
+            return null;
+        }
+        return book.pickMove(board, bookRandom);
+    }
+
+    private SearchResult probeTablebase(Board board) {
+        SyzygyTablebase tables = tablebase;
+        if (!PLAY_TABLEBASE_MOVES || tables == null || !tables.canProbe(board)) {
+            return null;
+        }
+        Move move = tables.probeRootMove(board);
+        if (move == null) {
+            return null;
+        }
+        int wdl = tables.probeWdl(board);
+        int score = wdl == SyzygyTablebase.UNKNOWN ? 0 : Search.tablebaseScore(wdl, 0);
+        return new SearchResult(move, score, 0, 0, 0, Collections.singletonList(move));
+    }
+
+    /**
+     * Stops the running search early and cancels a ponder search or analysis. The callback
+     * of a requested search still fires with the best move found so far.
+     */
+    @Override
+    public void stop() {
+        analysisId.incrementAndGet();
+        synchronized (ponderLock) {
+            cancel(ponderSearch);
+            ponderSearch = null;
+        }
+        search.stop();
+    }
+
+    /**
+     * Stops the running search and releases the engine thread.
+     */
+    @Override
+    public void shutdown() {
+        search.shutdown();
+        executor.shutdownNow();
+    }
+}
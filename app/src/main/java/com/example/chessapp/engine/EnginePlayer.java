@@ -0,0 +1,55 @@
+package com.example.chessapp.engine;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.List;
+
+/**
+ * Something that answers positions with moves: the built-in {@link ComputerPlayer}
+ * or an external engine spoken to over UCI. The game screen only uses this interface,
+ * so either can play without changes to the UI.
+ */
+public interface EnginePlayer {
+
+    /**
+     * Receives the outcome of a search request.
+     */
+    interface Callback {
+        void onSearchFinished(SearchResult result);
+    }
+
+    /**
+     * Queues a search for the best move in the position reached by playing the moves from the start FEN.
+     * Returns immediately; the callback fires on a background thread.
+     *
+     * @param startFen FEN of the game's initial position
+     * @param moves Moves played so far, copied before this method returns
+     * @param limits Compute budget of the search
+     * @param callback Notified when the search ends, with a null best move if there is none or the engine failed
+     */
+    void findBestMove(String startFen, List<Move> moves, SearchLimits limits, Callback callback);
+
+    /**
+     * Starts a ponder search: a search on the opponent's time in the position after the
+     * reply they are expected to play. No callback fires for it by itself. If the next
+     * {@link #findBestMove} asks for exactly this position (a ponder hit), the ponder search
+     * becomes that request and keeps the depth it has reached; any other request cancels it
+     * first (a miss), as does {@link #stop()}.
+     *
+     * @param startFen FEN of the game's initial position
+     * @param moves Moves played so far followed by the expected reply, copied before this method returns
+     * @param limits Compute budget once the ponder search is hit
+     */
+    void ponder(String startFen, List<Move> moves, SearchLimits limits);
+
+    /**
+     * Stops the running search early and cancels a ponder search. The callback of a requested
+     * search still fires with the best move found so far.
+     */
+    void stop();
+
+    /**
+     * Stops the running search and releases the engine's threads and processes.
+     */
+    void shutdown();
+}
@@ -0,0 +1,79 @@
+package com.example.chessapp.engine;
+
+/**
+ * Tapered static evaluation: material plus piece-square tables, blended between
+ * middlegame and endgame values by the amount of material left.
+ *
+ * {@link #evaluate(Position)} reads the running totals the position keeps up to
+ * date in make/unmake, so it costs a few integer operations per node.
+ * {@link #evaluateFull(Position)} recomputes the same score from the squares and
+ * is kept as the reference implementation. {@link NnueEvaluator} replaces the
+ * hand-written terms with a neural network.
+ */
+public class Evaluator {
+
+    /**
+     * Called before a search starts working on a position. Evaluators with state of
+     * their own that follows the moves hook into the position here.
+     */
+    public void attach(Position position) {
+    }
+
+    /**
+     * Called when the search is done with a position attached with {@link #attach(Position)}.
+     */
+    public void detach(Position position) {
+    }
+
+    /**
+     * @return Score in centipawns from the point of view of the side to move
+     */
+    public int evaluate(Position position) {
+        int score = taper(position.middlegameScore(), position.endgameScore(), position.phase());
+        return position.sideToMove() == Position.WHITE ? score : -score;
+    }
+
+    /**
+     * Same score as {@link #evaluate(Position)}, recomputed from every square.
+     *
+     * @return Score in centipawns from the point of view of the side to move
+     */
+    public int evaluateFull(Position position) {
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (int square = 0; square < 64; square++) {
+            int piece = position.pieceAt(square);
+            if (piece == Position.NO_PIECE) {
+                continue;
+            }
+            middlegame += PieceSquareTables.MIDDLEGAME[piece][square];
+            endgame += PieceSquareTables.ENDGAME[piece][square];
+            phase += PieceSquareTables.PHASE_WEIGHT[piece % 6];
+        }
+        int score = taper(middlegame, endgame, phase);
+        return position.sideToMove() == Position.WHITE ? score : -score;
+    }
+
+    /**
+     * Interpolates linearly; promotions can push the phase above the maximum, which counts as a full middlegame.
+     */
+    static int taper(int middlegame, int endgame, int phase) {
+        int weight = Math.min(phase, PieceSquareTables.MAX_PHASE);
+        return (middlegame * weight + endgame * (PieceSquareTables.MAX_PHASE - weight)) / PieceSquareTables.MAX_PHASE;
+    }
+
+    /**
+     * @return Material value of a {@link Position} piece or piece type, 0 for kings and {@link Position#NO_PIECE}
+     */
+    public static int pieceValue(int piece) {
+        switch (piece % 6) {
+            case Position.PAWN: return PieceSquareTables.PAWN_VALUE;
+            case Position.KNIGHT: return PieceSquareTables.KNIGHT_VALUE;
+            case Position.BISHOP: return PieceSquareTables.BISHOP_VALUE;
+            case Position.ROOK: return PieceSquareTables.ROOK_VALUE;
+            case Position.QUEEN: return PieceSquareTables.QUEEN_VALUE;
+            default: return 0;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.chessapp.engine;
+
+import com.example.chessapp.MoveCodec;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lazy SMP: several independent searches of the same position that only
+ * cooperate through a shared {@link TranspositionTable}.
+ *
+ * The main search runs on the calling thread with the real limits and decides
+ * the move. Helper threads search without limits, each with its own position and
+ * a different helper id (see {@link Search#setHelperId(int)}), and are stopped
+ * as soon as the main search returns. With one thread no helper is started and
+ * the result is the same as a plain {@link Search}.
+ */
+public class LazySmpSearch {
+
+    private static final long HELPER_JOIN_POLL_MILLIS = 1;
+
+    private final TranspositionTable transpositionTable;
+    // Replaced as a whole so stop() can read it without locking
+    private volatile List<Search> searches = new ArrayList<>();
+    private ExecutorService helperPool;
+    private SyzygyTablebase tablebase;
+    private NnueNetwork network;
+    private int multiPv = 1;
+
+    /**
+     * @param transpositionTable Table shared by all threads
+     * @param threadCount Total number of searching threads, including the caller's
+     */
+    public LazySmpSearch(TranspositionTable transpositionTable, int threadCount) {
+        this.transpositionTable = transpositionTable;
+        setThreadCount(threadCount);
+    }
+
+    /**
+     * @return A thread count that leaves one core for the UI thread
+     */
+    public static int defaultThreadCount() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * Changes the number of searching threads. Must not be called while a search is running.
+     */
+    public synchronized void setThreadCount(int threadCount) {
+        int count = Math.max(1, threadCount);
+        if (count == searches.size()) {
+            return;
+        }
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+        createSearches(count);
+        if (count > 1) {
+            helperPool = Executors.newFixedThreadPool(count - 1, runnable -> {
+                Thread thread = new Thread(runnable, "chess-engine-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Sets the endgame tablebases used by every thread. Must not be called while a search is running.
+     */
+    public synchronized void setTablebase(SyzygyTablebase tablebase) {
+        this.tablebase = tablebase;
+        for (Search search : searches) {
+            search.setTablebase(tablebase);
+        }
+    }
+
+    /**
+     * Evaluates with a neural network, or with the hand-written {@link Evaluator} if null.
+     * Must not be called while a search is running.
+     */
+    public synchronized void setNetwork(NnueNetwork network) {
+        this.network = network;
+        createSearches(searches.size());
+    }
+
+    /**
+     * Sets the number of principal variations of the main search (see {@link Search#setMultiPv(int)}).
+     * Must not be called while a search is running.
+     */
+    public synchronized void setMultiPv(int multiPv) {
+        this.multiPv = multiPv;
+        searches.get(0).setMultiPv(multiPv);
+    }
+
+    public synchronized int getThreadCount() {
+        return searches.size();
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * Searches the position reached by playing the moves from the start FEN.
+     *
+     * @param startFen FEN of the game's initial position
+     * @param moves Moves played so far
+     * @param limits Compute budget of the main search
+     * @param listener Notified after each depth completed by the main search, may be null
+     * @return Result of the main search, with the node count summed over all threads
+     */
+    public SearchResult search(String startFen, List<Move> moves, SearchLimits limits,
+                               Search.Listener listener) {
+        return search(startFen, moves, limits, listener, false);
+    }
+
+    /**
+     * Searches the position, as a ponder search if asked (see {@link Search#search(Position,
+     * SearchLimits, Search.Listener, boolean)}). Only the main search ponders: the helpers
+     * search without limits anyway.
+     *
+     * @param ponder True to start as a ponder search, converted by {@link #ponderHit(SearchLimits)}
+     */
+    public synchronized SearchResult search(String startFen, List<Move> moves, SearchLimits limits,
+                                            Search.Listener listener, boolean ponder) {
+        List<Search> active = searches;
+        List<Future<?>> helpers = new ArrayList<>(active.size() - 1);
+        for (int i = 1; i < active.size(); i++) {
+            final Search helper = active.get(i);
+            final Position helperPosition = createPosition(startFen, moves);
+            helpers.add(helperPool.submit(() -> helper.search(helperPosition, SearchLimits.infinite(), null)));
+        }
+
+        Search main = active.get(0);
+        SearchResult result = main.search(createPosition(startFen, moves), limits, listener, ponder);
+
+        long nodes = result.getNodes();
+        for (int i = 0; i < helpers.size(); i++) {
+            Search helper = active.get(i + 1);
+            awaitHelper(helper, helpers.get(i));
+            nodes += helper.getNodes();
+        }
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes,
+                result.getElapsedMillis(), result.getPrincipalVariation());
+    }
+
+    /**
+     * Stops the running search. The main search returns its best result so far.
+     */
+    public void stop() {
+        // Only the main search needs stopping: helpers are stopped once it returns
+        searches.get(0).stop();
+    }
+
+    /**
+     * Turns the running ponder search into a regular search with the given limits.
+     */
+    public void ponderHit(SearchLimits limits) {
+        searches.get(0).ponderHit(limits);
+    }
+
+    /**
+     * @return True while the running search is a ponder search that has not been hit
+     */
+    public boolean isPondering() {
+        return searches.get(0).isPondering();
+    }
+
+    /**
+     * Stops the running search and releases the helper threads.
+     */
+    public void shutdown() {
+        for (Search search : searches) {
+            search.stop();
+        }
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+        }
+    }
+
+    private void createSearches(int count) {
+        List<Search> created = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Each thread needs its own evaluator: a network evaluator keeps per-position state
+            Evaluator evaluator = network != null ? new NnueEvaluator(network) : new Evaluator();
+            Search search = new Search(evaluator, transpositionTable);
+            search.setHelperId(i);
+            search.setTablebase(tablebase);
+            created.add(search);
+        }
+        created.get(0).setMultiPv(multiPv);
+        searches = created;
+    }
+
+    /**
+     * Stops a helper and waits for it. A helper that had not started yet clears the stop
+     * flag when it begins, so the request is repeated until the helper has returned.
+     */
+    private static void awaitHelper(Search helper, Future<?> future) {
+        while (!future.isDone()) {
+            helper.stop();
+            try {
+                future.get(HELPER_JOIN_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Not yet finished, stop it again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                return;
+            } catch (ExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    static Board createBoard(String startFen, List<Move> moves) {
+        Board board = new Board();
+        board.loadFromFen(startFen);
+        for (Move move : moves) {
+            board.doMove(move);
+        }
+        return board;
+    }
+
+    static Position createPosition(String startFen, List<Move> moves) {
+        Position position = new Position(startFen);
+        for (Move move : moves) {
+            position.makeMove(MoveCodec.encode(move));
+        }
+        return position;
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.chessapp.engine;
+
+/**
+ * Legal move generation for {@link Position} into caller-owned {@code short[]} buffers.
+ *
+ * Moves are generated legal rather than pseudo-legal: pinned pieces only move
+ * along their pin line, in check only evasions are produced, and the king never
+ * steps onto an attacked square. So the search can play every generated move
+ * without a legality test. Nothing is allocated; the caller passes a buffer of at
+ * least {@link #MAX_MOVES} free entries, one per ply.
+ */
+public final class MoveGenerator {
+
+    /** Upper bound on the number of legal moves in any position (the known maximum is 218). */
+    public static final int MAX_MOVES = 256;
+
+    private static final int PROMOTION_QUEEN = 4 << 12;
+    private static final int PROMOTION_ROOK = 3 << 12;
+    private static final int PROMOTION_BISHOP = 2 << 12;
+    private static final int PROMOTION_KNIGHT = 1 << 12;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Writes every legal move to {@code moves} from index {@code start}.
+     *
+     * @return Index one past the last move written
+     */
+    public static int generateLegal(Position position, short[] moves, int start) {
+        return generate(position, moves, start, false);
+    }
+
+    /**
+     * Writes the legal captures and promotions, or every evasion when in check, for quiescence search.
+     *
+     * @return Index one past the last move written
+     */
+    public static int generateCaptures(Position position, short[] moves, int start) {
+        return generate(position, moves, start, true);
+    }
+
+    private static int generate(Position position, short[] moves, int start, boolean capturesOnly) {
+        int us = position.sideToMove();
+        int them = us ^ 1;
+        long own = position.colorPieces(us);
+        long enemy = position.colorPieces(them);
+        long occupied = position.occupied();
+        int king = position.kingSquare(us);
+
+        long checkers = position.attackersTo(king, occupied) & enemy;
+        int count = start;
+
+        // King moves: the king itself is removed from the occupancy so sliders see through it
+        long kingTargets = Bitboards.KING_ATTACKS[king] & ~own;
+        if (capturesOnly && checkers == 0) {
+            kingTargets &= enemy;
+        }
+        long withoutKing = occupied & ~(1L << king);
+        while (kingTargets != 0) {
+            int to = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if ((position.attackersTo(to, withoutKing) & enemy) == 0) {
+                moves[count++] = (short) (king | (to << 6));
+            }
+        }
+
+        // In double check only the king can move
+        if (Long.bitCount(checkers) > 1) {
+            return count;
+        }
+
+        // Squares a non-king move must land on: anywhere, or capture/block the single checker
+        long targets;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            targets = checkers | Bitboards.BETWEEN[king][checker];
+        } else {
+            targets = ~own;
+            if (!capturesOnly) {
+                count = generateCastling(position, moves, count, us, king, occupied);
+            }
+        }
+        long pieceTargets = capturesOnly && checkers == 0 ? enemy : targets;
+
+        long pinned = pinnedPieces(position, us, king, own, occupied);
+
+        count = generatePawnMoves(position, moves, count, us, king, targets, pinned, capturesOnly && checkers == 0);
+
+        long knights = position.pieces(us, Position.KNIGHT) & ~pinned; // a pinned knight can never move
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            count = addMoves(moves, count, from, Bitboards.KNIGHT_ATTACKS[from] & pieceTargets);
+        }
+
+        long diagonal = position.pieces(us, Position.BISHOP) | position.pieces(us, Position.QUEEN);
+        while (diagonal != 0) {
+            int from = Long.numberOfTrailingZeros(diagonal);
+            diagonal &= diagonal - 1;
+            long attacks = Bitboards.bishopAttacks(from, occupied) & pieceTargets;
+            if ((pinned & (1L << from)) != 0) {
+                attacks &= Bitboards.LINE[king][from];
+            }
+            count = addMoves(moves, count, from, attacks);
+        }
+
+        long straight = position.pieces(us, Position.ROOK) | position.pieces(us, Position.QUEEN);
+        while (straight != 0) {
+            int from = Long.numberOfTrailingZeros(straight);
+            straight &= straight - 1;
+            long attacks = Bitboards.rookAttacks(from, occupied) & pieceTargets;
+            if ((pinned & (1L << from)) != 0) {
+                attacks &= Bitboards.LINE[king][from];
+            }
+            count = addMoves(moves, count, from, attacks);
+        }
+        return count;
+    }
+
+    /**
+     * @return Own pieces that are the only piece between the king and an enemy slider
+     */
+    private static long pinnedPieces(Position position, int us, int king, long own, long occupied) {
+        int them = us ^ 1;
+        long enemyQueens = position.pieces(them, Position.QUEEN);
+        long snipers = (Bitboards.rookAttacks(king, 0) & (position.pieces(them, Position.ROOK) | enemyQueens))
+                | (Bitboards.bishopAttacks(king, 0) & (position.pieces(them, Position.BISHOP) | enemyQueens));
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.BETWEEN[king][sniper] & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & own;
+            }
+        }
+        return pinned;
+    }
+
+    private static int generatePawnMoves(Position position, short[] moves, int count, int us, int king,
+                                         long targets, long pinned, boolean capturesOnly) {
+        long pawns = position.pieces(us, Position.PAWN);
+        long enemy = position.colorPieces(us ^ 1);
+        long empty = ~position.occupied();
+        int forward = us == Position.WHITE ? 8 : -8;
+        long promotionRank = us == Position.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        long doublePushRank = us == Position.WHITE ? Bitboards.RANK_3 : Bitboards.RANK_6;
+
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = targets;
+            if ((pinned & (1L << from)) != 0) {
+                allowed &= Bitboards.LINE[king][from];
+            }
+
+            long destinations = Bitboards.PAWN_ATTACKS[us][from] & enemy;
+            long single = (1L << (from + forward)) & empty;
+            if (!capturesOnly) {
+                destinations |= single;
+                if (single != 0 && (single & doublePushRank) != 0) {
+                    destinations |= (1L << (from + 2 * forward)) & empty;
+                }
+            } else {
+                destinations |= single & promotionRank; // promotions count as tactical moves
+            }
+            destinations &= allowed;
+
+            while (destinations != 0) {
+                int to = Long.numberOfTrailingZeros(destinations);
+                destinations &= destinations - 1;
+                int move = from | (to << 6);
+                if (((1L << to) & promotionRank) != 0) {
+                    moves[count++] = (short) (move | PROMOTION_QUEEN);
+                    moves[count++] = (short) (move | PROMOTION_KNIGHT);
+                    moves[count++] = (short) (move | PROMOTION_ROOK);
+                    moves[count++] = (short) (move | PROMOTION_BISHOP);
+                } else {
+                    moves[count++] = (short) move;
+                }
+            }
+
+            int ep = position.enPassantSquare();
+            if (ep != Position.NO_SQUARE && (Bitboards.PAWN_ATTACKS[us][from] & (1L << ep)) != 0) {
+                int capturedSquare = ep - forward;
+                // Evades a check only by taking the checking pawn or by blocking on the target square
+                if ((targets & ((1L << capturedSquare) | (1L << ep))) != 0
+                        && isEnPassantLegal(position, us, king, from, ep, capturedSquare)) {
+                    moves[count++] = (short) (from | (ep << 6));
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * En passant removes two pieces from the same rank, which the pin test does not
+     * cover, so the resulting occupancy is checked for sliders hitting the king.
+     */
+    private static boolean isEnPassantLegal(Position position, int us, int king, int from, int to,
+                                            int capturedSquare) {
+        int them = us ^ 1;
+        long occupied = (position.occupied() ^ (1L << from) ^ (1L << capturedSquare)) | (1L << to);
+        long enemyQueens = position.pieces(them, Position.QUEEN);
+        return (Bitboards.rookAttacks(king, occupied) & (position.pieces(them, Position.ROOK) | enemyQueens)) == 0
+                && (Bitboards.bishopAttacks(king, occupied) & (position.pieces(them, Position.BISHOP) | enemyQueens)) == 0;
+    }
+
+    private static int generateCastling(Position position, short[] moves, int count, int us, int king,
+                                        long occupied) {
+        int rights = position.castlingRights();
+        int them = us ^ 1;
+        int kingSide = us == Position.WHITE ? Position.WHITE_KING_SIDE : Position.BLACK_KING_SIDE;
+        int queenSide = us == Position.WHITE ? Position.WHITE_QUEEN_SIDE : Position.BLACK_QUEEN_SIDE;
+        if ((rights & kingSide) != 0
+                && (occupied & Bitboards.BETWEEN[king][king + 3]) == 0
+                && !position.isAttacked(king + 1, them)
+                && !position.isAttacked(king + 2, them)) {
+            moves[count++] = (short) (king | ((king + 2) << 6));
+        }
+        if ((rights & queenSide) != 0
+                && (occupied & Bitboards.BETWEEN[king][king - 4]) == 0
+                && !position.isAttacked(king - 1, them)
+                && !position.isAttacked(king - 2, them)) {
+            moves[count++] = (short) (king | ((king - 2) << 6));
+        }
+        return count;
+    }
+
+    private static int addMoves(short[] moves, int count, int from, long destinations) {
+        while (destinations != 0) {
+            int to = Long.numberOfTrailingZeros(destinations);
+            destinations &= destinations - 1;
+            moves[count++] = (short) (from | (to << 6));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.chessapp.engine;
+
+/**
+ * First-layer outputs of an {@link NnueNetwork} for one position, one array per side.
+ *
+ * Attached to a {@link Position}, it is updated by every piece placed, removed or
+ * moved, so make and unmake cost one column add or subtract per touched piece and
+ * side instead of a 768-input matrix product. Integer adds are exactly reversible,
+ * so unmake restores the values without keeping copies.
+ */
+final class NnueAccumulator {
+
+    private final NnueNetwork network;
+    final short[] white;
+    final short[] black;
+
+    NnueAccumulator(NnueNetwork network) {
+        this.network = network;
+        this.white = new short[network.hiddenSize];
+        this.black = new short[network.hiddenSize];
+    }
+
+    NnueNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Recomputes both sides from scratch.
+     */
+    void refresh(Position position) {
+        System.arraycopy(network.featureBiases, 0, white, 0, white.length);
+        System.arraycopy(network.featureBiases, 0, black, 0, black.length);
+        for (int square = 0; square < 64; square++) {
+            int piece = position.pieceAt(square);
+            if (piece != Position.NO_PIECE) {
+                add(piece, square);
+            }
+        }
+    }
+
+    void add(int piece, int square) {
+        addColumn(white, whiteFeature(piece, square));
+        addColumn(black, blackFeature(piece, square));
+    }
+
+    void remove(int piece, int square) {
+        subtractColumn(white, whiteFeature(piece, square));
+        subtractColumn(black, blackFeature(piece, square));
+    }
+
+    void move(int piece, int from, int to) {
+        moveColumn(white, whiteFeature(piece, from), whiteFeature(piece, to));
+        moveColumn(black, blackFeature(piece, from), blackFeature(piece, to));
+    }
+
+    private static int whiteFeature(int piece, int square) {
+        return piece * 64 + square;
+    }
+
+    private static int blackFeature(int piece, int square) {
+        // Colors swap (piece +- 6) and the board flips vertically
+        int relative = piece < 6 ? piece + 6 : piece - 6;
+        return relative * 64 + (square ^ 56);
+    }
+
+    private void addColumn(short[] accumulator, int feature) {
+        short[] weights = network.featureWeights;
+        int offset = feature * accumulator.length;
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    private void subtractColumn(short[] accumulator, int feature) {
+        short[] weights = network.featureWeights;
+        int offset = feature * accumulator.length;
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    private void moveColumn(short[] accumulator, int fromFeature, int toFeature) {
+        short[] weights = network.featureWeights;
+        int n = accumulator.length;
+        int fromOffset = fromFeature * n;
+        int toOffset = toFeature * n;
+        for (int i = 0; i < n; i++) {
+            accumulator[i] += weights[toOffset + i] - weights[fromOffset + i];
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.chessapp.engine;
+
+/**
+ * Evaluates with an {@link NnueNetwork} instead of the hand-written terms.
+ *
+ * Each instance owns one accumulator and attaches it to the position its search
+ * works on, so one instance per search thread is needed. {@link #evaluateFull(Position)}
+ * refreshes a scratch accumulator from the squares, for checking and benchmarking
+ * the incremental updates.
+ */
+public class NnueEvaluator extends Evaluator {
+
+    private final NnueNetwork network;
+    private final NnueAccumulator accumulator;
+    private final NnueAccumulator scratch;
+
+    public NnueEvaluator(NnueNetwork network) {
+        this.network = network;
+        this.accumulator = new NnueAccumulator(network);
+        this.scratch = new NnueAccumulator(network);
+    }
+
+    public NnueNetwork getNetwork() {
+        return network;
+    }
+
+    @Override
+    public void attach(Position position) {
+        position.setAccumulator(accumulator);
+    }
+
+    @Override
+    public void detach(Position position) {
+        if (position.getAccumulator() == accumulator) {
+            position.setAccumulator(null);
+        }
+    }
+
+    /**
+     * Reads the accumulator attached with {@link #attach(Position)}; falls back to a full
+     * computation for a position that is not attached.
+     */
+    @Override
+    public int evaluate(Position position) {
+        if (position.getAccumulator() != accumulator) {
+            return evaluateFull(position);
+        }
+        return output(accumulator, position);
+    }
+
+    @Override
+    public int evaluateFull(Position position) {
+        scratch.refresh(position);
+        return output(scratch, position);
+    }
+
+    private int output(NnueAccumulator values, Position position) {
+        return position.sideToMove() == Position.WHITE
+                ? network.evaluate(values.white, values.black)
+                : network.evaluate(values.black, values.white);
+    }
+}
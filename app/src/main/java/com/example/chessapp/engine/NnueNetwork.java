@@ -0,0 +1,137 @@
+package com.example.chessapp.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Quantized weights of an efficiently updatable neural network (NNUE) evaluator.
+ *
+ * The network is (768 -> N) x 2 -> 1. Each side has an accumulator of N int16
+ * values, the sum of the first layer's columns for the pieces on the board as
+ * seen from that side (see {@link NnueAccumulator}). The output is a dot product
+ * of both accumulators, clipped to 0..{@link #QA}, with int8 output weights:
+ * side to move first, then the opponent.
+ *
+ * File layout, little-endian:
+ * <pre>
+ *   magic "CNUE", int32 version (1), int32 hidden size N
+ *   int16[768 * N]  feature weights, feature-major
+ *   int16[N]        feature biases
+ *   int8[2 * N]     output weights
+ *   int32           output bias
+ * </pre>
+ * A feature is {@code (relativeColor * 6 + pieceType) * 64 + square}, where the
+ * relative color is 0 for the perspective's own pieces and the square is flipped
+ * vertically for Black's perspective, so both sides share one set of weights.
+ *
+ * The file is read through a direct buffer (usually a mapping of the asset in the
+ * APK) and copied into primitive arrays, which the update and output loops index
+ * much faster than a buffer view.
+ */
+public final class NnueNetwork {
+
+    public static final int FEATURES = 768;
+    /** Accumulator values are clipped to 0..QA before the output layer. */
+    public static final int QA = 255;
+    /** Scale of the int8 output weights. */
+    public static final int QB = 64;
+    /** Network output to centipawns. */
+    public static final int SCALE = 400;
+
+    private static final int MAGIC = 0x45554E43; // "CNUE" read little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int MAX_HIDDEN_SIZE = 4096;
+
+    final int hiddenSize;
+    final short[] featureWeights;
+    final short[] featureBiases;
+    final byte[] outputWeights;
+    final int outputBias;
+
+    private NnueNetwork(int hiddenSize, short[] featureWeights, short[] featureBiases, byte[] outputWeights,
+                        int outputBias) {
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.featureBiases = featureBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Maps a region of a file read-only and loads the network from it.
+     *
+     * @param channel File containing the network
+     * @param offset Start of the network within the file
+     * @param length Size of the network in bytes
+     */
+    public static NnueNetwork map(FileChannel channel, long offset, long length) throws IOException {
+        return load(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    /**
+     * Loads a network from a buffer holding the file from position 0.
+     *
+     * @throws IOException If the buffer is not a network file of a supported version
+     */
+    public static NnueNetwork load(ByteBuffer buffer) throws IOException {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        in.position(0);
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC) {
+            throw new IOException("Not an NNUE network file");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported NNUE network version " + version);
+        }
+        int hiddenSize = in.getInt();
+        if (hiddenSize <= 0 || hiddenSize > MAX_HIDDEN_SIZE) {
+            throw new IOException("Bad NNUE hidden layer size " + hiddenSize);
+        }
+        long expected = HEADER_SIZE + 2L * FEATURES * hiddenSize + 2L * hiddenSize + 2L * hiddenSize + 4;
+        if (buffer.limit() != expected) {
+            throw new IOException("NNUE network file is " + buffer.limit() + " bytes, expected " + expected);
+        }
+
+        short[] featureWeights = new short[FEATURES * hiddenSize];
+        in.asShortBuffer().get(featureWeights);
+        in.position(in.position() + 2 * featureWeights.length);
+        short[] featureBiases = new short[hiddenSize];
+        in.asShortBuffer().get(featureBiases);
+        in.position(in.position() + 2 * featureBiases.length);
+        byte[] outputWeights = new byte[2 * hiddenSize];
+        in.get(outputWeights);
+        int outputBias = in.getInt();
+        return new NnueNetwork(hiddenSize, featureWeights, featureBiases, outputWeights, outputBias);
+    }
+
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    /**
+     * Runs the output layer.
+     *
+     * @param us Accumulator of the side to move
+     * @param them Accumulator of the other side
+     * @return Score in centipawns from the point of view of the side to move
+     */
+    int evaluate(short[] us, short[] them) {
+        byte[] weights = outputWeights;
+        int n = hiddenSize;
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            int v = us[i];
+            v = v < 0 ? 0 : v > QA ? QA : v;
+            sum += v * weights[i];
+        }
+        for (int i = 0; i < n; i++) {
+            int v = them[i];
+            v = v < 0 ? 0 : v > QA ? QA : v;
+            sum += v * weights[n + i];
+        }
+        return (int) ((long) (sum + outputBias) * SCALE / (QA * QB));
+    }
+}
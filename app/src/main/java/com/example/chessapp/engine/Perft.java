@@ -0,0 +1,129 @@
+package com.example.chessapp.engine;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Perft: counts the leaf nodes of the legal move tree to a fixed depth. The counts of
+ * the standard test positions are known, so any difference points at a move generation bug.
+ */
+public final class Perft {
+
+    /**
+     * A test position with its published node counts, {@code nodes[d - 1]} for depth d.
+     */
+    public static final class TestPosition {
+        public final String name;
+        public final String fen;
+        public final long[] nodes;
+
+        TestPosition(String name, String fen, long... nodes) {
+            this.name = name;
+            this.fen = fen;
+            this.nodes = nodes;
+        }
+
+        public int maxDepth() {
+            return nodes.length;
+        }
+    }
+
+    /** The standard positions from the Chess Programming Wiki "Perft Results" page. */
+    public static final TestPosition[] STANDARD_POSITIONS = {
+            new TestPosition("startpos",
+                    "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    20, 400, 8_902, 197_281, 4_865_609),
+            new TestPosition("kiwipete",
+                    "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2_039, 97_862, 4_085_603),
+            new TestPosition("position3",
+                    "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2_812, 43_238, 674_624),
+            new TestPosition("position4",
+                    "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9_467, 422_333),
+            new TestPosition("position5",
+                    "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1_486, 62_379, 2_103_487),
+            new TestPosition("position6",
+                    "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2_079, 89_890, 3_894_594),
+    };
+
+    private Perft() {
+    }
+
+    public static TestPosition findPosition(String name) {
+        for (TestPosition position : STANDARD_POSITIONS) {
+            if (position.name.equals(name)) {
+                return position;
+            }
+        }
+        throw new IllegalArgumentException("Unknown perft position " + name);
+    }
+
+    /**
+     * @return Number of leaf nodes at the given depth; the board is restored before returning
+     */
+    public static long perft(Board board, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        List<Move> moves = board.legalMoves();
+        // Bulk counting: the last ply only needs the number of moves
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (Move move : moves) {
+            board.doMove(move);
+            nodes += perft(board, depth - 1);
+            board.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Same count on the in-house {@link Position} and {@link MoveGenerator}, without allocating.
+     *
+     * @param buffers One move buffer of {@link MoveGenerator#MAX_MOVES} entries per ply, see {@link #newBuffers(int)}
+     */
+    public static long perft(Position position, int depth, short[][] buffers) {
+        if (depth <= 0) {
+            return 1;
+        }
+        short[] moves = buffers[depth - 1];
+        int count = MoveGenerator.generateLegal(position, moves, 0);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            nodes += perft(position, depth - 1, buffers);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public static short[][] newBuffers(int depth) {
+        return new short[Math.max(1, depth)][MoveGenerator.MAX_MOVES];
+    }
+
+    /**
+     * Node count per root move, for narrowing down a mismatch.
+     */
+    public static Map<String, Long> divide(Board board, int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Move move : board.legalMoves()) {
+            board.doMove(move);
+            counts.put(move.toString(), perft(board, depth - 1));
+            board.undoMove();
+        }
+        return counts;
+    }
+}
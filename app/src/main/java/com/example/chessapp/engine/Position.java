@@ -0,0 +1,596 @@
+package com.example.chessapp.engine;
+
+import com.example.chessapp.MoveCodec;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard position for the engine's hot paths, with make/unmake on an undo stack.
+ *
+ * Moves are {@code short}s in the {@link MoveCodec} layout (castling is the king's
+ * two-square move, as in UCI), so they can be stored in the transposition table
+ * and converted to chesslib moves only at the edges. Apart from the rare growth of
+ * the undo stack in very long games, nothing is allocated after construction.
+ *
+ * Pieces are {@code color * 6 + type} with the type constants below, 0..11;
+ * empty squares hold {@link #NO_PIECE}.
+ *
+ * The material and piece-square totals of both game phases and the phase itself are
+ * kept as running sums, updated with each piece placed, removed or moved, so make and
+ * unmake maintain them for free and {@link Evaluator} only has to blend them.
+ * An attached {@link NnueAccumulator} is kept up to date the same way.
+ */
+public final class Position {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final int NO_PIECE = -1;
+    public static final int NO_SQUARE = -1;
+
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_CHARS = "PNBRQKpnbrqk";
+    private static final int INITIAL_HISTORY = 512;
+
+    // Rights kept when a move touches a square: moving a king or rook, or capturing a rook
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static final long[][] PIECE_KEYS = new long[12][64];
+    static final long[] CASTLING_KEYS = new long[16];
+    static final long[] EN_PASSANT_KEYS = new long[8];
+    static final long SIDE_KEY;
+
+    static {
+        Arrays.fill(CASTLING_MASK, 0xF);
+        CASTLING_MASK[0] = ~WHITE_QUEEN_SIDE & 0xF;
+        CASTLING_MASK[4] = ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE) & 0xF;
+        CASTLING_MASK[7] = ~WHITE_KING_SIDE & 0xF;
+        CASTLING_MASK[56] = ~BLACK_QUEEN_SIDE & 0xF;
+        CASTLING_MASK[60] = ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE) & 0xF;
+        CASTLING_MASK[63] = ~BLACK_KING_SIDE & 0xF;
+
+        // splitmix64 with a fixed seed, so keys are stable across runs
+        long state = 0x9E3779B97F4A7C15L;
+        for (long[] pieceKeys : PIECE_KEYS) {
+            for (int sq = 0; sq < 64; sq++) {
+                state += 0x9E3779B97F4A7C15L;
+                pieceKeys[sq] = mix(state);
+            }
+        }
+        for (int i = 0; i < 16; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            CASTLING_KEYS[i] = mix(state);
+        }
+        for (int i = 0; i < 8; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            EN_PASSANT_KEYS[i] = mix(state);
+        }
+        state += 0x9E3779B97F4A7C15L;
+        SIDE_KEY = mix(state);
+    }
+
+    private final long[] pieces = new long[12];
+    private final long[] colors = new long[2];
+    private long occupied;
+    private final byte[] board = new byte[64];
+    private int sideToMove;
+    private int castling;
+    private int enPassant = NO_SQUARE;
+    private int halfMoveClock;
+    private int fullMoveNumber = 1;
+    private long key;
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
+    private NnueAccumulator accumulator;
+
+    // Undo stack, indexed by the number of moves made since the FEN was loaded
+    private int historySize;
+    private short[] moveHistory = new short[INITIAL_HISTORY];
+    private long[] keyHistory = new long[INITIAL_HISTORY];
+    private int[] stateHistory = new int[INITIAL_HISTORY];
+
+    public Position() {
+        setFen(START_FEN);
+    }
+
+    public Position(String fen) {
+        setFen(fen);
+    }
+
+    /**
+     * Loads a position from FEN and clears the move history.
+     */
+    public void setFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        NnueAccumulator attached = accumulator;
+        accumulator = null;
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(colors, 0L);
+        Arrays.fill(board, (byte) NO_PIECE);
+        occupied = 0;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+
+        int rank = 7;
+        int file = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int piece = PIECE_CHARS.indexOf(c);
+                if (piece < 0) {
+                    throw new IllegalArgumentException("Bad FEN piece '" + c + "' in " + fen);
+                }
+                putPiece(piece, rank * 8 + file);
+                file++;
+            }
+        }
+
+        sideToMove = fields.length > 1 && fields[1].equals("b") ? BLACK : WHITE;
+        castling = 0;
+        if (fields.length > 2) {
+            for (char c : fields[2].toCharArray()) {
+                switch (c) {
+                    case 'K': castling |= WHITE_KING_SIDE; break;
+                    case 'Q': castling |= WHITE_QUEEN_SIDE; break;
+                    case 'k': castling |= BLACK_KING_SIDE; break;
+                    case 'q': castling |= BLACK_QUEEN_SIDE; break;
+                    default: break;
+                }
+            }
+        }
+        enPassant = NO_SQUARE;
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            int square = (fields[3].charAt(0) - 'a') + 8 * (fields[3].charAt(1) - '1');
+            if (canCaptureEnPassant(square)) {
+                enPassant = square;
+            }
+        }
+        halfMoveClock = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+        fullMoveNumber = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        historySize = 0;
+        key = computeKey();
+        setAccumulator(attached);
+    }
+
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(90);
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = board[rank * 8 + file];
+                if (piece == NO_PIECE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(PIECE_CHARS.charAt(piece));
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (rank > 0) {
+                sb.append('/');
+            }
+        }
+        sb.append(sideToMove == WHITE ? " w " : " b ");
+        if (castling == 0) {
+            sb.append('-');
+        } else {
+            if ((castling & WHITE_KING_SIDE) != 0) sb.append('K');
+            if ((castling & WHITE_QUEEN_SIDE) != 0) sb.append('Q');
+            if ((castling & BLACK_KING_SIDE) != 0) sb.append('k');
+            if ((castling & BLACK_QUEEN_SIDE) != 0) sb.append('q');
+        }
+        sb.append(' ');
+        if (enPassant == NO_SQUARE) {
+            sb.append('-');
+        } else {
+            sb.append((char) ('a' + (enPassant & 7))).append((char) ('1' + (enPassant >>> 3)));
+        }
+        sb.append(' ').append(halfMoveClock).append(' ').append(fullMoveNumber);
+        return sb.toString();
+    }
+
+    /**
+     * Plays a legal move given in the {@link MoveCodec} layout.
+     */
+    public void makeMove(short move) {
+        int from = MoveCodec.getFrom(move);
+        int to = MoveCodec.getTo(move);
+        int promotion = (move >>> 12) & 0x7;
+        int piece = board[from];
+        int captured = board[to];
+        int us = sideToMove;
+        int type = piece % 6;
+
+        ensureHistoryCapacity();
+        moveHistory[historySize] = move;
+        keyHistory[historySize] = key;
+        stateHistory[historySize] = (captured + 1) | (castling << 4) | ((enPassant + 1) << 8) | (halfMoveClock << 16);
+        historySize++;
+
+        long newKey = key ^ SIDE_KEY ^ CASTLING_KEYS[castling];
+        if (enPassant != NO_SQUARE) {
+            newKey ^= EN_PASSANT_KEYS[enPassant & 7];
+        }
+        int previousEnPassant = enPassant;
+        enPassant = NO_SQUARE;
+        halfMoveClock++;
+
+        if (captured != NO_PIECE) {
+            removePiece(captured, to);
+            newKey ^= PIECE_KEYS[captured][to];
+            halfMoveClock = 0;
+        }
+
+        movePiece(piece, from, to);
+        newKey ^= PIECE_KEYS[piece][from] ^ PIECE_KEYS[piece][to];
+
+        if (type == PAWN) {
+            halfMoveClock = 0;
+            if (to == previousEnPassant) {
+                int capturedSquare = to ^ 8;
+                int capturedPawn = (us ^ 1) * 6 + PAWN;
+                removePiece(capturedPawn, capturedSquare);
+                newKey ^= PIECE_KEYS[capturedPawn][capturedSquare];
+            } else if ((from ^ to) == 16) {
+                sideToMove ^= 1; // the capture test is from the opponent's point of view
+                int square = (from + to) >>> 1;
+                if (canCaptureEnPassant(square)) {
+                    enPassant = square;
+                    newKey ^= EN_PASSANT_KEYS[square & 7];
+                }
+                sideToMove ^= 1;
+            } else if (promotion != 0) {
+                int promoted = us * 6 + promotion; // promotion codes 1..4 match KNIGHT..QUEEN
+                removePiece(piece, to);
+                putPiece(promoted, to);
+                newKey ^= PIECE_KEYS[piece][to] ^ PIECE_KEYS[promoted][to];
+            }
+        } else if (type == KING && Math.abs(to - from) == 2) {
+            int rook = us * 6 + ROOK;
+            int rookFrom = to > from ? to + 1 : to - 2;
+            int rookTo = (from + to) >>> 1;
+            movePiece(rook, rookFrom, rookTo);
+            newKey ^= PIECE_KEYS[rook][rookFrom] ^ PIECE_KEYS[rook][rookTo];
+        }
+
+        castling &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        newKey ^= CASTLING_KEYS[castling];
+        if (us == BLACK) {
+            fullMoveNumber++;
+        }
+        sideToMove ^= 1;
+        key = newKey;
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove(short)}.
+     */
+    public void unmakeMove() {
+        historySize--;
+        short move = moveHistory[historySize];
+        int state = stateHistory[historySize];
+        int from = MoveCodec.getFrom(move);
+        int to = MoveCodec.getTo(move);
+        int promotion = (move >>> 12) & 0x7;
+
+        sideToMove ^= 1;
+        int us = sideToMove;
+        if (us == BLACK) {
+            fullMoveNumber--;
+        }
+        int captured = (state & 0xF) - 1;
+        castling = (state >>> 4) & 0xF;
+        enPassant = ((state >>> 8) & 0x7F) - 1;
+        halfMoveClock = state >>> 16;
+        key = keyHistory[historySize];
+
+        int piece = board[to];
+        if (promotion != 0) {
+            removePiece(piece, to);
+            piece = us * 6 + PAWN;
+            putPiece(piece, to);
+        }
+        movePiece(piece, to, from);
+
+        int type = piece % 6;
+        if (captured != NO_PIECE) {
+            putPiece(captured, to);
+        } else if (type == PAWN && to == enPassant) {
+            putPiece((us ^ 1) * 6 + PAWN, to ^ 8);
+        } else if (type == KING && Math.abs(to - from) == 2) {
+            int rook = us * 6 + ROOK;
+            movePiece(rook, (from + to) >>> 1, to > from ? to + 1 : to - 2);
+        }
+    }
+
+    /**
+     * Passes the turn, for null-move style probing. Undo with {@link #unmakeNullMove()}.
+     */
+    public void makeNullMove() {
+        ensureHistoryCapacity();
+        moveHistory[historySize] = MoveCodec.NONE;
+        keyHistory[historySize] = key;
+        stateHistory[historySize] = (castling << 4) | ((enPassant + 1) << 8) | (halfMoveClock << 16);
+        historySize++;
+        if (enPassant != NO_SQUARE) {
+            key ^= EN_PASSANT_KEYS[enPassant & 7];
+            enPassant = NO_SQUARE;
+        }
+        halfMoveClock++;
+        sideToMove ^= 1;
+        key ^= SIDE_KEY;
+    }
+
+    public void unmakeNullMove() {
+        historySize--;
+        int state = stateHistory[historySize];
+        enPassant = ((state >>> 8) & 0x7F) - 1;
+        halfMoveClock = state >>> 16;
+        key = keyHistory[historySize];
+        sideToMove ^= 1;
+    }
+
+    /**
+     * @return True if the current position occurred before since the last capture or pawn move
+     */
+    public boolean isRepetition() {
+        int limit = Math.max(0, historySize - halfMoveClock);
+        for (int i = historySize - 2; i >= limit; i -= 2) {
+            if (keyHistory[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if neither side can possibly mate: bare kings, or a single minor piece
+     */
+    public boolean isInsufficientMaterial() {
+        long heavy = pieces[PAWN] | pieces[ROOK] | pieces[QUEEN]
+                | pieces[6 + PAWN] | pieces[6 + ROOK] | pieces[6 + QUEEN];
+        return heavy == 0 && Long.bitCount(occupied) <= 3;
+    }
+
+    public boolean isInCheck() {
+        return isAttacked(kingSquare(sideToMove), sideToMove ^ 1);
+    }
+
+    /**
+     * @return True if any piece of the given color attacks the square
+     */
+    public boolean isAttacked(int square, int byColor) {
+        return (attackersTo(square, occupied) & colors[byColor]) != 0;
+    }
+
+    /**
+     * @return Pieces of both colors attacking the square with the given occupancy
+     */
+    long attackersTo(int square, long occupancy) {
+        return (Bitboards.PAWN_ATTACKS[BLACK][square] & pieces[PAWN])
+                | (Bitboards.PAWN_ATTACKS[WHITE][square] & pieces[6 + PAWN])
+                | (Bitboards.KNIGHT_ATTACKS[square] & (pieces[KNIGHT] | pieces[6 + KNIGHT]))
+                | (Bitboards.KING_ATTACKS[square] & (pieces[KING] | pieces[6 + KING]))
+                | (Bitboards.bishopAttacks(square, occupancy)
+                        & (pieces[BISHOP] | pieces[QUEEN] | pieces[6 + BISHOP] | pieces[6 + QUEEN]))
+                | (Bitboards.rookAttacks(square, occupancy)
+                        & (pieces[ROOK] | pieces[QUEEN] | pieces[6 + ROOK] | pieces[6 + QUEEN]));
+    }
+
+    public int kingSquare(int color) {
+        return Long.numberOfTrailingZeros(pieces[color * 6 + KING]);
+    }
+
+    /**
+     * @return The piece on a square, or {@link #NO_PIECE}
+     */
+    public int pieceAt(int square) {
+        return board[square];
+    }
+
+    public long pieces(int piece) {
+        return pieces[piece];
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[color * 6 + type];
+    }
+
+    public long colorPieces(int color) {
+        return colors[color];
+    }
+
+    public long occupied() {
+        return occupied;
+    }
+
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public int castlingRights() {
+        return castling;
+    }
+
+    /**
+     * @return The en passant target square, set only if a pawn can actually capture there
+     */
+    public int enPassantSquare() {
+        return enPassant;
+    }
+
+    public int halfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public long key() {
+        return key;
+    }
+
+    /**
+     * @return Material plus middlegame piece-square values, from White's point of view
+     */
+    public int middlegameScore() {
+        return middlegameScore;
+    }
+
+    /**
+     * @return Material plus endgame piece-square values, from White's point of view
+     */
+    public int endgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * @return Sum of {@link PieceSquareTables#PHASE_WEIGHT} over the pieces on the board;
+     *         {@link PieceSquareTables#MAX_PHASE} at the start, 0 with only kings and pawns
+     */
+    public int phase() {
+        return phase;
+    }
+
+    /**
+     * Attaches the accumulator that make and unmake keep up to date, or detaches it with null.
+     * It is refreshed from the current position first.
+     */
+    void setAccumulator(NnueAccumulator accumulator) {
+        this.accumulator = accumulator;
+        if (accumulator != null) {
+            accumulator.refresh(this);
+        }
+    }
+
+    NnueAccumulator getAccumulator() {
+        return accumulator;
+    }
+
+    /**
+     * @return Number of moves made since the FEN was loaded
+     */
+    public int historySize() {
+        return historySize;
+    }
+
+    /**
+     * @return The i-th move made since the FEN was loaded
+     */
+    public short historyMove(int index) {
+        return moveHistory[index];
+    }
+
+    /**
+     * @return True if the move takes a piece, en passant included
+     */
+    public boolean isCapture(short move) {
+        int to = MoveCodec.getTo(move);
+        return board[to] != NO_PIECE
+                || (to == enPassant && board[MoveCodec.getFrom(move)] % 6 == PAWN);
+    }
+
+    /**
+     * Recomputes the key from scratch; equal to {@link #key()} unless the incremental update is broken.
+     */
+    public long computeKey() {
+        long k = sideToMove == BLACK ? SIDE_KEY : 0;
+        for (int sq = 0; sq < 64; sq++) {
+            if (board[sq] != NO_PIECE) {
+                k ^= PIECE_KEYS[board[sq]][sq];
+            }
+        }
+        k ^= CASTLING_KEYS[castling];
+        if (enPassant != NO_SQUARE) {
+            k ^= EN_PASSANT_KEYS[enPassant & 7];
+        }
+        return k;
+    }
+
+    /**
+     * Only remembers an en passant square a pawn of the side to move can capture on,
+     * so positions that only differ by a useless en passant square share a key.
+     */
+    private boolean canCaptureEnPassant(int square) {
+        int them = sideToMove ^ 1;
+        return (Bitboards.PAWN_ATTACKS[them][square] & pieces[sideToMove * 6 + PAWN]) != 0;
+    }
+
+    private void putPiece(int piece, int square) {
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        colors[piece / 6] |= bit;
+        occupied |= bit;
+        board[square] = (byte) piece;
+        middlegameScore += PieceSquareTables.MIDDLEGAME[piece][square];
+        endgameScore += PieceSquareTables.ENDGAME[piece][square];
+        phase += PieceSquareTables.PHASE_WEIGHT[piece % 6];
+        if (accumulator != null) {
+            accumulator.add(piece, square);
+        }
+    }
+
+    private void removePiece(int piece, int square) {
+        long bit = 1L << square;
+        pieces[piece] &= ~bit;
+        colors[piece / 6] &= ~bit;
+        occupied &= ~bit;
+        board[square] = (byte) NO_PIECE;
+        middlegameScore -= PieceSquareTables.MIDDLEGAME[piece][square];
+        endgameScore -= PieceSquareTables.ENDGAME[piece][square];
+        phase -= PieceSquareTables.PHASE_WEIGHT[piece % 6];
+        if (accumulator != null) {
+            accumulator.remove(piece, square);
+        }
+    }
+
+    private void movePiece(int piece, int from, int to) {
+        long fromTo = (1L << from) | (1L << to);
+        pieces[piece] ^= fromTo;
+        colors[piece / 6] ^= fromTo;
+        occupied ^= fromTo;
+        board[from] = (byte) NO_PIECE;
+        board[to] = (byte) piece;
+        middlegameScore += PieceSquareTables.MIDDLEGAME[piece][to] - PieceSquareTables.MIDDLEGAME[piece][from];
+        endgameScore += PieceSquareTables.ENDGAME[piece][to] - PieceSquareTables.ENDGAME[piece][from];
+        if (accumulator != null) {
+            accumulator.move(piece, from, to);
+        }
+    }
+
+    private void ensureHistoryCapacity() {
+        if (historySize == moveHistory.length) {
+            int capacity = moveHistory.length * 2;
+            moveHistory = Arrays.copyOf(moveHistory, capacity);
+            keyHistory = Arrays.copyOf(keyHistory, capacity);
+            stateHistory = Arrays.copyOf(stateHistory, capacity);
+        }
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,624 @@
+package com.example.chessapp.engine;
+
+import com.example.chessapp.MoveCodec;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Negamax alpha-beta search with iterative deepening, quiescence search,
+ * a transposition table and move ordering (hash move, MVV-LVA captures, killer moves).
+ *
+ * The tree is searched on a {@link Position} with moves as {@link MoveCodec} shorts in
+ * per-ply buffers, so a running search does not allocate; chesslib moves only appear
+ * in the {@link SearchResult}. A search leaves the position as it was given when it
+ * returns. One instance runs one search at a time; {@link #stop()} and
+ * {@link #ponderHit(SearchLimits)} may be called from any thread.
+ */
+public class Search {
+
+    public static final int MAX_DEPTH = 64;
+    public static final int MAX_PLY = 128;
+    public static final int MATE = 30000;
+    public static final int INFINITY = 32000;
+    /** Score of a tablebase win: below every mate score, above every evaluation. */
+    public static final int TB_WIN = MATE - 2 * MAX_PLY;
+
+    private static final int NODE_CHECK_INTERVAL = 2048;
+
+    private static final int SCORE_PV_MOVE = 1_000_000;
+    private static final int SCORE_CAPTURE = 100_000;
+    private static final int SCORE_KILLER = 90_000;
+
+    /**
+     * Receives the result of every completed iteration.
+     */
+    public interface Listener {
+        void onIteration(SearchResult result);
+    }
+
+    private final Evaluator evaluator;
+    private final TranspositionTable transpositionTable;
+    private SyzygyTablebase tablebase;
+    private final short[][] killers = new short[MAX_PLY][2];
+    private final short[][] pvTable = new short[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private final short[][] moveBuffers = new short[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final int[][] scoreBuffers = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    private int helperId;
+    private int multiPv = 1;
+    // Root moves skipped while searching for the second and later principal variations
+    private final short[] excludedRootMoves = new short[MoveGenerator.MAX_MOVES];
+    private int excludedRootCount;
+    private volatile boolean stopRequested;
+    private volatile boolean pondering;
+    private boolean aborted;
+    private Position position;
+    private volatile SearchLimits limits;
+    private long nodes;
+    private long tablebaseHits;
+    private long startMillis;
+    private volatile long deadlineMillis;
+
+    public Search(Evaluator evaluator, TranspositionTable transpositionTable) {
+        this.evaluator = evaluator;
+        this.transpositionTable = transpositionTable;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * Sets the endgame tablebases probed inside the tree, or null to search without them.
+     */
+    public void setTablebase(SyzygyTablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Makes this instance a Lazy SMP helper. Helper 0 is the main search and behaves
+     * deterministically; other ids start at a different depth and shuffle the order
+     * of quiet moves so the threads explore different parts of the tree.
+     */
+    public void setHelperId(int helperId) {
+        this.helperId = helperId;
+    }
+
+    /**
+     * Sets the number of principal variations searched, from the next search on. With more
+     * than one, every iteration searches the root again without the moves of the lines
+     * already found, and results carry all lines (see {@link SearchResult#getLines()}).
+     */
+    public void setMultiPv(int multiPv) {
+        this.multiPv = Math.max(1, multiPv);
+    }
+
+    /**
+     * Asks a running search to return as soon as possible with its best result so far.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * The opponent played the move a ponder search expected: from now on the search
+     * stops at the given limits, with the time limit counted from this call.
+     */
+    public void ponderHit(SearchLimits limits) {
+        this.limits = limits;
+        this.deadlineMillis = deadline(System.currentTimeMillis(), limits);
+        // Written last: shouldAbort() reads the flag first, so it sees the new limits with it
+        this.pondering = false;
+    }
+
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    private static long deadline(long fromMillis, SearchLimits limits) {
+        return limits.getMaxTimeMillis() > 0 ? fromMillis + limits.getMaxTimeMillis() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Searches the position with iterative deepening until a limit is hit or {@link #stop()} is called.
+     *
+     * @param position The position to search, with the game history for repetition detection;
+     *                 restored before returning
+     * @param limits Depth, node and time budget
+     * @param listener Notified after each completed depth, may be null
+     * @return Result of the deepest completed iteration
+     */
+    public SearchResult search(Position position, SearchLimits limits, Listener listener) {
+        return search(position, limits, listener, false);
+    }
+
+    /**
+     * Searches the position, optionally as a ponder search: one run on the opponent's time
+     * for the position after their expected move. A ponder search keeps the depth limit but
+     * ignores the node and time limits until {@link #ponderHit(SearchLimits)} turns it into
+     * a regular search, which keeps the depth and table entries it has reached so far.
+     *
+     * @param ponder True to start as a ponder search
+     */
+    public SearchResult search(Position position, SearchLimits limits, Listener listener, boolean ponder) {
+        this.position = position;
+        this.limits = limits;
+        this.stopRequested = false;
+        this.pondering = ponder;
+        this.aborted = false;
+        this.nodes = 0;
+        this.tablebaseHits = 0;
+        this.startMillis = System.currentTimeMillis();
+        this.deadlineMillis = deadline(startMillis, limits);
+        for (short[] killer : killers) {
+            killer[0] = MoveCodec.NONE;
+            killer[1] = MoveCodec.NONE;
+        }
+        // Lazy SMP helpers share the main search's table generation
+        if (helperId == 0) {
+            transpositionTable.newSearch();
+        }
+
+        // An incremental evaluator follows the position's moves while it is attached
+        evaluator.attach(position);
+        try {
+            return iterativeDeepening(listener);
+        } finally {
+            evaluator.detach(position);
+        }
+    }
+
+    private SearchResult iterativeDeepening(Listener listener) {
+        int rootMoveCount = MoveGenerator.generateLegal(position, moveBuffers[0], 0);
+        if (rootMoveCount == 0) {
+            int score = position.isInCheck() ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, 0, new ArrayList<>());
+        }
+        excludedRootCount = 0;
+        if (multiPv > 1) {
+            return iterativeDeepeningMultiPv(listener, Math.min(multiPv, rootMoveCount));
+        }
+
+        Move firstMove = MoveCodec.decode(moveBuffers[0][0]);
+        SearchResult best = new SearchResult(firstMove, 0, 0, 0, 0, singleMove(firstMove));
+        short previousBest = MoveCodec.NONE;
+
+        // Odd helpers skip the first depth so the threads are not in lockstep
+        int startDepth = 1 + (helperId % 2);
+        // The limits are read every iteration: a ponder hit may replace them
+        for (int depth = startDepth; depth <= maxDepth(); depth++) {
+            int score = negamax(depth, 0, -INFINITY, INFINITY, previousBest);
+            if (aborted && depth > startDepth) {
+                break;
+            }
+
+            if (pvLength[0] == 0) {
+                break;
+            }
+            // Once per iteration, so converting to chesslib moves here costs nothing measurable
+            List<Move> pv = new ArrayList<>(pvLength[0]);
+            for (int i = 0; i < pvLength[0]; i++) {
+                pv.add(MoveCodec.decode(pvTable[0][i]));
+            }
+            previousBest = pvTable[0][0];
+            best = new SearchResult(pv.get(0), score, depth, nodes, System.currentTimeMillis() - startMillis, pv);
+            if (listener != null) {
+                listener.onIteration(best);
+            }
+
+            // No point searching deeper once a forced mate is found, or when out of budget
+            if (aborted || Math.abs(score) >= MATE - MAX_PLY) {
+                break;
+            }
+        }
+
+        return new SearchResult(best.getBestMove(), best.getScore(), best.getDepth(), nodes,
+                System.currentTimeMillis() - startMillis, best.getPrincipalVariation());
+    }
+
+    /**
+     * Iterative deepening for several principal variations. The listener hears about every
+     * completed line, with the lines of the previous depth standing in for those not yet
+     * searched at this one.
+     */
+    private SearchResult iterativeDeepeningMultiPv(Listener listener, int lineCount) {
+        List<SearchResult> lines = new ArrayList<>(lineCount);
+        List<SearchResult> current = new ArrayList<>(lineCount);
+        short[] previousBest = new short[lineCount];
+
+        int startDepth = 1 + (helperId % 2);
+        for (int depth = startDepth; depth <= maxDepth(); depth++) {
+            current.clear();
+            excludedRootCount = 0;
+            for (int line = 0; line < lineCount; line++) {
+                int score = negamax(depth, 0, -INFINITY, INFINITY, previousBest[line]);
+                if (aborted || pvLength[0] == 0) {
+                    break;
+                }
+                List<Move> pv = new ArrayList<>(pvLength[0]);
+                for (int i = 0; i < pvLength[0]; i++) {
+                    pv.add(MoveCodec.decode(pvTable[0][i]));
+                }
+                previousBest[line] = pvTable[0][0];
+                excludedRootMoves[excludedRootCount++] = pvTable[0][0];
+                current.add(new SearchResult(pv.get(0), score, depth, nodes,
+                        System.currentTimeMillis() - startMillis, pv));
+
+                lines = mergeLines(current, lines, lineCount);
+                if (listener != null) {
+                    listener.onIteration(withLines(lines));
+                }
+            }
+            excludedRootCount = 0;
+            if (aborted) {
+                break;
+            }
+            // Excluding a move can only lower the score, but deeper searches do not guarantee the order
+            sortByScore(lines);
+            if (Math.abs(lines.get(0).getScore()) >= MATE - MAX_PLY && lines.size() == lineCount) {
+                break;
+            }
+        }
+        if (lines.isEmpty()) {
+            Move firstMove = MoveCodec.decode(moveBuffers[0][0]);
+            return new SearchResult(firstMove, 0, 0, nodes, System.currentTimeMillis() - startMillis,
+                    singleMove(firstMove));
+        }
+        return withLines(lines);
+    }
+
+    /**
+     * @return The lines of this depth, best first, followed by the previous depth's lines for other root moves
+     */
+    private static List<SearchResult> mergeLines(List<SearchResult> current, List<SearchResult> previous,
+                                                 int lineCount) {
+        List<SearchResult> merged = new ArrayList<>(current);
+        sortByScore(merged);
+        for (SearchResult line : previous) {
+            boolean replaced = false;
+            for (SearchResult searched : current) {
+                if (searched.getBestMove().equals(line.getBestMove())) {
+                    replaced = true;
+                    break;
+                }
+            }
+            if (!replaced && merged.size() < lineCount) {
+                merged.add(line);
+            }
+        }
+        return merged;
+    }
+
+    private static void sortByScore(List<SearchResult> lines) {
+        Collections.sort(lines, (a, b) -> Integer.compare(b.getScore(), a.getScore()));
+    }
+
+    private SearchResult withLines(List<SearchResult> lines) {
+        SearchResult best = lines.get(0);
+        return new SearchResult(best.getBestMove(), best.getScore(), best.getDepth(), nodes,
+                System.currentTimeMillis() - startMillis, best.getPrincipalVariation(), new ArrayList<>(lines));
+    }
+
+    private int maxDepth() {
+        int depth = limits.getMaxDepth();
+        return depth > 0 ? Math.min(depth, MAX_DEPTH) : MAX_DEPTH;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTablebaseHits() {
+        return tablebaseHits;
+    }
+
+    /**
+     * Converts a tablebase WDL value to a score. Wins and losses that the 50-move rule turns
+     * into draws score next to 0.
+     */
+    static int tablebaseScore(int wdl, int ply) {
+        if (wdl == SyzygyTablebase.WDL_WIN) return TB_WIN - ply;
+        if (wdl == SyzygyTablebase.WDL_LOSS) return -TB_WIN + ply;
+        return wdl;
+    }
+
+    /**
+     * Copies the position into a chesslib board for the tablebase prober. Only done at the rare
+     * nodes that are probed, right after a capture or pawn move with few pieces left.
+     */
+    static Board toBoard(Position position) {
+        Board board = new Board();
+        board.loadFromFen(position.toFen());
+        return board;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, short pvMove) {
+        pvLength[ply] = 0;
+        if (shouldAbort()) {
+            return 0;
+        }
+        nodes++;
+
+        if (ply > 0 && isDraw()) {
+            return 0;
+        }
+
+        boolean inCheck = position.isInCheck();
+        if (inCheck) {
+            depth++; // check extension
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiescence(alpha, beta, ply);
+        }
+
+        // Right after a capture or pawn move the tables give the exact result of the position
+        if (tablebase != null && ply > 0 && position.halfMoveClock() == 0
+                && Long.bitCount(position.occupied()) <= tablebase.getMaxPieces()) {
+            Board board = toBoard(position);
+            int wdl = tablebase.canProbe(board) ? tablebase.probeWdl(board) : SyzygyTablebase.UNKNOWN;
+            if (wdl != SyzygyTablebase.UNKNOWN) {
+                tablebaseHits++;
+                return tablebaseScore(wdl, ply);
+            }
+        }
+
+        // Incremental key, maintained by makeMove instead of rescanning the board
+        long key = position.key();
+        long entry = transpositionTable.probe(key);
+        if (entry != 0) {
+            if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+                int ttScore = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && ttScore >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && ttScore <= alpha)) {
+                    return ttScore;
+                }
+            }
+            if (pvMove == MoveCodec.NONE) {
+                pvMove = TranspositionTable.getMove(entry);
+            }
+        }
+
+        short[] moves = moveBuffers[ply];
+        int count = MoveGenerator.generateLegal(position, moves, 0);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        int[] scores = scoreBuffers[ply];
+        scoreMoves(moves, scores, count, ply, pvMove);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        short bestMove = MoveCodec.NONE;
+        for (int i = 0; i < count; i++) {
+            short move = pickNext(moves, scores, count, i);
+            if (ply == 0 && isExcludedRootMove(move)) {
+                continue;
+            }
+
+            position.makeMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha, MoveCodec.NONE);
+            position.unmakeMove();
+
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                }
+            }
+            if (alpha >= beta) {
+                if (!position.isCapture(move)) {
+                    storeKiller(ply, move);
+                }
+                break;
+            }
+        }
+
+        // A root searched without some of its moves has no score of its own to store
+        if (ply > 0 || excludedRootCount == 0) {
+            int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                    : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+            transpositionTable.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+        }
+        return bestScore;
+    }
+
+    private boolean isExcludedRootMove(short move) {
+        for (int i = 0; i < excludedRootCount; i++) {
+            if (excludedRootMoves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mate scores are stored relative to the node, not the root, so they stay valid in other paths.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score + ply;
+        if (score <= -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score - ply;
+        if (score <= -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+
+    private int quiescence(int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        if (shouldAbort()) {
+            return 0;
+        }
+        nodes++;
+
+        // The per-ply buffers end here, even for a long sequence of checks
+        if (ply >= MAX_PLY - 1) {
+            return evaluator.evaluate(position);
+        }
+
+        boolean inCheck = position.isInCheck();
+        if (!inCheck) {
+            int standPat = evaluator.evaluate(position);
+            if (standPat >= beta) {
+                return standPat;
+            }
+            if (standPat > alpha) {
+                alpha = standPat;
+            }
+        }
+
+        // Out of check every evasion is searched, otherwise only captures and promotions
+        short[] moves = moveBuffers[ply];
+        int count = MoveGenerator.generateCaptures(position, moves, 0);
+        if (count == 0) {
+            if (inCheck) {
+                return -MATE + ply;
+            }
+            // Stand pat; stalemates are left to the main search, a full move generation at
+            // every quiet leaf would cost more than the rare stalemate it finds
+            return alpha;
+        }
+
+        int[] scores = scoreBuffers[ply];
+        scoreMoves(moves, scores, count, ply, MoveCodec.NONE);
+        int bestScore = inCheck ? -INFINITY : alpha;
+
+        for (int i = 0; i < count; i++) {
+            short move = pickNext(moves, scores, count, i);
+            if (ply == 0 && isExcludedRootMove(move)) {
+                continue;
+            }
+
+            position.makeMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            position.unmakeMove();
+
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                }
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return bestScore;
+    }
+
+    private boolean isDraw() {
+        return position.halfMoveClock() >= 100
+                || position.isRepetition()
+                || position.isInsufficientMaterial();
+    }
+
+    private boolean shouldAbort() {
+        if (aborted) {
+            return true;
+        }
+        if ((nodes & (NODE_CHECK_INTERVAL - 1)) == 0) {
+            if (stopRequested
+                    || (!pondering && limits.getMaxNodes() > 0 && nodes >= limits.getMaxNodes())
+                    || (!pondering && System.currentTimeMillis() >= deadlineMillis)) {
+                aborted = true;
+            }
+        }
+        return aborted;
+    }
+
+    private void scoreMoves(short[] moves, int[] scores, int count, int ply, short pvMove) {
+        for (int i = 0; i < count; i++) {
+            short move = moves[i];
+            if (move == pvMove) {
+                scores[i] = SCORE_PV_MOVE;
+            } else if (position.isCapture(move)) {
+                // Most valuable victim, least valuable attacker; an empty target square is en passant
+                int victim = position.pieceAt(MoveCodec.getTo(move));
+                int victimValue = victim == Position.NO_PIECE ? PieceSquareTables.PAWN_VALUE : Evaluator.pieceValue(victim);
+                scores[i] = SCORE_CAPTURE + victimValue * 10
+                        - Evaluator.pieceValue(position.pieceAt(MoveCodec.getFrom(move))) / 10;
+            } else if (move == killers[ply][0]) {
+                scores[i] = SCORE_KILLER;
+            } else if (move == killers[ply][1]) {
+                scores[i] = SCORE_KILLER - 1;
+            } else if (((move >>> 12) & 0x7) != 0) {
+                scores[i] = SCORE_KILLER - 2;
+            } else if (helperId != 0) {
+                scores[i] = orderingNoise(move);
+            } else {
+                scores[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Small deterministic per-helper score for quiet moves, in 0..63.
+     */
+    private int orderingNoise(short move) {
+        int hash = (move & 0xFFF) * 0x9E3779B1 + helperId * 0x85EBCA6B;
+        hash ^= hash >>> 15;
+        hash *= 0x2C1B3C6D;
+        return (hash >>> 26) & 0x3F;
+    }
+
+    /**
+     * Selection sort step: moves the best remaining move to index i and returns it.
+     */
+    private static short pickNext(short[] moves, int[] scores, int count, int i) {
+        int bestIndex = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[bestIndex]) {
+                bestIndex = j;
+            }
+        }
+        if (bestIndex != i) {
+            short move = moves[i];
+            moves[i] = moves[bestIndex];
+            moves[bestIndex] = move;
+            int score = scores[i];
+            scores[i] = scores[bestIndex];
+            scores[bestIndex] = score;
+        }
+        return moves[i];
+    }
+
+    private void storeKiller(int ply, short move) {
+        if (move != killers[ply][0]) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    private void updatePv(int ply, short move) {
+        pvTable[ply][0] = move;
+        int childLength = ply + 1 < MAX_PLY ? pvLength[ply + 1] : 0;
+        if (childLength > 0) {
+            System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, Math.min(childLength, MAX_PLY - 1));
+        }
+        pvLength[ply] = Math.min(childLength + 1, MAX_PLY);
+    }
+
+    private static List<Move> singleMove(Move move) {
+        List<Move> pv = new ArrayList<>(1);
+        pv.add(move);
+        return pv;
+    }
+}
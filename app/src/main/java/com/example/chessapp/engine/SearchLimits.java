@@ -0,0 +1,72 @@
+package com.example.chessapp.engine;
+
+/**
+ * Compute budget of a search. The search stops at whichever limit is hit first;
+ * a limit of 0 means unlimited (depth is always capped at {@link Search#MAX_DEPTH}).
+ */
+public class SearchLimits {
+
+    /** Difficulty levels offered for "Play with Computer". */
+    public static final String[] LEVEL_NAMES = {"Easy", "Medium", "Hard"};
+
+    private static final long MIN_MOVE_TIME_MILLIS = 50;
+
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long maxTimeMillis;
+
+    public SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis) {
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxTimeMillis = maxTimeMillis;
+    }
+
+    /**
+     * Maps a difficulty level (index into {@link #LEVEL_NAMES}) to a compute budget.
+     */
+    public static SearchLimits forLevel(int level) {
+        switch (level) {
+            case 0: return new SearchLimits(2, 20_000, 300);
+            case 1: return new SearchLimits(4, 300_000, 1_500);
+            default: return new SearchLimits(0, 0, 4_000);
+        }
+    }
+
+    /**
+     * Caps the time limit to a share of the remaining clock time, so the engine cannot lose on time.
+     *
+     * @param remainingMillis Time left on the engine's clock
+     * @param incrementMillis Increment added after each move
+     */
+    public SearchLimits withClock(long remainingMillis, long incrementMillis) {
+        long budget = Math.max(MIN_MOVE_TIME_MILLIS, remainingMillis / 20 + incrementMillis * 3 / 4);
+        budget = Math.min(budget, Math.max(MIN_MOVE_TIME_MILLIS, remainingMillis / 2));
+        long time = maxTimeMillis > 0 ? Math.min(maxTimeMillis, budget) : budget;
+        return new SearchLimits(maxDepth, maxNodes, time);
+    }
+
+    public static SearchLimits infinite() {
+        return new SearchLimits(0, 0, 0);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxTimeMillis() {
+        return maxTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimits{" +
+                "maxDepth=" + maxDepth +
+                ", maxNodes=" + maxNodes +
+                ", maxTimeMillis=" + maxTimeMillis +
+                '}';
+    }
+}
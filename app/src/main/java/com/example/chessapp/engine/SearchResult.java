@@ -0,0 +1,105 @@
+package com.example.chessapp.engine;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a completed search iteration: best move, score, principal variation and statistics.
+ */
+public class SearchResult {
+
+    private final Move bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedMillis;
+    private final List<Move> principalVariation;
+    private final List<SearchResult> lines;
+
+    public SearchResult(Move bestMove, int score, int depth, long nodes, long elapsedMillis,
+                        List<Move> principalVariation) {
+        this(bestMove, score, depth, nodes, elapsedMillis, principalVariation, null);
+    }
+
+    /**
+     * @param lines All principal variations of a multi-PV search, best first, or null for just this one
+     */
+    public SearchResult(Move bestMove, int score, int depth, long nodes, long elapsedMillis,
+                        List<Move> principalVariation, List<SearchResult> lines) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+        this.principalVariation = Collections.unmodifiableList(principalVariation);
+        this.lines = lines != null ? Collections.unmodifiableList(lines) : Collections.singletonList(this);
+    }
+
+    /**
+     * @return The best move found, or null if the position has no legal moves
+     */
+    public Move getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return Score in centipawns from the side to move's point of view
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public List<Move> getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    /**
+     * @return The principal variations of a multi-PV search, best first, each with its own
+     * score and depth; a single-PV result is its only line
+     */
+    public List<SearchResult> getLines() {
+        return lines;
+    }
+
+    /**
+     * @return The expected reply to the best move, or null if the variation is too short
+     */
+    public Move getPonderMove() {
+        return principalVariation.size() > 1 ? principalVariation.get(1) : null;
+    }
+
+    public long getNodesPerSecond() {
+        return elapsedMillis > 0 ? nodes * 1000 / elapsedMillis : nodes * 1000;
+    }
+
+    public boolean isMateScore() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{" +
+                "bestMove=" + bestMove +
+                ", score=" + score +
+                ", depth=" + depth +
+                ", nodes=" + nodes +
+                ", elapsedMillis=" + elapsedMillis +
+                ", nps=" + getNodesPerSecond() +
+                ", pv=" + principalVariation +
+                '}';
+    }
+}
@@ -0,0 +1,787 @@
+package com.example.chessapp.engine;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.Square;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * One memory-mapped Syzygy file (.rtbw or .rtbz) and the indexing data needed to probe it.
+ *
+ * The file format and the index computation follow the reference probing code by
+ * Ronald de Man: a position is turned into a unique index from the squares of its
+ * pieces (after mirroring into a canonical orientation), and the value at that
+ * index is decompressed from blocks of canonical Huffman codes over a
+ * recursive-pairing grammar. Everything is read straight from the mapping; after
+ * construction an instance is immutable and safe to probe from several threads.
+ */
+final class SyzygyTable {
+
+    static final int MAX_PIECES = 7;
+
+    private static final int WDL_MAGIC = 0x5D23E871;
+    private static final int DTZ_MAGIC = 0xA50C66D7;
+
+    // Flags of a PairsData record
+    private static final int FLAG_STM = 1;
+    private static final int FLAG_MAPPED = 2;
+    private static final int FLAG_WIN_PLIES = 4;
+    private static final int FLAG_LOSS_PLIES = 8;
+    private static final int FLAG_WIDE = 16;
+    private static final int FLAG_SINGLE_VALUE = 128;
+
+    // Flags in the first byte of a file
+    private static final int HEADER_SPLIT = 1;
+    private static final int HEADER_HAS_PAWNS = 2;
+
+    // Maps a WDL value (+2) to the DTZ value map it is stored in
+    private static final int[] WDL_TO_MAP = {1, 3, 0, 2, 0};
+
+    private static final int[] MAP_PAWNS = new int[64];
+    private static final int[] MAP_B1H1H7 = new int[64];
+    private static final int[] MAP_A1D1D4 = new int[64];
+    private static final int[][] MAP_KK = new int[10][64];
+    private static final long[][] BINOMIAL = new long[MAX_PIECES][64];
+    private static final int[][] LEAD_PAWN_IDX = new int[MAX_PIECES][64];
+    private static final int[][] LEAD_PAWNS_SIZE = new int[MAX_PIECES][4];
+
+    static {
+        initIndexTables();
+    }
+
+    /**
+     * Indexing and decompression data of one sub-table (per side to move and, with pawns, per file of the leading pawn).
+     */
+    private static final class PairsData {
+        int flags;
+        int maxSymLen;
+        int minSymLen;
+        int numBlocks;
+        int sizeofBlock;
+        long span;
+        int lowestSym;          // offset of uint16 lowest symbol per length
+        int btree;              // offset of 3-byte left/right symbol pairs
+        int blockLength;        // offset of uint16 block lengths
+        int blockLengthSize;
+        int sparseIndex;        // offset of 6-byte sparse index entries
+        int sparseIndexSize;
+        int data;               // offset of the compressed blocks
+        long[] base64;
+        int[] symlen;
+        final int[] pieces = new int[MAX_PIECES];
+        final long[] groupIdx = new long[MAX_PIECES + 1];
+        final int[] groupLen = new int[MAX_PIECES + 1];
+        final int[] mapIdx = new int[4];
+    }
+
+    final String name;
+    final boolean isDtz;
+    final long key;
+    final long key2;
+    final int pieceCount;
+    final boolean hasPawns;
+    final boolean hasUniquePieces;
+    private final int[] pawnCount = new int[2];
+
+    private final ByteBuffer buffer;
+    private final PairsData[][] items = new PairsData[2][4];
+    private int dtzMap;
+
+    /**
+     * Maps and parses a table file.
+     *
+     * @param name Material signature such as "KRvK"
+     * @param file The .rtbw or .rtbz file
+     * @param isDtz Whether the file is a DTZ table
+     * @throws IOException If the file cannot be mapped or is not a valid table for the signature
+     */
+    SyzygyTable(String name, File file, boolean isDtz) throws IOException {
+        this.name = name;
+        this.isDtz = isDtz;
+
+        int[][] counts = parseSignature(name);
+        key = materialKey(counts[0], counts[1]);
+        key2 = materialKey(counts[1], counts[0]);
+        int pieces = 2;
+        boolean unique = false;
+        for (int type = 1; type <= 5; type++) {
+            pieces += counts[0][type] + counts[1][type];
+            unique |= counts[0][type] == 1 || counts[1][type] == 1;
+        }
+        pieceCount = pieces;
+        hasUniquePieces = unique;
+        int whitePawns = counts[0][1];
+        int blackPawns = counts[1][1];
+        hasPawns = whitePawns + blackPawns > 0;
+        // The leading color is the one with fewer pawns, it compresses better
+        boolean whiteLeads = blackPawns == 0 || (whitePawns > 0 && blackPawns >= whitePawns);
+        pawnCount[0] = whiteLeads ? whitePawns : blackPawns;
+        pawnCount[1] = whiteLeads ? blackPawns : whitePawns;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size % 64 != 16 || size > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt or unsupported tablebase file " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.getInt(0) != (isDtz ? DTZ_MAGIC : WDL_MAGIC)) {
+            throw new IOException("Bad magic in tablebase file " + file);
+        }
+        parse();
+    }
+
+    /**
+     * Parses "KQRvKN" into piece counts per color, indexed by type (1 = pawn ... 5 = queen).
+     */
+    static int[][] parseSignature(String signature) {
+        int split = signature.indexOf('v');
+        if (split < 1 || signature.charAt(0) != 'K' || signature.charAt(split + 1) != 'K') {
+            throw new IllegalArgumentException("Not a tablebase signature: " + signature);
+        }
+        int[][] counts = new int[2][6];
+        for (int i = 1; i < signature.length(); i++) {
+            if (i == split || i == split + 1) {
+                continue;
+            }
+            int type = " PNBRQ".indexOf(signature.charAt(i));
+            if (type < 1) {
+                throw new IllegalArgumentException("Not a tablebase signature: " + signature);
+            }
+            counts[i < split ? 0 : 1][type]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Packs piece counts (indexed 1..5 for pawn..queen) into a key. Kings are implied.
+     */
+    static long materialKey(int[] white, int[] black) {
+        long key = 0;
+        for (int type = 1; type <= 5; type++) {
+            key |= (long) white[type] << (4 * (type - 1));
+            key |= (long) black[type] << (20 + 4 * (type - 1));
+        }
+        return key;
+    }
+
+    /**
+     * Probes the table for the board's position.
+     *
+     * @param materialKey Key of the board's material, {@link #key} or {@link #key2}
+     * @param wdl For DTZ tables, the WDL value of the position
+     * @param state Set to {@link SyzygyTablebase#STATE_CHANGE_STM} if a DTZ table only stores the other side to move
+     * @return The WDL value (-2..2), or the DTZ value in plies
+     */
+    int probe(Board board, long materialKey, int wdl, SyzygyTablebase.ProbeState state) {
+        int[] squares = new int[MAX_PIECES];
+        int[] pieces = new int[MAX_PIECES];
+        int size = 0;
+        int leadPawnsCnt = 0;
+        long leadPawns = 0;
+        int tbFile = 0;
+        boolean blackToMove = board.getSideToMove() == Side.BLACK;
+
+        // Symmetric tables only store white to move, and tables are stored with the stronger
+        // side as white: in both other cases swap the colors and flip the board vertically
+        boolean symmetricBlackToMove = key == key2 && blackToMove;
+        boolean blackStronger = materialKey != key;
+        boolean flip = symmetricBlackToMove || blackStronger;
+        int flipColor = flip ? 8 : 0;
+        int flipSquares = flip ? 56 : 0;
+        int stm = (flip ? 1 : 0) ^ (blackToMove ? 1 : 0);
+
+        if (hasPawns) {
+            // Pawns of the leading color come first; the lead pawn is the one with the highest MAP_PAWNS
+            int leadPiece = items[0][0].pieces[0] ^ flipColor;
+            leadPawns = board.getBitboard(leadPiece < 8 ? Piece.WHITE_PAWN : Piece.BLACK_PAWN);
+            for (long b = leadPawns; b != 0; b &= b - 1) {
+                squares[size++] = Long.numberOfTrailingZeros(b) ^ flipSquares;
+            }
+            leadPawnsCnt = size;
+
+            int lead = 0;
+            for (int i = 1; i < leadPawnsCnt; i++) {
+                if (MAP_PAWNS[squares[i]] > MAP_PAWNS[squares[lead]]) {
+                    lead = i;
+                }
+            }
+            swap(squares, 0, lead);
+            tbFile = squares[0] & 7;
+            if (tbFile > 3) {
+                tbFile = (squares[0] ^ 7) & 7;
+            }
+        }
+
+        if (isDtz && !checkDtzStm(stm, tbFile)) {
+            state.value = SyzygyTablebase.STATE_CHANGE_STM;
+            return 0;
+        }
+
+        for (long b = board.getBitboard() ^ leadPawns; b != 0; b &= b - 1) {
+            int sq = Long.numberOfTrailingZeros(b);
+            squares[size] = sq ^ flipSquares;
+            pieces[size++] = pieceCode(board.getPiece(Square.squareAt(sq))) ^ flipColor;
+        }
+
+        PairsData d = get(stm, tbFile);
+
+        // Reorder the pieces into the sequence the table was encoded with
+        for (int i = leadPawnsCnt; i < size - 1; i++) {
+            for (int j = i + 1; j < size; j++) {
+                if (d.pieces[i] == pieces[j]) {
+                    swap(pieces, i, j);
+                    swap(squares, i, j);
+                    break;
+                }
+            }
+        }
+
+        // Mirror horizontally so the lead piece is on files a-d
+        if ((squares[0] & 7) > 3) {
+            for (int i = 0; i < size; i++) {
+                squares[i] ^= 7;
+            }
+        }
+
+        long idx;
+        if (hasPawns) {
+            idx = LEAD_PAWN_IDX[leadPawnsCnt][squares[0]];
+            sortByMapPawns(squares, 1, leadPawnsCnt);
+            for (int i = 1; i < leadPawnsCnt; i++) {
+                idx += BINOMIAL[i][MAP_PAWNS[squares[i]]];
+            }
+        } else {
+            // Mirror vertically so the lead piece is on ranks 1-4
+            if ((squares[0] >>> 3) > 3) {
+                for (int i = 0; i < size; i++) {
+                    squares[i] ^= 56;
+                }
+            }
+            // Mirror along the a1-h8 diagonal so the first leading piece off it is below it
+            for (int i = 0; i < d.groupLen[0]; i++) {
+                int off = offA1H8(squares[i]);
+                if (off == 0) {
+                    continue;
+                }
+                if (off > 0) {
+                    for (int j = i; j < size; j++) {
+                        squares[j] = ((squares[j] >>> 3) | (squares[j] << 3)) & 63;
+                    }
+                }
+                break;
+            }
+            idx = hasUniquePieces ? encodeUniqueLead(squares) : MAP_KK[MAP_A1D1D4[squares[0]]][squares[1]];
+        }
+
+        idx *= d.groupIdx[0];
+        int groupStart = d.groupLen[0];
+        boolean remainingPawns = hasPawns && pawnCount[1] != 0;
+        for (int next = 1; d.groupLen[next] != 0; next++) {
+            int len = d.groupLen[next];
+            Arrays.sort(squares, groupStart, groupStart + len);
+            long n = 0;
+            // A square is shifted down once for every square of an earlier group below it
+            for (int i = 0; i < len; i++) {
+                int sq = squares[groupStart + i];
+                int adjust = 0;
+                for (int j = 0; j < groupStart; j++) {
+                    if (sq > squares[j]) {
+                        adjust++;
+                    }
+                }
+                n += BINOMIAL[i + 1][sq - adjust - (remainingPawns ? 8 : 0)];
+            }
+            remainingPawns = false;
+            idx += n * d.groupIdx[next];
+            groupStart += len;
+        }
+
+        return mapScore(tbFile, decompressPairs(d, idx), wdl);
+    }
+
+    /**
+     * Index of the three leading pieces when the table has unique pieces besides the kings.
+     */
+    private static long encodeUniqueLead(int[] squares) {
+        int adjust1 = squares[1] > squares[0] ? 1 : 0;
+        int adjust2 = (squares[2] > squares[0] ? 1 : 0) + (squares[2] > squares[1] ? 1 : 0);
+
+        if (offA1H8(squares[0]) != 0) {
+            return ((long) MAP_A1D1D4[squares[0]] * 63 + (squares[1] - adjust1)) * 62 + squares[2] - adjust2;
+        }
+        if (offA1H8(squares[1]) != 0) {
+            return (6L * 63 + (squares[0] >>> 3) * 28 + MAP_B1H1H7[squares[1]]) * 62 + squares[2] - adjust2;
+        }
+        if (offA1H8(squares[2]) != 0) {
+            return 6L * 63 * 62 + 4 * 28 * 62
+                    + (squares[0] >>> 3) * 7 * 28
+                    + ((squares[1] >>> 3) - adjust1) * 28
+                    + MAP_B1H1H7[squares[2]];
+        }
+        return 6L * 63 * 62 + 4 * 28 * 62 + 4 * 7 * 28
+                + (squares[0] >>> 3) * 7 * 6
+                + ((squares[1] >>> 3) - adjust1) * 6
+                + ((squares[2] >>> 3) - adjust2);
+    }
+
+    private PairsData get(int stm, int file) {
+        return items[isDtz ? 0 : stm][hasPawns ? file : 0];
+    }
+
+    private boolean checkDtzStm(int stm, int file) {
+        return (get(stm, file).flags & FLAG_STM) == stm || (key == key2 && !hasPawns);
+    }
+
+    /**
+     * Turns a stored value into a WDL value, or into a DTZ in plies using the table's value maps.
+     */
+    private int mapScore(int file, int value, int wdl) {
+        if (!isDtz) {
+            return value - 2;
+        }
+        PairsData d = get(0, file);
+        int flags = d.flags;
+        if ((flags & FLAG_MAPPED) != 0) {
+            int index = d.mapIdx[WDL_TO_MAP[wdl + 2]] + value;
+            value = (flags & FLAG_WIDE) != 0
+                    ? buffer.getShort(dtzMap + 2 * index) & 0xFFFF
+                    : buffer.get(dtzMap + index) & 0xFF;
+        }
+        // Tables may store distances in moves rather than plies
+        if ((wdl == SyzygyTablebase.WDL_WIN && (flags & FLAG_WIN_PLIES) == 0)
+                || (wdl == SyzygyTablebase.WDL_LOSS && (flags & FLAG_LOSS_PLIES) == 0)
+                || wdl == SyzygyTablebase.WDL_CURSED_WIN
+                || wdl == SyzygyTablebase.WDL_BLESSED_LOSS) {
+            value *= 2;
+        }
+        return value + 1;
+    }
+
+    /**
+     * Finds the value stored at an index: locate the block through the sparse index,
+     * walk the Huffman-coded symbols of the block, then expand the pair grammar.
+     */
+    private int decompressPairs(PairsData d, long idx) {
+        if ((d.flags & FLAG_SINGLE_VALUE) != 0) {
+            return d.minSymLen;
+        }
+
+        // Sparse index entry k points at the value with index k * span + span / 2
+        int k = (int) (idx / d.span);
+        int block = buffer.getInt(d.sparseIndex + 6 * k);
+        int offset = buffer.getShort(d.sparseIndex + 6 * k + 4) & 0xFFFF;
+        offset += (int) (idx % d.span - d.span / 2);
+
+        while (offset < 0) {
+            offset += blockLength(d, --block) + 1;
+        }
+        while (offset > blockLength(d, block)) {
+            offset -= blockLength(d, block++) + 1;
+        }
+
+        int ptr = d.data + block * d.sizeofBlock;
+        long buf64 = Long.reverseBytes(buffer.getLong(ptr));
+        ptr += 8;
+        int buf64Size = 64;
+        int sym;
+
+        while (true) {
+            // Longer codes have lower values, so the length is found by comparing against base64
+            int len = 0;
+            while (Long.compareUnsigned(buf64, d.base64[len]) < 0) {
+                len++;
+            }
+            sym = (int) ((buf64 - d.base64[len]) >>> (64 - len - d.minSymLen));
+            sym = (sym + (buffer.getShort(d.lowestSym + 2 * len) & 0xFFFF)) & 0xFFFF;
+
+            if (offset < d.symlen[sym] + 1) {
+                break;
+            }
+            offset -= d.symlen[sym] + 1;
+            len += d.minSymLen;
+            buf64 <<= len;
+            buf64Size -= len;
+            if (buf64Size <= 32) {
+                buf64Size += 32;
+                buf64 |= (Integer.reverseBytes(buffer.getInt(ptr)) & 0xFFFFFFFFL) << (64 - buf64Size);
+                ptr += 4;
+            }
+        }
+
+        // Each symbol expands to a left and a right symbol until a single value is reached
+        while (d.symlen[sym] != 0) {
+            int left = btreeLeft(d, sym);
+            if (offset < d.symlen[left] + 1) {
+                sym = left;
+            } else {
+                offset -= d.symlen[left] + 1;
+                sym = btreeRight(d, sym);
+            }
+        }
+        return btreeLeft(d, sym);
+    }
+
+    private int blockLength(PairsData d, int block) {
+        return buffer.getShort(d.blockLength + 2 * block) & 0xFFFF;
+    }
+
+    private int btreeLeft(PairsData d, int sym) {
+        int base = d.btree + 3 * sym;
+        return ((buffer.get(base + 1) & 0xF) << 8) | (buffer.get(base) & 0xFF);
+    }
+
+    private int btreeRight(PairsData d, int sym) {
+        int base = d.btree + 3 * sym;
+        return ((buffer.get(base + 2) & 0xFF) << 4) | ((buffer.get(base + 1) & 0xFF) >>> 4);
+    }
+
+    private int u8(int offset) {
+        return buffer.get(offset) & 0xFF;
+    }
+
+    private int u16(int offset) {
+        return buffer.getShort(offset) & 0xFFFF;
+    }
+
+    /**
+     * Reads the header, then the per-sub-table sizes, value maps, sparse indices,
+     * block lengths and compressed data, which are laid out in that order.
+     */
+    private void parse() throws IOException {
+        int data = 4; // after the magic
+        int header = u8(data++);
+        if (((header & HEADER_HAS_PAWNS) != 0) != hasPawns || ((header & HEADER_SPLIT) != 0) != (key != key2)) {
+            throw new IOException("Tablebase file does not match " + name);
+        }
+
+        int sides = !isDtz && key != key2 ? 2 : 1;
+        int maxFile = hasPawns ? 3 : 0;
+        boolean bothSidesHavePawns = hasPawns && pawnCount[1] != 0;
+
+        for (int f = 0; f <= maxFile; f++) {
+            for (int i = 0; i < sides; i++) {
+                items[i][f] = new PairsData();
+            }
+            int order0 = u8(data);
+            int order1 = bothSidesHavePawns ? u8(data + 1) : 0xFF;
+            int[][] order = {
+                    {order0 & 0xF, bothSidesHavePawns ? order1 & 0xF : 0xF},
+                    {order0 >>> 4, bothSidesHavePawns ? order1 >>> 4 : 0xF}
+            };
+            data += bothSidesHavePawns ? 2 : 1;
+
+            for (int k = 0; k < pieceCount; k++, data++) {
+                for (int i = 0; i < sides; i++) {
+                    items[i][f].pieces[k] = i != 0 ? u8(data) >>> 4 : u8(data) & 0xF;
+                }
+            }
+            for (int i = 0; i < sides; i++) {
+                setGroups(items[i][f], order[i], f);
+            }
+        }
+
+        data += data & 1;
+
+        for (int f = 0; f <= maxFile; f++) {
+            for (int i = 0; i < sides; i++) {
+                data = setSizes(items[i][f], data);
+            }
+        }
+
+        if (isDtz) {
+            data = setDtzMap(data, maxFile);
+        }
+
+        for (int f = 0; f <= maxFile; f++) {
+            for (int i = 0; i < sides; i++) {
+                items[i][f].sparseIndex = data;
+                data += items[i][f].sparseIndexSize * 6;
+            }
+        }
+        for (int f = 0; f <= maxFile; f++) {
+            for (int i = 0; i < sides; i++) {
+                items[i][f].blockLength = data;
+                data += items[i][f].blockLengthSize * 2;
+            }
+        }
+        for (int f = 0; f <= maxFile; f++) {
+            for (int i = 0; i < sides; i++) {
+                data = (data + 0x3F) & ~0x3F; // blocks are cache-line aligned
+                items[i][f].data = data;
+                data += items[i][f].numBlocks * items[i][f].sizeofBlock;
+            }
+        }
+    }
+
+    /**
+     * Splits the piece sequence into groups encoded together (pieces of the same type and color,
+     * except the leading group) and computes each group's multiplier in the final index.
+     */
+    private void setGroups(PairsData d, int[] order, int file) {
+        int n = 0;
+        int firstLen = hasPawns ? 0 : hasUniquePieces ? 3 : 2;
+        d.groupLen[n] = 1;
+        for (int i = 1; i < pieceCount; i++) {
+            if (--firstLen > 0 || d.pieces[i] == d.pieces[i - 1]) {
+                d.groupLen[n]++;
+            } else {
+                d.groupLen[++n] = 1;
+            }
+        }
+        d.groupLen[++n] = 0;
+
+        boolean bothSidesHavePawns = hasPawns && pawnCount[1] != 0;
+        int next = bothSidesHavePawns ? 2 : 1;
+        int freeSquares = 64 - d.groupLen[0] - (bothSidesHavePawns ? d.groupLen[1] : 0);
+        long idx = 1;
+
+        for (int k = 0; next < n || k == order[0] || k == order[1]; k++) {
+            if (k == order[0]) {
+                d.groupIdx[0] = idx;
+                idx *= hasPawns ? LEAD_PAWNS_SIZE[d.groupLen[0]][file] : hasUniquePieces ? 31332 : 462;
+            } else if (k == order[1]) {
+                d.groupIdx[1] = idx;
+                idx *= BINOMIAL[d.groupLen[1]][48 - d.groupLen[0]];
+            } else {
+                d.groupIdx[next] = idx;
+                idx *= BINOMIAL[d.groupLen[next]][freeSquares];
+                freeSquares -= d.groupLen[next++];
+            }
+        }
+        d.groupIdx[n] = idx;
+    }
+
+    private int setSizes(PairsData d, int data) {
+        d.flags = u8(data++);
+        if ((d.flags & FLAG_SINGLE_VALUE) != 0) {
+            d.numBlocks = 0;
+            d.span = 0;
+            d.sparseIndexSize = 0;
+            d.minSymLen = u8(data++); // the single value
+            return data;
+        }
+
+        int groups = 0;
+        while (d.groupLen[groups] != 0) {
+            groups++;
+        }
+        long tableSize = d.groupIdx[groups];
+
+        d.sizeofBlock = 1 << u8(data++);
+        d.span = 1L << u8(data++);
+        d.sparseIndexSize = (int) ((tableSize + d.span - 1) / d.span);
+        int padding = u8(data++);
+        d.numBlocks = buffer.getInt(data);
+        data += 4;
+        // Padded so the sparse index never points past the end
+        d.blockLengthSize = d.numBlocks + padding;
+        d.maxSymLen = u8(data++);
+        d.minSymLen = u8(data++);
+        d.lowestSym = data;
+
+        // base64[l] is the lowest code of length l + minSymLen, left-aligned in 64 bits
+        int lengths = d.maxSymLen - d.minSymLen + 1;
+        d.base64 = new long[lengths];
+        for (int i = lengths - 2; i >= 0; i--) {
+            d.base64[i] = (d.base64[i + 1] + u16(d.lowestSym + 2 * i) - u16(d.lowestSym + 2 * (i + 1))) / 2;
+        }
+        for (int i = 0; i < lengths; i++) {
+            d.base64[i] <<= 64 - i - d.minSymLen;
+        }
+        data += lengths * 2;
+
+        int symbols = u16(data);
+        data += 2;
+        d.symlen = new int[symbols];
+        d.btree = data;
+        boolean[] visited = new boolean[symbols];
+        for (int sym = 0; sym < symbols; sym++) {
+            if (!visited[sym]) {
+                d.symlen[sym] = computeSymlen(d, sym, visited);
+            }
+        }
+        return data + symbols * 3 + (symbols & 1);
+    }
+
+    /**
+     * @return Number of values, minus one, that a symbol expands to
+     */
+    private int computeSymlen(PairsData d, int sym, boolean[] visited) {
+        visited[sym] = true;
+        int right = btreeRight(d, sym);
+        if (right == 0xFFF) {
+            return 0;
+        }
+        int left = btreeLeft(d, sym);
+        if (!visited[left]) {
+            d.symlen[left] = computeSymlen(d, left, visited);
+        }
+        if (!visited[right]) {
+            d.symlen[right] = computeSymlen(d, right, visited);
+        }
+        return d.symlen[left] + d.symlen[right] + 1;
+    }
+
+    /**
+     * DTZ values are stored as ranks by frequency; the maps that restore them follow the sizes.
+     */
+    private int setDtzMap(int data, int maxFile) {
+        dtzMap = data;
+        for (int f = 0; f <= maxFile; f++) {
+            PairsData d = items[0][f];
+            if ((d.flags & FLAG_MAPPED) == 0) {
+                continue;
+            }
+            if ((d.flags & FLAG_WIDE) != 0) {
+                data += data & 1;
+                for (int i = 0; i < 4; i++) {
+                    d.mapIdx[i] = (data - dtzMap) / 2 + 1;
+                    data += 2 * u16(data) + 2;
+                }
+            } else {
+                for (int i = 0; i < 4; i++) {
+                    d.mapIdx[i] = data - dtzMap + 1;
+                    data += u8(data) + 1;
+                }
+            }
+        }
+        return data + (data & 1);
+    }
+
+    /**
+     * Syzygy piece code: 1..6 for white pawn..king, 9..14 for black.
+     */
+    static int pieceCode(Piece piece) {
+        int type;
+        switch (piece.getPieceType()) {
+            case PAWN: type = 1; break;
+            case KNIGHT: type = 2; break;
+            case BISHOP: type = 3; break;
+            case ROOK: type = 4; break;
+            case QUEEN: type = 5; break;
+            default: type = 6; break;
+        }
+        return piece.getPieceSide() == Side.WHITE ? type : type + 8;
+    }
+
+    private static int offA1H8(int sq) {
+        return (sq >>> 3) - (sq & 7);
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    /**
+     * Stable insertion sort of squares[from..to) by ascending MAP_PAWNS.
+     */
+    private static void sortByMapPawns(int[] squares, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int sq = squares[i];
+            int j = i - 1;
+            while (j >= from && MAP_PAWNS[squares[j]] > MAP_PAWNS[sq]) {
+                squares[j + 1] = squares[j];
+                j--;
+            }
+            squares[j + 1] = sq;
+        }
+    }
+
+    private static void initIndexTables() {
+        // Squares below the a1-h8 diagonal, numbered 0..27
+        int code = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            if (offA1H8(sq) < 0) {
+                MAP_B1H1H7[sq] = code++;
+            }
+        }
+
+        // The a1-d1-d4 triangle: squares below the diagonal 0..5, diagonal squares 6..9
+        code = 0;
+        int[] diagonal = new int[4];
+        int diagonalCount = 0;
+        for (int sq = 0; sq <= 27; sq++) {
+            if ((sq & 7) > 3) {
+                continue;
+            }
+            if (offA1H8(sq) < 0) {
+                MAP_A1D1D4[sq] = code++;
+            } else if (offA1H8(sq) == 0) {
+                diagonal[diagonalCount++] = sq;
+            }
+        }
+        for (int i = 0; i < diagonalCount; i++) {
+            MAP_A1D1D4[diagonal[i]] = code++;
+        }
+
+        // The 462 legal placements of two kings with the first in the a1-d1-d4 triangle;
+        // placements with both kings on the diagonal come last
+        code = 0;
+        int[][] bothOnDiagonal = new int[64][2];
+        int bothCount = 0;
+        for (int idx = 0; idx < 10; idx++) {
+            for (int s1 = 0; s1 <= 27; s1++) {
+                boolean inTriangle = (s1 & 7) <= 3 && offA1H8(s1) <= 0;
+                if (!inTriangle || MAP_A1D1D4[s1] != idx) {
+                    continue;
+                }
+                for (int s2 = 0; s2 < 64; s2++) {
+                    if (Math.abs((s1 & 7) - (s2 & 7)) <= 1 && Math.abs((s1 >>> 3) - (s2 >>> 3)) <= 1) {
+                        continue; // same or adjacent squares
+                    }
+                    if (offA1H8(s1) == 0 && offA1H8(s2) > 0) {
+                        continue; // first on the diagonal, second above it
+                    }
+                    if (offA1H8(s1) == 0 && offA1H8(s2) == 0) {
+                        bothOnDiagonal[bothCount][0] = idx;
+                        bothOnDiagonal[bothCount++][1] = s2;
+                    } else {
+                        MAP_KK[idx][s2] = code++;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < bothCount; i++) {
+            MAP_KK[bothOnDiagonal[i][0]][bothOnDiagonal[i][1]] = code++;
+        }
+
+        // BINOMIAL[k][n]: ways to choose k of n
+        BINOMIAL[0][0] = 1;
+        for (int n = 1; n < 64; n++) {
+            for (int k = 0; k < MAX_PIECES && k <= n; k++) {
+                BINOMIAL[k][n] = (k > 0 ? BINOMIAL[k - 1][n - 1] : 0) + (k < n ? BINOMIAL[k][n - 1] : 0);
+            }
+        }
+
+        // MAP_PAWNS numbers a2-h7 from the edges inwards and from rank 2 up; the pawn with
+        // the highest value is the leading one. Lead pawn indices restart for every file.
+        int availableSquares = 47;
+        for (int leadPawnsCnt = 1; leadPawnsCnt < MAX_PIECES - 1; leadPawnsCnt++) {
+            for (int file = 0; file < 4; file++) {
+                int idx = 0;
+                for (int rank = 1; rank <= 6; rank++) {
+                    int sq = rank * 8 + file;
+                    if (leadPawnsCnt == 1) {
+                        MAP_PAWNS[sq] = availableSquares--;
+                        MAP_PAWNS[sq ^ 7] = availableSquares--;
+                    }
+                    LEAD_PAWN_IDX[leadPawnsCnt][sq] = idx;
+                    idx += (int) BINOMIAL[leadPawnsCnt - 1][MAP_PAWNS[sq]];
+                }
+                LEAD_PAWNS_SIZE[leadPawnsCnt][file] = idx;
+            }
+        }
+    }
+}
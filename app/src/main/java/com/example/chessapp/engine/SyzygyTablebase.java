@@ -0,0 +1,381 @@
+package com.example.chessapp.engine;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.CastleRight;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Syzygy endgame tablebases read from a local directory.
+ *
+ * At construction only the file names are listed. A table is memory-mapped and
+ * parsed the first time a position with its material is probed, and at most
+ * {@code maxOpenTables} mappings are kept in a least-recently-used cache. An
+ * evicted mapping is released by the garbage collector once no probe still uses
+ * it, so eviction never has to wait for running probes.
+ *
+ * WDL values are from the side to move's point of view. DTZ values count plies
+ * to the next capture or pawn move (positive when winning), and are only exact
+ * when they do not exceed the 50-move rule.
+ */
+public class SyzygyTablebase {
+
+    public static final int WDL_LOSS = -2;
+    public static final int WDL_BLESSED_LOSS = -1; // lost, but drawn by the 50-move rule
+    public static final int WDL_DRAW = 0;
+    public static final int WDL_CURSED_WIN = 1;    // won, but drawn by the 50-move rule
+    public static final int WDL_WIN = 2;
+
+    /** Returned by the probe methods when the position is not covered by the available tables. */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    public static final int DEFAULT_MAX_OPEN_TABLES = 32;
+
+    static final int STATE_FAIL = 0;
+    static final int STATE_OK = 1;
+    static final int STATE_CHANGE_STM = -1;        // DTZ table stores the other side to move
+    static final int STATE_ZEROING_BEST_MOVE = 2;  // best move is a capture or pawn move
+
+    private static final String WDL_SUFFIX = ".rtbw";
+    private static final String DTZ_SUFFIX = ".rtbz";
+    private static final int MAX_DTZ = 1 << 18;
+
+    /**
+     * Outcome of the probe currently in progress, threaded through the recursive helpers.
+     */
+    static final class ProbeState {
+        int value = STATE_OK;
+    }
+
+    private final File directory;
+    private final Map<Long, String> signatures = new HashMap<>();
+    private final Set<String> unavailableFiles = new HashSet<>();
+    private final LinkedHashMap<String, SyzygyTable> openTables;
+    private final int maxPieces;
+
+    /**
+     * Lists the tables in a directory. Nothing is mapped until the first probe.
+     *
+     * @param directory Directory holding .rtbw (and optionally .rtbz) files
+     * @param maxOpenTables Maximum number of files kept mapped at the same time
+     */
+    public SyzygyTablebase(File directory, final int maxOpenTables) {
+        this.directory = directory;
+        this.openTables = new LinkedHashMap<String, SyzygyTable>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SyzygyTable> eldest) {
+                return size() > Math.max(1, maxOpenTables);
+            }
+        };
+
+        int pieces = 0;
+        String[] names = directory.list();
+        if (names != null) {
+            for (String fileName : names) {
+                if (!fileName.endsWith(WDL_SUFFIX)) {
+                    continue;
+                }
+                String signature = fileName.substring(0, fileName.length() - WDL_SUFFIX.length());
+                int[][] counts;
+                try {
+                    counts = SyzygyTable.parseSignature(signature);
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                int count = 2;
+                for (int type = 1; type <= 5; type++) {
+                    count += counts[0][type] + counts[1][type];
+                }
+                if (count > SyzygyTable.MAX_PIECES) {
+                    continue;
+                }
+                // Both color assignments of the material use the same file
+                signatures.put(SyzygyTable.materialKey(counts[0], counts[1]), signature);
+                signatures.put(SyzygyTable.materialKey(counts[1], counts[0]), signature);
+                pieces = Math.max(pieces, count);
+            }
+        }
+        maxPieces = pieces;
+    }
+
+    /**
+     * @return Largest number of pieces, kings included, of any available table, or 0 if there are none
+     */
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Cheap check that a position may be in the tables: few enough pieces and no castling rights.
+     */
+    public boolean canProbe(Board board) {
+        return Long.bitCount(board.getBitboard()) <= maxPieces
+                && board.getCastleRight(Side.WHITE) == CastleRight.NONE
+                && board.getCastleRight(Side.BLACK) == CastleRight.NONE;
+    }
+
+    /**
+     * @return One of the WDL_ constants for the side to move, or {@link #UNKNOWN}
+     */
+    public int probeWdl(Board board) {
+        if (!canProbe(board)) {
+            return UNKNOWN;
+        }
+        ProbeState state = new ProbeState();
+        int wdl = search(board, false, state);
+        return state.value == STATE_FAIL ? UNKNOWN : wdl;
+    }
+
+    /**
+     * @return Plies to the next zeroing move with optimal play, signed like the WDL value
+     *         (0 for draws), or {@link #UNKNOWN}
+     */
+    public int probeDtz(Board board) {
+        if (!canProbe(board)) {
+            return UNKNOWN;
+        }
+        ProbeState state = new ProbeState();
+        int dtz = probeDtz(board, state);
+        return state.value == STATE_FAIL ? UNKNOWN : dtz;
+    }
+
+    /**
+     * Picks the move that wins fastest (or loses slowest) by DTZ, respecting the 50-move rule.
+     *
+     * @return The move, or null if the position is drawn or not covered by the tables
+     */
+    public Move probeRootMove(Board board) {
+        if (!canProbe(board)) {
+            return null;
+        }
+        int rule50 = board.getHalfMoveCounter();
+        ProbeState state = new ProbeState();
+        Move bestMove = null;
+        int bestRank = Integer.MIN_VALUE;
+
+        for (Move move : board.legalMoves()) {
+            board.doMove(move);
+            int dtz;
+            if (board.getHalfMoveCounter() == 0) {
+                dtz = dtzBeforeZeroing(-search(board, false, state));
+            } else {
+                dtz = -probeDtz(board, state);
+                dtz = dtz > 0 ? dtz + 1 : dtz < 0 ? dtz - 1 : 0;
+            }
+            // A mating move is always the quickest win
+            if (dtz == 2 && board.isKingAttacked() && board.legalMoves().isEmpty()) {
+                dtz = 1;
+            }
+            board.undoMove();
+            if (state.value == STATE_FAIL) {
+                return null;
+            }
+
+            // Wins inside the 50-move rule first and the shortest of them; losses last and the longest
+            int rank;
+            if (dtz > 0) {
+                rank = dtz + rule50 <= 99 ? 2 * MAX_DTZ - dtz : MAX_DTZ - (dtz + rule50);
+            } else if (dtz < 0) {
+                rank = -MAX_DTZ + (-dtz + rule50);
+            } else {
+                rank = 0;
+            }
+            if (rank > bestRank) {
+                bestRank = rank;
+                bestMove = move;
+            }
+        }
+        return bestRank != 0 ? bestMove : null;
+    }
+
+    /**
+     * Drops all mappings. They are reopened on demand.
+     */
+    public synchronized void close() {
+        openTables.clear();
+    }
+
+    /**
+     * WDL of the position, resolving captures first: tables may store "don't care" values
+     * for positions where a capture is best. With zeroingMoves, pawn moves are resolved too,
+     * as DTZ tables do not store positions where a zeroing move is best.
+     */
+    private int search(Board board, boolean zeroingMoves, ProbeState state) {
+        int bestValue = WDL_LOSS;
+        List<Move> moves = board.legalMoves();
+        int moveCount = 0;
+
+        for (Move move : moves) {
+            boolean capture = isCapture(board, move);
+            if (!capture && (!zeroingMoves || board.getPiece(move.getFrom()).getPieceType() != PieceType.PAWN)) {
+                continue;
+            }
+            moveCount++;
+
+            board.doMove(move);
+            int value = -search(board, false, state);
+            board.undoMove();
+            if (state.value == STATE_FAIL) {
+                return WDL_DRAW;
+            }
+            if (value > bestValue) {
+                bestValue = value;
+                if (value >= WDL_WIN) {
+                    state.value = STATE_ZEROING_BEST_MOVE;
+                    return value;
+                }
+            }
+        }
+
+        // With every legal move already searched the stored value could be wrong (en passant, for one)
+        boolean noMoreMoves = moveCount > 0 && moveCount == moves.size();
+        int value;
+        if (noMoreMoves) {
+            value = bestValue;
+        } else {
+            value = probeTable(board, false, WDL_DRAW, state);
+            if (state.value == STATE_FAIL) {
+                return WDL_DRAW;
+            }
+        }
+
+        if (bestValue >= value) {
+            state.value = bestValue > WDL_DRAW || noMoreMoves ? STATE_ZEROING_BEST_MOVE : STATE_OK;
+            return bestValue;
+        }
+        state.value = STATE_OK;
+        return value;
+    }
+
+    private int probeDtz(Board board, ProbeState state) {
+        state.value = STATE_OK;
+        int wdl = search(board, true, state);
+        if (state.value == STATE_FAIL || wdl == WDL_DRAW) {
+            return 0;
+        }
+        if (state.value == STATE_ZEROING_BEST_MOVE) {
+            return dtzBeforeZeroing(wdl);
+        }
+
+        int dtz = probeTable(board, true, wdl, state);
+        if (state.value == STATE_FAIL) {
+            return 0;
+        }
+        if (state.value != STATE_CHANGE_STM) {
+            boolean cursed = wdl == WDL_BLESSED_LOSS || wdl == WDL_CURSED_WIN;
+            return (dtz + (cursed ? 100 : 0)) * Integer.signum(wdl);
+        }
+
+        // The table stores the other side to move: take the best reply one ply deeper
+        int minDtz = 0xFFFF;
+        for (Move move : board.legalMoves()) {
+            boolean zeroing = isCapture(board, move)
+                    || board.getPiece(move.getFrom()).getPieceType() == PieceType.PAWN;
+            board.doMove(move);
+            dtz = zeroing ? -dtzBeforeZeroing(search(board, false, state)) : -probeDtz(board, state);
+            if (dtz == 1 && board.isKingAttacked() && board.legalMoves().isEmpty()) {
+                minDtz = 1;
+            }
+            if (!zeroing) {
+                dtz += Integer.signum(dtz);
+            }
+            if (dtz < minDtz && Integer.signum(dtz) == Integer.signum(wdl)) {
+                minDtz = dtz;
+            }
+            board.undoMove();
+            if (state.value == STATE_FAIL) {
+                return 0;
+            }
+        }
+        // No legal moves: the side to move is mated
+        return minDtz == 0xFFFF ? -1 : minDtz;
+    }
+
+    private int probeTable(Board board, boolean dtz, int wdl, ProbeState state) {
+        long occupied = board.getBitboard();
+        if (Long.bitCount(occupied) == 2) {
+            return WDL_DRAW; // bare kings
+        }
+        long materialKey = materialKey(board);
+        SyzygyTable table = getTable(materialKey, dtz);
+        if (table == null) {
+            state.value = STATE_FAIL;
+            return 0;
+        }
+        return table.probe(board, materialKey, wdl, state);
+    }
+
+    private synchronized SyzygyTable getTable(long materialKey, boolean dtz) {
+        String signature = signatures.get(materialKey);
+        if (signature == null) {
+            return null;
+        }
+        String fileName = signature + (dtz ? DTZ_SUFFIX : WDL_SUFFIX);
+        SyzygyTable table = openTables.get(fileName);
+        if (table != null || unavailableFiles.contains(fileName)) {
+            return table;
+        }
+        try {
+            table = new SyzygyTable(signature, new File(directory, fileName), dtz);
+        } catch (IOException | RuntimeException e) {
+            // Missing DTZ files are normal, broken files are not retried either
+            unavailableFiles.add(fileName);
+            return null;
+        }
+        openTables.put(fileName, table);
+        return table;
+    }
+
+    private static long materialKey(Board board) {
+        int[] white = new int[6];
+        int[] black = new int[6];
+        white[1] = Long.bitCount(board.getBitboard(Piece.WHITE_PAWN));
+        white[2] = Long.bitCount(board.getBitboard(Piece.WHITE_KNIGHT));
+        white[3] = Long.bitCount(board.getBitboard(Piece.WHITE_BISHOP));
+        white[4] = Long.bitCount(board.getBitboard(Piece.WHITE_ROOK));
+        white[5] = Long.bitCount(board.getBitboard(Piece.WHITE_QUEEN));
+        black[1] = Long.bitCount(board.getBitboard(Piece.BLACK_PAWN));
+        black[2] = Long.bitCount(board.getBitboard(Piece.BLACK_KNIGHT));
+        black[3] = Long.bitCount(board.getBitboard(Piece.BLACK_BISHOP));
+        black[4] = Long.bitCount(board.getBitboard(Piece.BLACK_ROOK));
+        black[5] = Long.bitCount(board.getBitboard(Piece.BLACK_QUEEN));
+        return SyzygyTable.materialKey(white, black);
+    }
+
+    /**
+     * DTZ tables do not store the values of zeroing moves, but they follow from the WDL after the move.
+     */
+    private static int dtzBeforeZeroing(int wdl) {
+        switch (wdl) {
+            case WDL_WIN: return 1;
+            case WDL_CURSED_WIN: return 101;
+            case WDL_BLESSED_LOSS: return -101;
+            case WDL_LOSS: return -1;
+            default: return 0;
+        }
+    }
+
+    private static boolean isCapture(Board board, Move move) {
+        if (board.getPiece(move.getTo()) != Piece.NONE) {
+            return true;
+        }
+        // En passant: a pawn changing file onto an empty square
+        return board.getPiece(move.getFrom()).getPieceType() == PieceType.PAWN
+                && move.getFrom().getFile() != move.getTo().getFile();
+    }
+}
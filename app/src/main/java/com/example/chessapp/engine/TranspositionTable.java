@@ -0,0 +1,174 @@
+package com.example.chessapp.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table packed into a flat {@code long[]}.
+ *
+ * Every entry takes 16 bytes: the position key XOR the data word, followed by
+ * the data word. The data word holds the best move (16 bits, see
+ * {@link com.example.chessapp.MoveCodec}), the score (16), the depth (8),
+ * the bound type (2) and the search age (8). A reader only accepts an entry if
+ * XOR-ing both words gives back its key, so torn writes from concurrent
+ * searchers are detected and dropped without any locking.
+ *
+ * Entries are grouped in buckets of four (one 64-byte cache line). A store
+ * replaces the entry for the same key, else the entry with the lowest
+ * depth after penalizing entries from older searches.
+ */
+public class TranspositionTable {
+
+    public static final int BOUND_NONE = 0;
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2; // score >= stored score (fail high)
+    public static final int BOUND_UPPER = 3; // score <= stored score (fail low)
+
+    private static final int ENTRY_LONGS = 2;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_LONGS = ENTRY_LONGS * BUCKET_ENTRIES;
+    private static final int BYTES_PER_ENTRY = ENTRY_LONGS * 8;
+    private static final int AGE_MASK = 0xFF;
+
+    private long[] table;
+    private long bucketMask;
+    private int age;
+
+    /**
+     * @param sizeMb Memory budget in megabytes, rounded down to a power of two number of buckets
+     */
+    public TranspositionTable(int sizeMb) {
+        resize(sizeMb);
+    }
+
+    /**
+     * Reallocates the table for a new memory budget. All entries are lost.
+     */
+    public synchronized void resize(int sizeMb) {
+        long entries = Math.max(BUCKET_ENTRIES, (long) Math.max(1, sizeMb) * 1024 * 1024 / BYTES_PER_ENTRY);
+        long buckets = Long.highestOneBit(entries / BUCKET_ENTRIES);
+        // A Java array holds at most 2^31 - 1 longs
+        buckets = Math.min(buckets, 1L << 27);
+        table = new long[(int) (buckets * BUCKET_LONGS)];
+        bucketMask = buckets - 1;
+        age = 0;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        age = 0;
+    }
+
+    /**
+     * Starts a new search generation. Entries from older generations are replaced first.
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * @return Size of the table in megabytes
+     */
+    public int getSizeMb() {
+        return (int) ((long) table.length * 8 / (1024 * 1024));
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @return The data word of the entry (decode with the static accessors), or 0 if there is none
+     */
+    public long probe(long key) {
+        long[] t = table;
+        int base = (int) ((key & bucketMask) * BUCKET_LONGS);
+        for (int i = 0; i < BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = t[base + i + 1];
+            if ((t[base + i] ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores a search result for a position.
+     *
+     * @param move Encoded best move, or 0 if none
+     * @param score Score already adjusted for mate distance relative to this node
+     * @param depth Remaining depth the score was searched to
+     * @param bound One of the BOUND_ constants
+     */
+    public void store(long key, short move, int score, int depth, int bound) {
+        long[] t = table;
+        int base = (int) ((key & bucketMask) * BUCKET_LONGS);
+
+        int replace = base;
+        int replacePriority = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET_LONGS; i += ENTRY_LONGS) {
+            int slot = base + i;
+            long data = t[slot + 1];
+            if (data == 0 || (t[slot] ^ data) == key) {
+                // Keep the old best move if the new result has none
+                if (move == 0 && data != 0 && (t[slot] ^ data) == key) {
+                    move = getMove(data);
+                }
+                replace = slot;
+                break;
+            }
+            // Shallow entries from older searches are the first to go
+            int ageDistance = (age - getAge(data)) & AGE_MASK;
+            int priority = getDepth(data) - 8 * ageDistance;
+            if (priority < replacePriority) {
+                replacePriority = priority;
+                replace = slot;
+            }
+        }
+
+        long data = pack(move, score, depth, bound, age);
+        t[replace] = key ^ data;
+        t[replace + 1] = data;
+    }
+
+    /**
+     * @return Permille of sampled entries written by the current search, as reported by UCI "hashfull"
+     */
+    public int hashfull() {
+        long[] t = table;
+        int samples = Math.min(1000, t.length / ENTRY_LONGS);
+        int used = 0;
+        for (int i = 0; i < samples; i++) {
+            long data = t[i * ENTRY_LONGS + 1];
+            if (data != 0 && getAge(data) == age) {
+                used++;
+            }
+        }
+        return samples == 0 ? 0 : used * 1000 / samples;
+    }
+
+    private static long pack(short move, int score, int depth, int bound, int age) {
+        return (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) (Math.max(0, Math.min(depth, 255)) & 0xFF) << 32)
+                | ((long) (bound & 0x3) << 40)
+                | ((long) (age & AGE_MASK) << 42);
+    }
+
+    public static short getMove(long data) {
+        return (short) data;
+    }
+
+    public static int getScore(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int getDepth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int getBound(long data) {
+        return (int) ((data >>> 40) & 0x3);
+    }
+
+    private static int getAge(long data) {
+        return (int) ((data >>> 42) & AGE_MASK);
+    }
+}
@@ -0,0 +1,529 @@
+package com.example.chessapp.pgn;
+
+import com.example.chessapp.GameRecord;
+import com.example.chessapp.MoveCodec;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streaming PGN reader that turns each game of a collection into a {@link GameRecord}.
+ *
+ * Bytes are read from the channel into one fixed buffer and tokenized in place; the file
+ * is never held as a String, and memory does not grow with the size of the collection.
+ * Moves are SAN, matched against the legal moves of a chesslib {@link Board} that plays
+ * the game along. Comments, variations, NAGs and escape lines are skipped. Games that are
+ * unfinished ("*") or contain a move that is not legal are skipped and counted.
+ */
+public class PgnReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Longer tokens and tag values are cut off, they are never legal SAN anyway
+    private static final int MAX_TOKEN = 256;
+
+    private final ReadableByteChannel channel;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+    private int position;
+    private int limit;
+    private long bytesRead;
+    private boolean atLineStart = true;
+
+    private final byte[] token = new byte[MAX_TOKEN];
+    private final byte[] tagName = new byte[MAX_TOKEN];
+    private final Board board = new Board();
+    private final String standardStartFen = board.getFen();
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy.MM.dd", Locale.US);
+    private short[] moves = new short[256];
+    private int skippedGames;
+
+    // Tags of the game being read
+    private String white;
+    private String black;
+    private String fen;
+    private String date;
+    private String timeControl;
+    private String termination;
+
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @return Bytes consumed from the channel so far, for progress reporting
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return Number of games left out so far because they were unfinished or not legal
+     */
+    public int getSkippedGames() {
+        return skippedGames;
+    }
+
+    /**
+     * @return The next finished game, or null at the end of the input
+     */
+    public GameRecord next() throws IOException {
+        while (true) {
+            white = null;
+            black = null;
+            fen = null;
+            date = null;
+            timeControl = null;
+            termination = null;
+
+            int c = skipWhitespace();
+            if (c < 0) {
+                return null;
+            }
+            while (c == '[') {
+                readTag();
+                c = skipWhitespace();
+            }
+
+            String startFen = fen != null ? fen : standardStartFen;
+            board.loadFromFen(startFen);
+            int count = 0;
+            boolean legal = true;
+            String result = null;
+
+            while (result == null && (c = skipWhitespace()) >= 0 && c != '[') {
+                if (c == '{') {
+                    skipUntil('}');
+                } else if (c == ';') {
+                    skipUntil('\n');
+                } else if (c == '(') {
+                    skipVariation();
+                } else if (c == '%' && atLineStart) {
+                    skipUntil('\n');
+                } else if (c == '$') {
+                    readToken(); // NAG
+                } else {
+                    int length = readToken();
+                    result = parseResult(length);
+                    if (result == null && legal) {
+                        int start = skipMoveNumber(length);
+                        if (start < length) {
+                            Move move = parseSan(start, length);
+                            if (move == null) {
+                                legal = false;
+                            } else {
+                                board.doMove(move, false);
+                                if (count == moves.length) {
+                                    moves = Arrays.copyOf(moves, 2 * count);
+                                }
+                                moves[count++] = MoveCodec.encode(move);
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (!legal || result == null || result.equals("*")) {
+                skippedGames++;
+                continue;
+            }
+            long playedAt = parseDate();
+            long[] clock = parseTimeControl();
+            return new GameRecord(orUnknown(white), orUnknown(black), result, terminationOf(),
+                    clock[0], clock[1], 0, startFen, MoveCodec.toBytes(moves, count), playedAt, playedAt);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // --- Input ---
+
+    /**
+     * @return The next byte without consuming it, -1 at the end of the input
+     */
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        int c = buffer[position++] & 0xFF;
+        atLineStart = c == '\n';
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        wrapped.clear();
+        int n;
+        do {
+            n = channel.read(wrapped);
+        } while (n == 0);
+        if (n < 0) {
+            position = 0;
+            limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = n;
+        bytesRead += n;
+        return true;
+    }
+
+    /**
+     * @return The next byte that is not whitespace, left unconsumed, or -1 at the end
+     */
+    private int skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) >= 0 && c <= ' ') {
+            read();
+        }
+        return c;
+    }
+
+    private void skipUntil(int end) throws IOException {
+        int c;
+        while ((c = read()) >= 0 && c != end) {
+            // skip
+        }
+    }
+
+    /**
+     * Skips a parenthesized variation, including nested ones and the comments inside.
+     */
+    private void skipVariation() throws IOException {
+        int depth = 0;
+        int c;
+        while ((c = read()) >= 0) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return;
+            } else if (c == '{') {
+                skipUntil('}');
+            } else if (c == ';') {
+                skipUntil('\n');
+            }
+        }
+    }
+
+    /**
+     * Reads a symbol up to whitespace or the start of a comment, variation or tag.
+     *
+     * @return Its length in {@link #token}
+     */
+    private int readToken() throws IOException {
+        int length = 0;
+        int c;
+        while ((c = peek()) > ' ' && c != '{' && c != '}' && c != '(' && c != ')' && c != ';' && c != '[') {
+            read();
+            if (length < MAX_TOKEN) {
+                token[length++] = (byte) c;
+            }
+        }
+        if (length == 0) {
+            // A stray closing brace or parenthesis
+            read();
+        }
+        return length;
+    }
+
+    /**
+     * Reads a tag pair such as [White "Carlsen, Magnus"], keeping the ones a game record needs.
+     */
+    private void readTag() throws IOException {
+        read(); // '['
+        skipWhitespace();
+        int nameLength = 0;
+        int c;
+        while ((c = peek()) > ' ' && c != '"' && c != ']') {
+            read();
+            if (nameLength < MAX_TOKEN) {
+                tagName[nameLength++] = (byte) c;
+            }
+        }
+        skipWhitespace();
+        String value = null;
+        if (peek() == '"') {
+            read();
+            int length = 0;
+            while ((c = read()) >= 0 && c != '"' && c != '\n') {
+                if (c == '\\') {
+                    c = read();
+                }
+                if (length < MAX_TOKEN) {
+                    token[length++] = (byte) c;
+                }
+            }
+            value = new String(token, 0, length, StandardCharsets.UTF_8);
+        }
+        while ((c = peek()) >= 0 && c != ']' && c != '\n') {
+            read();
+        }
+        if (c == ']') {
+            read();
+        }
+
+        if (value == null) {
+            return;
+        }
+        String name = new String(tagName, 0, nameLength, StandardCharsets.US_ASCII);
+        switch (name) {
+            case "White":
+                white = value;
+                break;
+            case "Black":
+                black = value;
+                break;
+            case "FEN":
+                fen = value;
+                break;
+            case "Date":
+                date = value;
+                break;
+            case "TimeControl":
+                timeControl = value;
+                break;
+            case "Termination":
+                termination = value;
+                break;
+            default:
+                break;
+        }
+    }
+
+    // --- Movetext ---
+
+    /**
+     * @return The result if the token is a game termination marker, else null
+     */
+    private String parseResult(int length) {
+        if (length == 1 && token[0] == '*') {
+            return "*";
+        }
+        if (length == 3 && token[1] == '-') {
+            if (token[0] == '1' && token[2] == '0') {
+                return GameRecord.RESULT_WHITE_WINS;
+            }
+            if (token[0] == '0' && token[2] == '1') {
+                return GameRecord.RESULT_BLACK_WINS;
+            }
+        }
+        if (length == 7 && token[0] == '1' && token[1] == '/' && token[3] == '-') {
+            return GameRecord.RESULT_DRAW;
+        }
+        return null;
+    }
+
+    /**
+     * @return Where the move starts in a token like "12.", "12...", or "12.e4"
+     */
+    private int skipMoveNumber(int length) {
+        int i = 0;
+        while (i < length && token[i] >= '0' && token[i] <= '9') {
+            i++;
+        }
+        if (i == 0 || i == length || token[i] != '.') {
+            // Not a move number; castling may be written with zeros
+            return 0;
+        }
+        while (i < length && token[i] == '.') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Finds the legal move a SAN token stands for. Annotations such as "+", "#", "!?" are ignored,
+     * as are capture marks and the dash of long algebraic moves.
+     *
+     * @return The move, or null if no single legal move matches
+     */
+    private Move parseSan(int start, int end) {
+        while (end > start && (token[end - 1] == '+' || token[end - 1] == '#'
+                || token[end - 1] == '!' || token[end - 1] == '?')) {
+            end--;
+        }
+        if (end - start < 2) {
+            return null;
+        }
+        List<Move> legalMoves = board.legalMoves();
+
+        if (token[start] == 'O' || token[start] == '0') {
+            int direction = end - start >= 5 ? -2 : 2; // O-O-O goes to the c-file, O-O to the g-file
+            for (Move move : legalMoves) {
+                if (board.getPiece(move.getFrom()).getPieceType() == PieceType.KING
+                        && move.getTo().ordinal() - move.getFrom().ordinal() == direction) {
+                    return move;
+                }
+            }
+            return null;
+        }
+
+        PieceType promotion = null;
+        PieceType last = pieceType(token[end - 1] & ~0x20); // either case
+        if (last != null && last != PieceType.KING && end - start >= 3) {
+            promotion = last;
+            end--;
+            if (token[end - 1] == '=') {
+                end--;
+            }
+        }
+        if (end - start < 2) {
+            return null;
+        }
+        int toFile = token[end - 2] - 'a';
+        int toRank = token[end - 1] - '1';
+        if (toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) {
+            return null;
+        }
+
+        PieceType piece = pieceType(token[start]);
+        int i = start;
+        if (piece == null) {
+            piece = PieceType.PAWN;
+        } else {
+            i++;
+        }
+        int fromFile = -1;
+        int fromRank = -1;
+        for (; i < end - 2; i++) {
+            byte b = token[i];
+            if (b >= 'a' && b <= 'h') {
+                fromFile = b - 'a';
+            } else if (b >= '1' && b <= '8') {
+                fromRank = b - '1';
+            } else if (b != 'x' && b != '-' && b != ':') {
+                return null;
+            }
+        }
+        if (piece == PieceType.PAWN && (toRank == 0 || toRank == 7) && promotion == null) {
+            promotion = PieceType.QUEEN; // lenient: some writers leave out "=Q"
+        }
+
+        int to = toRank * 8 + toFile;
+        Move found = null;
+        for (Move move : legalMoves) {
+            int from = move.getFrom().ordinal();
+            if (move.getTo().ordinal() != to
+                    || board.getPiece(move.getFrom()).getPieceType() != piece
+                    || (fromFile >= 0 && (from & 7) != fromFile)
+                    || (fromRank >= 0 && (from >>> 3) != fromRank)) {
+                continue;
+            }
+            Piece promoted = move.getPromotion();
+            PieceType promotedType = promoted == null || promoted == Piece.NONE ? null : promoted.getPieceType();
+            if (promotedType != promotion) {
+                continue;
+            }
+            if (found != null) {
+                return null; // ambiguous
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    private static PieceType pieceType(int letter) {
+        switch (letter) {
+            case 'N':
+                return PieceType.KNIGHT;
+            case 'B':
+                return PieceType.BISHOP;
+            case 'R':
+                return PieceType.ROOK;
+            case 'Q':
+                return PieceType.QUEEN;
+            case 'K':
+                return PieceType.KING;
+            default:
+                return null;
+        }
+    }
+
+    // --- Tags to record fields ---
+
+    private static String orUnknown(String name) {
+        return name == null || name.isEmpty() ? "?" : name;
+    }
+
+    /**
+     * @return Midnight of the Date tag in local time, or 0 if it is missing or incomplete
+     */
+    private long parseDate() {
+        if (date == null || date.indexOf('?') >= 0) {
+            return 0;
+        }
+        try {
+            return dateFormat.parse(date).getTime();
+        } catch (ParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return Base and increment in milliseconds from a TimeControl tag such as "300+3", zeros if none
+     */
+    private long[] parseTimeControl() {
+        long[] clock = new long[2];
+        if (timeControl == null) {
+            return clock;
+        }
+        int plus = timeControl.indexOf('+');
+        try {
+            clock[0] = 1000 * Long.parseLong(plus >= 0 ? timeControl.substring(0, plus) : timeControl);
+            clock[1] = plus >= 0 ? 1000 * Long.parseLong(timeControl.substring(plus + 1)) : 0;
+        } catch (NumberFormatException e) {
+            // "-", "?", moves per period and sandclock controls are not ours to replay
+            clock[0] = 0;
+            clock[1] = 0;
+        }
+        return clock;
+    }
+
+    /**
+     * @return Why the game ended, from the Termination tag or else the final position
+     */
+    private String terminationOf() {
+        if (PgnWriter.TERMINATION_TIME_FORFEIT.equals(termination)) {
+            return GameRecord.TERMINATION_TIMEOUT;
+        }
+        if (PgnWriter.TERMINATION_ADJUDICATION.equals(termination)) {
+            return GameRecord.TERMINATION_TABLEBASE;
+        }
+        if (board.isMated()) {
+            return GameRecord.TERMINATION_CHECKMATE;
+        }
+        if (board.isStaleMate()) {
+            return GameRecord.TERMINATION_STALEMATE;
+        }
+        if (board.isInsufficientMaterial()) {
+            return GameRecord.TERMINATION_INSUFFICIENT_MATERIAL;
+        }
+        if (board.isRepetition()) {
+            return GameRecord.TERMINATION_REPETITION;
+        }
+        if (board.getHalfMoveCounter() >= 100) {
+            return GameRecord.TERMINATION_FIFTY_MOVES;
+        }
+        return GameRecord.TERMINATION_OTHER;
+    }
+}
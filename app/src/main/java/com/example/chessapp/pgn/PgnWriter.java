@@ -0,0 +1,265 @@
+package com.example.chessapp.pgn;
+
+import com.example.chessapp.GameRecord;
+import com.example.chessapp.MoveCodec;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streaming PGN writer: games are formatted into one fixed buffer that is written to the
+ * channel whenever it fills, so exporting any number of games takes constant memory.
+ *
+ * Output follows the PGN export format: the seven tag roster, TimeControl, Termination and,
+ * for games that did not start from the standard position, SetUp and FEN; movetext in SAN
+ * with check marks, wrapped before 80 columns.
+ */
+public class PgnWriter implements Closeable {
+
+    // Termination tag values, see the PGN standard
+    static final String TERMINATION_NORMAL = "normal";
+    static final String TERMINATION_TIME_FORFEIT = "time forfeit";
+    static final String TERMINATION_ADJUDICATION = "adjudication";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_LINE = 79;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final Board board = new Board();
+    private final String standardStartFen = board.getFen();
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy.MM.dd", Locale.US);
+    private final StringBuilder san = new StringBuilder(8);
+    private int column;
+    private long bytesWritten;
+
+    public PgnWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @return Bytes handed to the channel so far, for progress reporting
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public void write(GameRecord game) throws IOException {
+        boolean standardStart = game.getStartFen() == null || game.getStartFen().equals(standardStartFen);
+        writeTag("Event", "?");
+        writeTag("Site", "?");
+        writeTag("Date", game.getStartedAt() > 0 ? dateFormat.format(new Date(game.getStartedAt())) : "????.??.??");
+        writeTag("Round", "-");
+        writeTag("White", game.getWhiteName());
+        writeTag("Black", game.getBlackName());
+        writeTag("Result", game.getResult());
+        if (game.getTimeBaseMillis() > 0) {
+            writeTag("TimeControl", game.getTimeBaseMillis() / 1000 + "+" + game.getTimeIncrementMillis() / 1000);
+        }
+        writeTag("Termination", terminationTag(game.getTermination()));
+        if (!standardStart) {
+            writeTag("SetUp", "1");
+            writeTag("FEN", game.getStartFen());
+        }
+        writeAscii("\n");
+
+        board.loadFromFen(standardStart ? standardStartFen : game.getStartFen());
+        short[] moves = MoveCodec.fromBytes(game.getMoves());
+        column = 0;
+        for (int ply = 0; ply < moves.length; ply++) {
+            Move move = MoveCodec.decode(moves[ply]);
+            san.setLength(0);
+            int moveNumber = board.getMoveCounter();
+            if (board.getSideToMove() == Side.WHITE) {
+                san.append(moveNumber).append(". ");
+            } else if (ply == 0) {
+                san.append(moveNumber).append("... ");
+            }
+            appendSan(move);
+            writeMovetext(san);
+        }
+        san.setLength(0);
+        san.append(game.getResult());
+        writeMovetext(san);
+        writeAscii("\n\n");
+    }
+
+    /**
+     * Writes out what is still buffered.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static String terminationTag(String termination) {
+        if (GameRecord.TERMINATION_TIMEOUT.equals(termination)) {
+            return TERMINATION_TIME_FORFEIT;
+        }
+        if (GameRecord.TERMINATION_TABLEBASE.equals(termination)) {
+            return TERMINATION_ADJUDICATION;
+        }
+        return TERMINATION_NORMAL;
+    }
+
+    /**
+     * Appends the SAN of a move that is legal on the board, then plays it there.
+     */
+    private void appendSan(Move move) {
+        PieceType piece = board.getPiece(move.getFrom()).getPieceType();
+        int from = move.getFrom().ordinal();
+        int to = move.getTo().ordinal();
+        boolean capture = board.getPiece(move.getTo()) != Piece.NONE;
+
+        if (piece == PieceType.KING && Math.abs(to - from) == 2) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else if (piece == PieceType.PAWN) {
+            // A pawn changing files always captures, en passant onto an empty square included
+            if ((from & 7) != (to & 7)) {
+                san.append((char) ('a' + (from & 7))).append('x');
+            }
+            appendSquare(to);
+            if (move.getPromotion() != null && move.getPromotion() != Piece.NONE) {
+                san.append('=').append(pieceLetter(move.getPromotion().getPieceType()));
+            }
+        } else {
+            san.append(pieceLetter(piece));
+            appendDisambiguation(move, piece);
+            if (capture) {
+                san.append('x');
+            }
+            appendSquare(to);
+        }
+
+        board.doMove(move, false);
+        if (board.isKingAttacked()) {
+            san.append(board.isMated() ? '#' : '+');
+        }
+    }
+
+    /**
+     * Adds the file, rank or both of the origin when another piece of the same type can reach the target.
+     */
+    private void appendDisambiguation(Move move, PieceType piece) {
+        int from = move.getFrom().ordinal();
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        List<Move> legalMoves = board.legalMoves();
+        for (Move other : legalMoves) {
+            int otherFrom = other.getFrom().ordinal();
+            if (other.getTo() != move.getTo() || otherFrom == from
+                    || board.getPiece(other.getFrom()).getPieceType() != piece) {
+                continue;
+            }
+            ambiguous = true;
+            sameFile |= (otherFrom & 7) == (from & 7);
+            sameRank |= (otherFrom >>> 3) == (from >>> 3);
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            san.append((char) ('a' + (from & 7)));
+        } else if (!sameRank) {
+            san.append((char) ('1' + (from >>> 3)));
+        } else {
+            appendSquare(from);
+        }
+    }
+
+    private void appendSquare(int square) {
+        san.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+
+    private static char pieceLetter(PieceType type) {
+        switch (type) {
+            case KNIGHT:
+                return 'N';
+            case BISHOP:
+                return 'B';
+            case ROOK:
+                return 'R';
+            case QUEEN:
+                return 'Q';
+            default:
+                return 'K';
+        }
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        StringBuilder line = new StringBuilder(name.length() + value.length() + 6);
+        line.append('[').append(name).append(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\');
+            }
+            line.append(c);
+        }
+        line.append("\"]\n");
+        writeBytes(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a movetext symbol, starting a new line if it would not fit on the current one.
+     */
+    private void writeMovetext(CharSequence symbol) throws IOException {
+        if (column > 0) {
+            if (column + 1 + symbol.length() > MAX_LINE) {
+                put((byte) '\n');
+                column = 0;
+            } else {
+                put((byte) ' ');
+                column++;
+            }
+        }
+        for (int i = 0; i < symbol.length(); i++) {
+            put((byte) symbol.charAt(i));
+        }
+        column += symbol.length();
+    }
+
+    private void writeAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            put((byte) text.charAt(i));
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        for (byte b : bytes) {
+            put(b);
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+}
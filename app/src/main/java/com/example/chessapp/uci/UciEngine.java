@@ -0,0 +1,383 @@
+package com.example.chessapp.uci;
+
+import com.example.chessapp.engine.EnginePlayer;
+import com.example.chessapp.engine.SearchLimits;
+import com.example.chessapp.engine.SearchResult;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays with an external engine process over UCI.
+ *
+ * The process is started on first use. Commands are written from a dedicated
+ * thread, so no caller blocks on the engine; a reader thread parses the engine's
+ * output and fires each callback when its "bestmove" arrives, with the last
+ * "info" of that search as score, depth and principal variation. Every "go" is
+ * answered by exactly one "bestmove", so callbacks are matched to searches in
+ * order, even when a search is stopped or superseded. A ponder search has no
+ * callback until it is hit; a missed one is stopped and its bestmove dropped.
+ */
+public class UciEngine implements EnginePlayer {
+
+    private static final String TAG = "UciEngine";
+    private static final long HANDSHAKE_TIMEOUT_MILLIS = 10_000;
+    private static final long QUIT_TIMEOUT_MILLIS = 1_000;
+
+    /**
+     * Receives every "info" line of a running search that carries a score.
+     */
+    public interface InfoListener {
+        void onInfo(SearchResult info);
+    }
+
+    private static final class PendingSearch {
+        final String position;
+        SearchResult lastInfo;
+        // Guarded by the instance: a ponder search gets its callback from a hit,
+        // and keeps its result if the engine answered before that
+        Callback callback;
+        SearchResult result;
+
+        PendingSearch(String position, Callback callback) {
+            this.position = position;
+            this.callback = callback;
+        }
+
+        void finish(SearchResult searchResult) {
+            Callback target;
+            synchronized (this) {
+                result = searchResult;
+                target = callback;
+            }
+            if (target != null) {
+                target.onSearchFinished(searchResult);
+            }
+        }
+    }
+
+    private final List<String> command;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uci-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Queue<PendingSearch> pending = new ConcurrentLinkedQueue<>();
+    private final List<String> options = new ArrayList<>();
+    private final Semaphore uciOk = new Semaphore(0);
+    private final Semaphore readyOk = new Semaphore(0);
+    private volatile InfoListener infoListener;
+    private volatile String engineName;
+
+    private Process process;
+    private Writer toEngine;
+    private volatile boolean failed;
+    // Only used on the writer thread
+    private PendingSearch ponderSearch;
+
+    /**
+     * @param command Executable and arguments that start the engine
+     */
+    public UciEngine(List<String> command) {
+        this.command = new ArrayList<>(command);
+    }
+
+    /**
+     * Sets an engine option, sent at startup or right away if the engine is running.
+     */
+    public void setOption(String name, String value) {
+        writer.execute(() -> {
+            String line = "setoption name " + name + " value " + value;
+            options.add(line);
+            if (process != null && !failed) {
+                send(line);
+            }
+        });
+    }
+
+    public void setInfoListener(InfoListener infoListener) {
+        this.infoListener = infoListener;
+    }
+
+    /**
+     * @return The name the engine reported in "id name", or null before the handshake
+     */
+    public String getEngineName() {
+        return engineName;
+    }
+
+    /**
+     * Tells the engine the next search belongs to a new game.
+     */
+    public void newGame() {
+        writer.execute(() -> {
+            if (ensureStarted()) {
+                send("ucinewgame");
+                awaitReady();
+            }
+        });
+    }
+
+    @Override
+    public void findBestMove(String startFen, List<Move> moves, SearchLimits limits, Callback callback) {
+        final String position = UciFormat.formatPosition(startFen, moves);
+        final String go = UciFormat.formatGo(limits);
+        writer.execute(() -> {
+            if (!ensureStarted()) {
+                callback.onSearchFinished(emptyResult());
+                return;
+            }
+            PendingSearch ponder = ponderSearch;
+            ponderSearch = null;
+            if (ponder != null && ponder.position.equals(position)) {
+                SearchResult answered;
+                synchronized (ponder) {
+                    ponder.callback = callback;
+                    answered = ponder.result;
+                }
+                if (answered != null) {
+                    callback.onSearchFinished(answered);
+                } else {
+                    send("ponderhit");
+                }
+                return;
+            }
+            stopPending();
+            pending.add(new PendingSearch(position, callback));
+            send(position);
+            send(go);
+        });
+    }
+
+    /**
+     * Sends "go ponder" with the limits; "ponderhit" converts it when the next request is for the same position.
+     */
+    @Override
+    public void ponder(String startFen, List<Move> moves, SearchLimits limits) {
+        final String position = UciFormat.formatPosition(startFen, moves);
+        final String go = UciFormat.formatGo(limits);
+        writer.execute(() -> {
+            if (!ensureStarted()) {
+                return;
+            }
+            stopPending();
+            PendingSearch ponder = new PendingSearch(position, null);
+            ponderSearch = ponder;
+            pending.add(ponder);
+            send(position);
+            send("go ponder" + go.substring(2));
+        });
+    }
+
+    /**
+     * UCI expects a search to be stopped before the next "go"; its bestmove still arrives first.
+     */
+    private void stopPending() {
+        ponderSearch = null;
+        if (!pending.isEmpty()) {
+            send("stop");
+        }
+    }
+
+    @Override
+    public void stop() {
+        // Not queued behind the writer: it may be waiting for the handshake
+        synchronized (this) {
+            if (process != null && !failed) {
+                send("stop");
+            }
+        }
+        // A stopped ponder search cannot be hit any more
+        writer.execute(() -> ponderSearch = null);
+    }
+
+    @Override
+    public void shutdown() {
+        writer.execute(() -> {
+            if (process == null) {
+                return;
+            }
+            send("quit");
+            try {
+                if (!process.waitFor(QUIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    process.destroy();
+                }
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        });
+        writer.shutdown();
+    }
+
+    /**
+     * Starts the process and completes the handshake, once. Runs on the writer thread.
+     *
+     * @return False if the engine could not be started
+     */
+    private boolean ensureStarted() {
+        if (process != null || failed) {
+            return !failed;
+        }
+        try {
+            Process started = new ProcessBuilder(command).redirectErrorStream(true).start();
+            synchronized (this) {
+                process = started;
+                toEngine = new OutputStreamWriter(started.getOutputStream(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            log("Could not start " + command, e);
+            failed = true;
+            return false;
+        }
+
+        Thread reader = new Thread(this::readLoop, "uci-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        send("uci");
+        if (!await(uciOk)) {
+            log("No uciok from " + command, null);
+            fail();
+            return false;
+        }
+        for (String option : options) {
+            send(option);
+        }
+        return awaitReady();
+    }
+
+    private boolean awaitReady() {
+        send("isready");
+        if (!await(readyOk)) {
+            log("No readyok from " + command, null);
+            fail();
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean await(Semaphore semaphore) {
+        try {
+            return semaphore.tryAcquire(HANDSHAKE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private synchronized void send(String line) {
+        try {
+            toEngine.write(line);
+            toEngine.write('\n');
+            toEngine.flush();
+        } catch (IOException e) {
+            log("Write to engine failed: " + line, e);
+            failed = true;
+        }
+    }
+
+    private void fail() {
+        synchronized (this) {
+            failed = true;
+            process.destroy();
+        }
+    }
+
+    private void readLoop() {
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                handleLine(line.trim());
+            }
+        } catch (IOException e) {
+            log("Read from engine failed", e);
+        }
+        // The engine exited: searches still waiting get an empty answer
+        synchronized (this) {
+            failed = true;
+        }
+        PendingSearch search;
+        while ((search = pending.poll()) != null) {
+            search.finish(emptyResult());
+        }
+    }
+
+    private void handleLine(String line) {
+        if (line.isEmpty()) {
+            return;
+        }
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "id":
+                if (tokens.length > 2 && tokens[1].equals("name")) {
+                    engineName = line.substring(line.indexOf("name") + 5);
+                }
+                break;
+            case "uciok":
+                uciOk.release();
+                break;
+            case "readyok":
+                readyOk.release();
+                break;
+            case "info":
+                PendingSearch current = pending.peek();
+                if (current != null) {
+                    SearchResult info = UciFormat.parseInfo(tokens, current.lastInfo);
+                    if (info != null && info != current.lastInfo) {
+                        current.lastInfo = info;
+                        InfoListener listener = infoListener;
+                        if (listener != null) {
+                            listener.onInfo(info);
+                        }
+                    }
+                }
+                break;
+            case "bestmove":
+                PendingSearch finished = pending.poll();
+                if (finished != null) {
+                    Move best = tokens.length > 1 ? UciFormat.parseMove(tokens[1]) : null;
+                    finished.finish(toResult(best, finished.lastInfo));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static SearchResult toResult(Move best, SearchResult info) {
+        if (info == null) {
+            List<Move> pv = best == null ? Collections.emptyList() : Collections.singletonList(best);
+            return new SearchResult(best, 0, 0, 0, 0, pv);
+        }
+        List<Move> pv = info.getPrincipalVariation();
+        if (best != null && (pv.isEmpty() || !best.equals(pv.get(0)))) {
+            pv = Collections.singletonList(best);
+        }
+        return new SearchResult(best, info.getScore(), info.getDepth(), info.getNodes(), info.getElapsedMillis(), pv);
+    }
+
+    private static SearchResult emptyResult() {
+        return new SearchResult(null, 0, 0, 0, 0, Collections.emptyList());
+    }
+
+    private static void log(String message, Exception e) {
+        // Plain stderr: this class also runs on desktop JVMs, where android.util.Log is not available
+        System.err.println(TAG + ": " + message + (e != null ? " (" + e + ")" : ""));
+    }
+}
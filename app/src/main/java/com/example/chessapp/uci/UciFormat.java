@@ -0,0 +1,205 @@
+package com.example.chessapp.uci;
+
+import com.example.chessapp.MoveCodec;
+import com.example.chessapp.engine.Position;
+import com.example.chessapp.engine.Search;
+import com.example.chessapp.engine.SearchLimits;
+import com.example.chessapp.engine.SearchResult;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text forms of moves, positions, limits and search results in the UCI protocol,
+ * shared by {@link UciEngine} and {@link UciServer}.
+ */
+public final class UciFormat {
+
+    /** Written for "no move", e.g. in a mated position. */
+    public static final String NULL_MOVE = "0000";
+
+    private UciFormat() {
+    }
+
+    public static String formatMove(Move move) {
+        return move == null ? NULL_MOVE : MoveCodec.toUci(MoveCodec.encode(move));
+    }
+
+    /**
+     * @return The move, or null if the text is not a move
+     */
+    public static Move parseMove(String text) {
+        short move = MoveCodec.fromUci(text);
+        return move == MoveCodec.NONE ? null : MoveCodec.decode(move);
+    }
+
+    /**
+     * @return "position startpos|fen ... [moves ...]"
+     */
+    public static String formatPosition(String startFen, List<Move> moves) {
+        StringBuilder sb = new StringBuilder(32 + 6 * moves.size());
+        sb.append("position ");
+        if (Position.START_FEN.equals(startFen)) {
+            sb.append("startpos");
+        } else {
+            sb.append("fen ").append(startFen);
+        }
+        if (!moves.isEmpty()) {
+            sb.append(" moves");
+            for (Move move : moves) {
+                sb.append(' ').append(formatMove(move));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return "go" with the non-zero limits, or "go infinite" if there are none
+     */
+    public static String formatGo(SearchLimits limits) {
+        StringBuilder sb = new StringBuilder("go");
+        if (limits.getMaxDepth() > 0) {
+            sb.append(" depth ").append(limits.getMaxDepth());
+        }
+        if (limits.getMaxNodes() > 0) {
+            sb.append(" nodes ").append(limits.getMaxNodes());
+        }
+        if (limits.getMaxTimeMillis() > 0) {
+            sb.append(" movetime ").append(limits.getMaxTimeMillis());
+        }
+        if (sb.length() == 2) {
+            sb.append(" infinite");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return "cp N" or "mate N", N in moves (negative when getting mated)
+     */
+    public static String formatScore(int score) {
+        if (Math.abs(score) < Search.MATE - Search.MAX_PLY) {
+            return "cp " + score;
+        }
+        int plies = Search.MATE - Math.abs(score);
+        int moves = (plies + 1) / 2;
+        return "mate " + (score > 0 ? moves : -moves);
+    }
+
+    /**
+     * Parses the value after "score", the inverse of {@link #formatScore(int)}.
+     */
+    public static int parseScore(String type, int value) {
+        if (type.equals("mate")) {
+            return value > 0 ? Search.MATE - (2 * value - 1) : -Search.MATE + 2 * -value;
+        }
+        return value;
+    }
+
+    /**
+     * @return "info depth ... pv ..." for a completed iteration
+     */
+    public static String formatInfo(SearchResult result) {
+        return formatInfo(result, 0);
+    }
+
+    /**
+     * @param multiPv 1-based index of the line in a multi-PV search, or 0 to leave out "multipv"
+     * @return "info depth ... [multipv N] ... pv ..." for a completed line
+     */
+    public static String formatInfo(SearchResult result, int multiPv) {
+        StringBuilder sb = new StringBuilder(96);
+        sb.append("info depth ").append(result.getDepth());
+        if (multiPv > 0) {
+            sb.append(" multipv ").append(multiPv);
+        }
+        sb.append(" score ").append(formatScore(result.getScore()))
+                .append(" nodes ").append(result.getNodes())
+                .append(" nps ").append(result.getNodesPerSecond())
+                .append(" time ").append(result.getElapsedMillis());
+        if (!result.getPrincipalVariation().isEmpty()) {
+            sb.append(" pv");
+            for (Move move : result.getPrincipalVariation()) {
+                sb.append(' ').append(formatMove(move));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads the fields of an "info" line the result needs, on top of the previous info of the same search.
+     *
+     * @param tokens The line split on whitespace, starting with "info"
+     * @param previous Last info of the search, or null
+     * @return The updated info, or the previous one if the line has no score (e.g. "info string" or "currmove")
+     */
+    public static SearchResult parseInfo(String[] tokens, SearchResult previous) {
+        int depth = previous != null ? previous.getDepth() : 0;
+        int score = previous != null ? previous.getScore() : 0;
+        long nodes = previous != null ? previous.getNodes() : 0;
+        long time = previous != null ? previous.getElapsedMillis() : 0;
+        List<Move> pv = null;
+        boolean hasScore = false;
+
+        for (int i = 1; i < tokens.length; i++) {
+            switch (tokens[i]) {
+                case "depth":
+                    depth = parseInt(tokens, ++i, depth);
+                    break;
+                case "nodes":
+                    nodes = parseLong(tokens, ++i, nodes);
+                    break;
+                case "time":
+                    time = parseLong(tokens, ++i, time);
+                    break;
+                case "score":
+                    if (i + 2 < tokens.length) {
+                        score = parseScore(tokens[i + 1], parseInt(tokens, i + 2, 0));
+                        hasScore = true;
+                        i += 2;
+                    }
+                    break;
+                case "pv":
+                    pv = new ArrayList<>(tokens.length - i - 1);
+                    for (int j = i + 1; j < tokens.length; j++) {
+                        Move move = parseMove(tokens[j]);
+                        if (move == null) {
+                            break;
+                        }
+                        pv.add(move);
+                    }
+                    i = tokens.length;
+                    break;
+                case "string":
+                    // Free text up to the end of the line
+                    return previous;
+                default:
+                    break;
+            }
+        }
+        if (!hasScore) {
+            return previous;
+        }
+        if (pv == null) {
+            pv = previous != null ? previous.getPrincipalVariation() : new ArrayList<>();
+        }
+        Move best = pv.isEmpty() ? null : pv.get(0);
+        return new SearchResult(best, score, depth, nodes, time, pv);
+    }
+
+    private static int parseInt(String[] tokens, int index, int fallback) {
+        try {
+            return index < tokens.length ? Integer.parseInt(tokens[index]) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static long parseLong(String[] tokens, int index, long fallback) {
+        try {
+            return index < tokens.length ? Long.parseLong(tokens[index]) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
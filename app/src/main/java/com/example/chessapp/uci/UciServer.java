@@ -0,0 +1,386 @@
+package com.example.chessapp.uci;
+
+import com.example.chessapp.MoveCodec;
+import com.example.chessapp.engine.LazySmpSearch;
+import com.example.chessapp.engine.NnueNetwork;
+import com.example.chessapp.engine.Position;
+import com.example.chessapp.engine.SearchLimits;
+import com.example.chessapp.engine.SearchResult;
+import com.example.chessapp.engine.TranspositionTable;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The built-in engine as a UCI engine on standard input and output, so it can be run
+ * by GUIs and tools like cutechess-cli on a desktop JVM. Build the launcher with
+ * {@code ./gradlew :benchmark:installDist}.
+ *
+ * Searches run on their own thread, so "stop", "isready" and "quit" are answered
+ * while searching; other commands wait for the search to finish. Supported options are Hash, Threads and EvalFile (an NNUE network
+ * file, see {@link NnueNetwork}), Ponder and MultiPV; "go" understands depth, nodes, movetime,
+ * wtime/btime/winc/binc, infinite and ponder, converted by "ponderhit".
+ */
+public class UciServer {
+
+    public static final String ENGINE_NAME = "ChessApp";
+
+    private static final int DEFAULT_HASH_MB = 16;
+    private static final int MAX_HASH_MB = 1024;
+    private static final int MAX_THREADS = 64;
+    private static final int MAX_MULTI_PV = 16;
+    private static final long STOP_POLL_MILLIS = 10;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uci-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private int hashMb = DEFAULT_HASH_MB;
+    private int threads = 1;
+    private int multiPv = 1;
+    private NnueNetwork network;
+    private LazySmpSearch search = new LazySmpSearch(new TranspositionTable(DEFAULT_HASH_MB), 1);
+    private Future<?> running;
+    // Releases the bestmove of a ponder search, which UCI holds back until "ponderhit" or "stop"
+    private volatile CountDownLatch ponderRelease;
+    private volatile SearchLimits ponderHitLimits;
+    private SearchLimits lastLimits;
+    private String startFen = Position.START_FEN;
+    private final List<Move> moves = new ArrayList<>();
+
+    public UciServer(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        new UciServer(in, System.out).run();
+    }
+
+    /**
+     * Reads and answers commands until "quit" or the end of the input.
+     */
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens[0].equals("quit")) {
+                break;
+            }
+            handle(tokens);
+        }
+        waitForSearch(true);
+        search.shutdown();
+        searchThread.shutdown();
+    }
+
+    private void handle(String[] tokens) {
+        switch (tokens[0]) {
+            case "uci":
+                send("id name " + ENGINE_NAME);
+                send("id author ChessApp developers");
+                send("option name Hash type spin default " + DEFAULT_HASH_MB + " min 1 max " + MAX_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("option name EvalFile type string default <empty>");
+                send("option name Ponder type check default false");
+                send("option name MultiPV type spin default 1 min 1 max " + MAX_MULTI_PV);
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "setoption":
+                waitForSearch(false);
+                setOption(tokens);
+                break;
+            case "ucinewgame":
+                waitForSearch(false);
+                search.getTranspositionTable().clear();
+                break;
+            case "position":
+                waitForSearch(false);
+                setPosition(tokens);
+                break;
+            case "go":
+                waitForSearch(false);
+                go(tokens);
+                break;
+            case "ponderhit":
+                ponderHit();
+                break;
+            case "stop":
+                waitForSearch(true);
+                break;
+            default:
+                // UCI says unknown commands are ignored
+                break;
+        }
+    }
+
+    private void setOption(String[] tokens) {
+        String name = tokenAfter(tokens, "name");
+        String value = tokenAfter(tokens, "value");
+        if (name == null || value == null) {
+            return;
+        }
+        try {
+            switch (name.toLowerCase()) {
+                case "hash":
+                    hashMb = clamp(Integer.parseInt(value), 1, MAX_HASH_MB);
+                    search.shutdown();
+                    search = createSearch();
+                    break;
+                case "threads":
+                    threads = clamp(Integer.parseInt(value), 1, MAX_THREADS);
+                    search.setThreadCount(threads);
+                    break;
+                case "multipv":
+                    multiPv = clamp(Integer.parseInt(value), 1, MAX_MULTI_PV);
+                    search.setMultiPv(multiPv);
+                    break;
+                case "evalfile":
+                    network = value.equals("<empty>") ? null : loadNetwork(value);
+                    search.setNetwork(network);
+                    break;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            send("info string Bad value for " + name + ": " + value);
+        } catch (IOException e) {
+            send("info string Could not load " + value + ": " + e.getMessage());
+        }
+    }
+
+    private LazySmpSearch createSearch() {
+        LazySmpSearch created = new LazySmpSearch(new TranspositionTable(hashMb), threads);
+        created.setNetwork(network);
+        created.setMultiPv(multiPv);
+        return created;
+    }
+
+    private static NnueNetwork loadNetwork(String path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            return NnueNetwork.map(file.getChannel(), 0, file.length());
+        }
+    }
+
+    /**
+     * position [startpos | fen FEN] [moves m1 m2 ...]
+     */
+    private void setPosition(String[] tokens) {
+        int index = 1;
+        String fen;
+        if (index < tokens.length && tokens[index].equals("fen")) {
+            StringBuilder sb = new StringBuilder();
+            index++;
+            while (index < tokens.length && !tokens[index].equals("moves")) {
+                sb.append(sb.length() > 0 ? " " : "").append(tokens[index++]);
+            }
+            fen = sb.toString();
+        } else {
+            fen = Position.START_FEN;
+            index++;
+        }
+
+        List<Move> parsed = new ArrayList<>();
+        if (index < tokens.length && tokens[index].equals("moves")) {
+            for (index++; index < tokens.length; index++) {
+                Move move = UciFormat.parseMove(tokens[index]);
+                if (move == null) {
+                    send("info string Bad move " + tokens[index]);
+                    return;
+                }
+                parsed.add(move);
+            }
+        }
+        startFen = fen;
+        moves.clear();
+        moves.addAll(parsed);
+    }
+
+    private void go(String[] tokens) {
+        int depth = 0;
+        long nodes = 0;
+        long moveTime = 0;
+        long[] clock = new long[2];
+        long[] increment = new long[2];
+        boolean clocked = false;
+        boolean infinite = false;
+        boolean ponder = false;
+        for (int i = 1; i < tokens.length; i++) {
+            String value = i + 1 < tokens.length ? tokens[i + 1] : "0";
+            try {
+                switch (tokens[i]) {
+                    case "depth": depth = Integer.parseInt(value); i++; break;
+                    case "nodes": nodes = Long.parseLong(value); i++; break;
+                    case "movetime": moveTime = Long.parseLong(value); i++; break;
+                    case "wtime": clock[Position.WHITE] = Long.parseLong(value); clocked = true; i++; break;
+                    case "btime": clock[Position.BLACK] = Long.parseLong(value); clocked = true; i++; break;
+                    case "winc": increment[Position.WHITE] = Long.parseLong(value); i++; break;
+                    case "binc": increment[Position.BLACK] = Long.parseLong(value); i++; break;
+                    case "infinite": infinite = true; break;
+                    case "ponder": ponder = true; break;
+                    default: break;
+                }
+            } catch (NumberFormatException e) {
+                send("info string Bad value for " + tokens[i] + ": " + value);
+            }
+        }
+
+        SearchLimits limits = new SearchLimits(depth, nodes, moveTime);
+        if (infinite) {
+            limits = SearchLimits.infinite();
+        } else if (clocked) {
+            int side = sideToMove();
+            limits = limits.withClock(clock[side], increment[side]);
+        }
+
+        final SearchLimits searchLimits = limits;
+        final String fen = startFen;
+        final List<Move> played = new ArrayList<>(moves);
+        final LazySmpSearch current = search;
+        final boolean startPondering = ponder;
+        final CountDownLatch release = ponder ? new CountDownLatch(1) : null;
+        lastLimits = limits;
+        ponderHitLimits = null;
+        ponderRelease = release;
+        running = searchThread.submit(() -> {
+            SearchResult result;
+            try {
+                result = current.search(fen, played, searchLimits, iteration -> {
+                    List<SearchResult> lines = iteration.getLines();
+                    if (lines.size() == 1) {
+                        send(UciFormat.formatInfo(iteration));
+                    } else if (lines.get(lines.size() - 1).getDepth() == iteration.getDepth()) {
+                        // Once every line has reached the new depth
+                        for (int i = 0; i < lines.size(); i++) {
+                            send(UciFormat.formatInfo(lines.get(i), i + 1));
+                        }
+                    }
+                    // A ponderhit that came before the search started pondering is repeated here
+                    SearchLimits hit = ponderHitLimits;
+                    if (hit != null && current.isPondering()) {
+                        current.ponderHit(hit);
+                    }
+                }, startPondering);
+                if (release != null) {
+                    release.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Every "go" must be answered, or the GUI waits forever
+                send("info string Search failed: " + e);
+                send("bestmove " + UciFormat.NULL_MOVE);
+                return;
+            }
+            String best = "bestmove " + UciFormat.formatMove(result.getBestMove());
+            Move ponderMove = result.getPonderMove();
+            send(ponderMove != null ? best + " ponder " + UciFormat.formatMove(ponderMove) : best);
+        });
+    }
+
+    /**
+     * The opponent played the expected move: the ponder search goes on with the limits of its "go".
+     */
+    private void ponderHit() {
+        CountDownLatch release = ponderRelease;
+        if (release == null) {
+            return;
+        }
+        SearchLimits limits = lastLimits;
+        ponderHitLimits = limits;
+        search.ponderHit(limits);
+        release.countDown();
+    }
+
+    private int sideToMove() {
+        Position position = new Position(startFen);
+        for (Move move : moves) {
+            position.makeMove(MoveCodec.encode(move));
+        }
+        return position.sideToMove();
+    }
+
+    /**
+     * Waits until the running search, if any, has sent its bestmove. Like other engines,
+     * only "stop" and "quit" end a search early; anything else waits for it.
+     */
+    private void waitForSearch(boolean stop) {
+        Future<?> current = running;
+        if (current == null) {
+            return;
+        }
+        try {
+            // A stop that lands before the search thread has started would be lost, so repeat it
+            while (stop && !current.isDone()) {
+                search.stop();
+                CountDownLatch release = ponderRelease;
+                if (release != null) {
+                    release.countDown();
+                }
+                try {
+                    current.get(STOP_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // not started yet
+                }
+            }
+            current.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // The task reports its own failures
+        }
+        running = null;
+        ponderRelease = null;
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    private static String tokenAfter(String[] tokens, String keyword) {
+        // Names and values may contain spaces: "setoption name Clear Hash" or a path
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].equals(keyword)) {
+                StringBuilder sb = new StringBuilder();
+                for (int j = i + 1; j < tokens.length; j++) {
+                    if (keyword.equals("name") && tokens[j].equals("value")) {
+                        break;
+                    }
+                    sb.append(sb.length() > 0 ? " " : "").append(tokens[j]);
+                }
+                return sb.length() > 0 ? sb.toString() : null;
+            }
+        }
+        return null;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
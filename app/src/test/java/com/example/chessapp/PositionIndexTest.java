@@ -0,0 +1,39 @@
+package com.example.chessapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Checks that {@link PositionIndex} gives a position the same key however it was reached.
+ */
+public class PositionIndexTest {
+
+    private static byte[] moves(String... uci) {
+        short[] encoded = new short[uci.length];
+        for (int i = 0; i < uci.length; i++) {
+            encoded[i] = MoveCodec.fromUci(uci[i]);
+        }
+        return MoveCodec.toBytes(encoded, encoded.length);
+    }
+
+    @Test
+    public void keysOf_matchesKeyOfFen() {
+        long[] keys = PositionIndex.keysOf(null, moves("e2e4", "c7c5", "g1f3"));
+        assertEquals(4, keys.length);
+        assertEquals(PositionIndex.keyOf("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"), keys[0]);
+        // The en passant square after e4 cannot be taken, so it does not count
+        assertEquals(PositionIndex.keyOf("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1"), keys[1]);
+        assertEquals(PositionIndex.keyOf("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1"), keys[1]);
+        assertEquals(PositionIndex.keyOf("rnbqkbnr/pp1ppppp/8/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2"), keys[3]);
+    }
+
+    @Test
+    public void keysOf_transpositionsShareAKey() {
+        long[] viaKnight = PositionIndex.keysOf(null, moves("g1f3", "d7d5", "d2d4"));
+        long[] viaPawn = PositionIndex.keysOf(null, moves("d2d4", "d7d5", "g1f3"));
+        assertEquals(viaKnight[3], viaPawn[3]);
+        assertNotEquals(viaKnight[1], viaPawn[1]);
+    }
+}
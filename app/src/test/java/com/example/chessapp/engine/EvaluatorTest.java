@@ -0,0 +1,51 @@
+package com.example.chessapp.engine;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The incrementally maintained evaluation must always equal the one recomputed from scratch.
+ */
+public class EvaluatorTest {
+
+    private static final int GAMES_PER_POSITION = 20;
+    private static final int MAX_GAME_PLIES = 200;
+
+    private final Evaluator evaluator = new Evaluator();
+
+    @Test
+    public void incremental_matchesFullAlongRandomGames() {
+        Random random = new Random(7);
+        short[] moves = new short[MoveGenerator.MAX_MOVES];
+        for (Perft.TestPosition testPosition : Perft.STANDARD_POSITIONS) {
+            for (int game = 0; game < GAMES_PER_POSITION; game++) {
+                Position position = new Position(testPosition.fen);
+                int ply = 0;
+                for (; ply < MAX_GAME_PLIES; ply++) {
+                    String context = testPosition.name + " game " + game + " " + position.toFen();
+                    assertEquals(context, evaluator.evaluateFull(position), evaluator.evaluate(position));
+                    int count = MoveGenerator.generateLegal(position, moves, 0);
+                    if (count == 0) {
+                        break;
+                    }
+                    position.makeMove(moves[random.nextInt(count)]);
+                }
+                // Unmaking must bring the totals back as well
+                for (; ply > 0; ply--) {
+                    position.unmakeMove();
+                }
+                assertEquals(testPosition.name, evaluator.evaluateFull(position), evaluator.evaluate(position));
+            }
+        }
+    }
+
+    @Test
+    public void startPosition_isBalanced() {
+        Position position = new Position();
+        assertEquals(0, evaluator.evaluate(position));
+        assertEquals(PieceSquareTables.MAX_PHASE, position.phase());
+    }
+}
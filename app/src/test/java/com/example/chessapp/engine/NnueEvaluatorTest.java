@@ -0,0 +1,103 @@
+package com.example.chessapp.engine;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the network loader and that the incrementally updated accumulators always
+ * give the same evaluation as a refresh from scratch. Uses random weights, as no
+ * trained network is part of the sources.
+ */
+public class NnueEvaluatorTest {
+
+    private static final int HIDDEN_SIZE = 64;
+    private static final int GAMES_PER_POSITION = 10;
+    private static final int MAX_GAME_PLIES = 150;
+
+    /**
+     * Writes a network file with small random weights, in the layout documented in {@link NnueNetwork}.
+     */
+    static ByteBuffer randomNetworkFile(int hiddenSize, long seed) {
+        Random random = new Random(seed);
+        int size = 12 + 2 * NnueNetwork.FEATURES * hiddenSize + 2 * hiddenSize + 2 * hiddenSize + 4;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[]{'C', 'N', 'U', 'E'}).putInt(1).putInt(hiddenSize);
+        for (int i = 0; i < NnueNetwork.FEATURES * hiddenSize; i++) {
+            buffer.putShort((short) (random.nextInt(65) - 32));
+        }
+        for (int i = 0; i < hiddenSize; i++) {
+            buffer.putShort((short) random.nextInt(128));
+        }
+        for (int i = 0; i < 2 * hiddenSize; i++) {
+            buffer.put((byte) (random.nextInt(256) - 128));
+        }
+        buffer.putInt(random.nextInt(1000) - 500);
+        buffer.flip();
+        return buffer;
+    }
+
+    @Test
+    public void incremental_matchesFullAlongRandomGames() throws IOException {
+        NnueEvaluator evaluator = new NnueEvaluator(NnueNetwork.load(randomNetworkFile(HIDDEN_SIZE, 3)));
+        Random random = new Random(11);
+        short[] moves = new short[MoveGenerator.MAX_MOVES];
+        for (Perft.TestPosition testPosition : Perft.STANDARD_POSITIONS) {
+            for (int game = 0; game < GAMES_PER_POSITION; game++) {
+                Position position = new Position(testPosition.fen);
+                evaluator.attach(position);
+                int ply = 0;
+                for (; ply < MAX_GAME_PLIES; ply++) {
+                    String context = testPosition.name + " game " + game + " " + position.toFen();
+                    assertEquals(context, evaluator.evaluateFull(position), evaluator.evaluate(position));
+                    int count = MoveGenerator.generateLegal(position, moves, 0);
+                    if (count == 0) {
+                        break;
+                    }
+                    position.makeMove(moves[random.nextInt(count)]);
+                }
+                for (; ply > 0; ply--) {
+                    position.unmakeMove();
+                }
+                assertEquals(testPosition.name, evaluator.evaluateFull(position), evaluator.evaluate(position));
+                evaluator.detach(position);
+            }
+        }
+    }
+
+    @Test
+    public void startPosition_isSymmetric() throws IOException {
+        // Both sides see the same features from their own side, so the accumulators are equal
+        NnueEvaluator evaluator = new NnueEvaluator(NnueNetwork.load(randomNetworkFile(HIDDEN_SIZE, 5)));
+        Position white = new Position();
+        Position black = new Position("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 0 1");
+        assertEquals(evaluator.evaluate(white), evaluator.evaluate(black));
+    }
+
+    @Test
+    public void load_rejectsOtherFiles() {
+        ByteBuffer file = randomNetworkFile(HIDDEN_SIZE, 1);
+        file.put(0, (byte) 'X');
+        try {
+            NnueNetwork.load(file);
+            fail("Loaded a file with a bad magic number");
+        } catch (IOException expected) {
+            // Rejected as it should be
+        }
+
+        ByteBuffer truncated = randomNetworkFile(HIDDEN_SIZE, 1);
+        truncated.limit(truncated.limit() - 1);
+        try {
+            NnueNetwork.load(truncated.slice());
+            fail("Loaded a truncated file");
+        } catch (IOException expected) {
+            // Rejected as it should be
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.chessapp.engine;
+
+import com.github.bhlangonijr.chesslib.Board;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Validates chesslib move generation against the published perft counts. Depths are
+ * capped so the suite stays fast; the JMH benchmarks in :benchmark go deeper.
+ */
+public class PerftTest {
+
+    private static final long MAX_NODES_PER_CHECK = 1_000_000;
+
+    @Test
+    public void standardPositions_matchPublishedCounts() {
+        for (Perft.TestPosition position : Perft.STANDARD_POSITIONS) {
+            Board board = new Board();
+            board.loadFromFen(position.fen);
+            long key = board.getZobristKey();
+            for (int depth = 1; depth <= position.maxDepth(); depth++) {
+                long expected = position.nodes[depth - 1];
+                if (expected > MAX_NODES_PER_CHECK) {
+                    break;
+                }
+                assertEquals(position.name + " depth " + depth, expected, Perft.perft(board, depth));
+            }
+            // perft must leave the position untouched
+            assertEquals(position.name, key, board.getZobristKey());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.chessapp.engine;
+
+import com.github.bhlangonijr.chesslib.Board;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks {@link PolyglotBook#computeKey} against the reference keys published with the
+ * Polyglot book format.
+ */
+public class PolyglotBookTest {
+
+    private static long key(String fen) {
+        Board board = new Board();
+        board.loadFromFen(fen);
+        return PolyglotBook.computeKey(board);
+    }
+
+    @Test
+    public void computeKey_matchesReferenceKeys() {
+        assertEquals(0x463B96181691FC9CL, key("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"));
+        // No black pawn can take on e3, so the en passant file is not hashed
+        assertEquals(0x823C9B50FD114196L, key("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1"));
+        assertEquals(0x0756B94461C50FB0L, key("rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2"));
+        assertEquals(0x662FAFB965DB29D4L, key("rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2"));
+        // e5 can take on f6, so this one is
+        assertEquals(0x22A48B5A8E47FF78L, key("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3"));
+        assertEquals(0x652A607CA3F242C1L, key("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3"));
+        assertEquals(0x00FDD303C946BDD9L, key("rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4"));
+        assertEquals(0x3C8123EA7B067637L, key("rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3"));
+        assertEquals(0x5C3F9B829B279560L, key("rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4"));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.chessapp.engine;
+
+import com.example.chessapp.MoveCodec;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Cross-checks {@link Position} and {@link MoveGenerator} against the published perft
+ * counts and against chesslib's move generator along random games.
+ */
+public class PositionTest {
+
+    private static final long MAX_NODES_PER_CHECK = 5_000_000;
+    private static final int RANDOM_GAMES = 200;
+    private static final int MAX_GAME_PLIES = 200;
+
+    @Test
+    public void perft_matchesPublishedCounts() {
+        for (Perft.TestPosition testPosition : Perft.STANDARD_POSITIONS) {
+            Position position = new Position(testPosition.fen);
+            long key = position.key();
+            short[][] buffers = Perft.newBuffers(testPosition.maxDepth());
+            for (int depth = 1; depth <= testPosition.maxDepth(); depth++) {
+                long expected = testPosition.nodes[depth - 1];
+                if (expected > MAX_NODES_PER_CHECK) {
+                    break;
+                }
+                assertEquals(testPosition.name + " depth " + depth, expected, Perft.perft(position, depth, buffers));
+            }
+            // make/unmake must restore everything, including the incremental key
+            assertEquals(testPosition.name, key, position.key());
+            assertEquals(testPosition.name, testPosition.fen, position.toFen());
+        }
+    }
+
+    @Test
+    public void perft_matchesChesslib() {
+        for (Perft.TestPosition testPosition : Perft.STANDARD_POSITIONS) {
+            Board board = new Board();
+            board.loadFromFen(testPosition.fen);
+            Position position = new Position(testPosition.fen);
+            assertEquals(testPosition.name, Perft.perft(board, 3),
+                    Perft.perft(position, 3, Perft.newBuffers(3)));
+        }
+    }
+
+    @Test
+    public void randomGames_sameLegalMovesAsChesslib() {
+        Random random = new Random(1);
+        short[] moves = new short[MoveGenerator.MAX_MOVES];
+        for (Perft.TestPosition testPosition : Perft.STANDARD_POSITIONS) {
+            for (int game = 0; game < RANDOM_GAMES / Perft.STANDARD_POSITIONS.length; game++) {
+                Board board = new Board();
+                board.loadFromFen(testPosition.fen);
+                Position position = new Position(testPosition.fen);
+
+                for (int ply = 0; ply < MAX_GAME_PLIES; ply++) {
+                    int count = MoveGenerator.generateLegal(position, moves, 0);
+                    short[] generated = Arrays.copyOf(moves, count);
+                    short[] expected = encodeAll(board);
+                    Arrays.sort(generated);
+                    Arrays.sort(expected);
+                    String context = testPosition.name + " game " + game + " " + board.getFen();
+                    assertArrayEquals(context, expected, generated);
+                    assertEquals(context, board.isKingAttacked(), position.isInCheck());
+                    assertEquals(context, position.computeKey(), position.key());
+                    if (count == 0 || position.halfMoveClock() >= 100) {
+                        break;
+                    }
+
+                    short move = generated[random.nextInt(count)];
+                    board.doMove(MoveCodec.decode(move));
+                    position.makeMove(move);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void captureGeneration_matchesFilteredLegalMoves() {
+        short[] legal = new short[MoveGenerator.MAX_MOVES];
+        short[] captures = new short[MoveGenerator.MAX_MOVES];
+        for (Perft.TestPosition testPosition : Perft.STANDARD_POSITIONS) {
+            Position position = new Position(testPosition.fen);
+            int legalCount = MoveGenerator.generateLegal(position, legal, 0);
+            int expected = 0;
+            for (int i = 0; i < legalCount; i++) {
+                // In check every evasion counts
+                if (position.isInCheck() || position.isCapture(legal[i]) || ((legal[i] >>> 12) & 0x7) != 0) {
+                    expected++;
+                }
+            }
+            assertEquals(testPosition.name, expected, MoveGenerator.generateCaptures(position, captures, 0));
+        }
+    }
+
+    private static short[] encodeAll(Board board) {
+        List<Move> legal = board.legalMoves();
+        short[] encoded = new short[legal.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = MoveCodec.encode(legal.get(i));
+        }
+        return encoded;
+    }
+}
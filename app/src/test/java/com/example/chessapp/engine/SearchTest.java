@@ -0,0 +1,86 @@
+package com.example.chessapp.engine;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ponder searches, whose limits other than depth wait for the hit, and multi-PV searches.
+ */
+public class SearchTest {
+
+    private static final SearchLimits MOVE_TIME = new SearchLimits(0, 0, 100);
+
+    @Test
+    public void ponder_ignoresTimeLimitUntilHit() throws Exception {
+        Search search = new Search(new Evaluator(), new TranspositionTable(4));
+        ExecutorService thread = Executors.newSingleThreadExecutor();
+        try {
+            Future<SearchResult> result = thread.submit(() ->
+                    search.search(new Position(Position.START_FEN), MOVE_TIME, null, true));
+            Thread.sleep(4 * MOVE_TIME.getMaxTimeMillis());
+            assertFalse(result.isDone());
+            assertTrue(search.isPondering());
+
+            // The time limit now counts from the hit, and the depth reached while pondering is kept
+            search.ponderHit(MOVE_TIME);
+            SearchResult hit = result.get(20 * MOVE_TIME.getMaxTimeMillis(), TimeUnit.MILLISECONDS);
+            // Only the sleep is asserted: the move time after the hit is the margin for scheduling
+            assertTrue(hit.getElapsedMillis() >= 4 * MOVE_TIME.getMaxTimeMillis());
+            assertNotNull(hit.getBestMove());
+        } finally {
+            search.stop();
+            thread.shutdownNow();
+        }
+    }
+
+    @Test
+    public void ponder_stopsAtDepthLimit() {
+        Search search = new Search(new Evaluator(), new TranspositionTable(4));
+        SearchResult result = search.search(new Position(Position.START_FEN), new SearchLimits(3, 0, 100), null, true);
+        assertEquals(3, result.getDepth());
+    }
+
+    @Test
+    public void multiPv_returnsDistinctLinesBestFirst() {
+        Search search = new Search(new Evaluator(), new TranspositionTable(4));
+        search.setMultiPv(3);
+        SearchResult result = search.search(new Position(Position.START_FEN), new SearchLimits(4, 0, 0), null);
+
+        List<SearchResult> lines = result.getLines();
+        assertEquals(3, lines.size());
+        assertEquals(lines.get(0).getBestMove(), result.getBestMove());
+        Set<Move> firstMoves = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(4, lines.get(i).getDepth());
+            assertTrue(firstMoves.add(lines.get(i).getBestMove()));
+            if (i > 0) {
+                assertTrue(lines.get(i).getScore() <= lines.get(i - 1).getScore());
+            }
+        }
+    }
+
+    @Test
+    public void multiPv_isCappedAtLegalMoveCount() {
+        Search search = new Search(new Evaluator(), new TranspositionTable(4));
+        search.setMultiPv(5);
+        // The cornered king has three moves
+        SearchResult result = search.search(new Position("7k/8/8/8/8/8/8/K7 w - - 0 1"),
+                new SearchLimits(3, 0, 0), null);
+        assertEquals(3, result.getLines().size());
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.chessapp.engine;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Probes the KQvK and KRvK tables in src/test/resources/syzygy against values that follow
+ * from the rules alone: the side with the queen or rook always wins, unless the other side
+ * is stalemated or can take the piece. Every legal placement is probed with both sides to
+ * move, which goes through the index encoding, the mirroring and the pairs decoding of the
+ * WDL tables for all of them. DTZ is checked for its sign everywhere and for exact values
+ * in a few short mates.
+ *
+ * The tables are the standard ones from the Syzygy distribution; the test is skipped if they
+ * have not been copied there.
+ */
+public class SyzygyTablebaseTest {
+
+    private static final String[] TABLES = {"KQvK", "KRvK"};
+
+    private SyzygyTablebase tablebase;
+
+    @Before
+    public void openTables() {
+        File directory = new File("src/test/resources/syzygy");
+        for (String table : TABLES) {
+            assumeTrue(table + " tables missing from " + directory,
+                    new File(directory, table + ".rtbw").isFile() && new File(directory, table + ".rtbz").isFile());
+        }
+        tablebase = new SyzygyTablebase(directory, SyzygyTablebase.DEFAULT_MAX_OPEN_TABLES);
+    }
+
+    @Test
+    public void probeWdl_kqkAndKrk_matchTheRules() {
+        checkAllPlacements('Q');
+        checkAllPlacements('R');
+    }
+
+    @Test
+    public void probeDtz_shortMates() {
+        // Qh8# and Rh8#
+        assertDtz(1, "k7/8/1K6/8/8/8/8/7Q w - - 0 1");
+        assertDtz(1, "k7/8/1K6/8/8/8/8/7R w - - 0 1");
+        // Kb8 is forced, then Qg8#
+        assertDtz(-2, "k7/8/1K6/8/8/8/8/6Q1 b - - 0 1");
+        // Stalemate and an undefended queen next to the king are draws
+        assertDtz(0, "k7/2Q5/1K6/8/8/8/8/8 b - - 0 1");
+        assertDtz(0, "k7/1Q6/8/8/8/8/8/7K b - - 0 1");
+    }
+
+    private void assertDtz(int expected, String fen) {
+        Board board = new Board();
+        board.loadFromFen(fen);
+        assertEquals(fen, expected, tablebase.probeDtz(board));
+    }
+
+    private void checkAllPlacements(char piece) {
+        Board board = new Board();
+        for (int whiteKing = 0; whiteKing < 64; whiteKing++) {
+            for (int blackKing = 0; blackKing < 64; blackKing++) {
+                if (distance(whiteKing, blackKing) <= 1) {
+                    continue;
+                }
+                for (int square = 0; square < 64; square++) {
+                    if (square == whiteKing || square == blackKing) {
+                        continue;
+                    }
+                    String placement = placement(whiteKing, blackKing, square, piece);
+                    for (String side : new String[]{"w", "b"}) {
+                        board.loadFromFen(placement + " " + side + " - - 0 1");
+                        if (side.equals("w") && isBlackInCheck(placement)) {
+                            continue; // Black in check with White to move cannot happen
+                        }
+                        checkPosition(board, side.equals("w"));
+                    }
+                }
+            }
+        }
+    }
+
+    private void checkPosition(Board board, boolean whiteToMove) {
+        String fen = board.getFen();
+        List<Move> moves = board.legalMoves();
+        int expected;
+        if (whiteToMove) {
+            expected = SyzygyTablebase.WDL_WIN;
+        } else if (moves.isEmpty()) {
+            expected = board.isKingAttacked() ? SyzygyTablebase.WDL_LOSS : SyzygyTablebase.WDL_DRAW;
+        } else {
+            expected = SyzygyTablebase.WDL_LOSS;
+            for (Move move : moves) {
+                if (board.getPiece(move.getTo()) != Piece.NONE) {
+                    expected = SyzygyTablebase.WDL_DRAW;
+                }
+            }
+        }
+        assertEquals(fen, expected, tablebase.probeWdl(board));
+        if (!moves.isEmpty()) {
+            assertEquals(fen, Integer.signum(expected), Integer.signum(tablebase.probeDtz(board)));
+        }
+    }
+
+    private static boolean isBlackInCheck(String placement) {
+        Board board = new Board();
+        board.loadFromFen(placement + " b - - 0 1");
+        return board.isKingAttacked();
+    }
+
+    private static int distance(int a, int b) {
+        return Math.max(Math.abs((a & 7) - (b & 7)), Math.abs((a >> 3) - (b >> 3)));
+    }
+
+    /**
+     * @return The piece placement field of a FEN, squares numbered a1 = 0 to h8 = 63
+     */
+    private static String placement(int whiteKing, int blackKing, int square, char piece) {
+        StringBuilder sb = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int sq = rank * 8 + file;
+                char c = sq == whiteKing ? 'K' : sq == blackKing ? 'k' : sq == square ? piece : 0;
+                if (c == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(c);
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (rank > 0) {
+                sb.append('/');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.chessapp.pgn;
+
+import com.example.chessapp.GameRecord;
+import com.example.chessapp.MoveCodec;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Reads and writes PGN through {@link PgnReader} and {@link PgnWriter}.
+ */
+public class PgnTest {
+
+    private static final String SCHOLARS_MATE =
+            "[Event \"Club night\"]\n"
+            + "[White \"Alice \\\"Ace\\\" Smith\"]\n"
+            + "[Black \"Bob\"]\n"
+            + "[Date \"2024.03.09\"]\n"
+            + "[Result \"1-0\"]\n"
+            + "[TimeControl \"300+3\"]\n"
+            + "\n"
+            + "1. e4 {King's pawn} e5 2.Bc4 (2. Nf3 Nc6 (2... d6) 3. Bb5) Nc6 $1\n"
+            + "3. Qh5 Nf6?? ; the losing move\n"
+            + "4. Qxf7# 1-0\n";
+
+    /**
+     * Hands out a few bytes per read, so tokens and tags straddle buffer refills.
+     */
+    private static ReadableByteChannel trickle(String pgn, int bytesPerRead) {
+        ByteBuffer source = ByteBuffer.wrap(pgn.getBytes(StandardCharsets.UTF_8));
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer target) {
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                int n = Math.min(bytesPerRead, Math.min(source.remaining(), target.remaining()));
+                for (int i = 0; i < n; i++) {
+                    target.put(source.get());
+                }
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static String uciMoves(GameRecord game) {
+        StringBuilder sb = new StringBuilder();
+        for (short move : MoveCodec.fromBytes(game.getMoves())) {
+            sb.append(sb.length() > 0 ? " " : "").append(MoveCodec.toUci(move));
+        }
+        return sb.toString();
+    }
+
+    private static String write(GameRecord... games) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PgnWriter writer = new PgnWriter(Channels.newChannel(bytes))) {
+            for (GameRecord game : games) {
+                writer.write(game);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void read_skipsCommentsVariationsAndNags() throws IOException {
+        PgnReader reader = new PgnReader(trickle(SCHOLARS_MATE, 7));
+        GameRecord game = reader.next();
+
+        assertEquals("e2e4 e7e5 f1c4 b8c6 d1h5 g8f6 h5f7", uciMoves(game));
+        assertEquals("Alice \"Ace\" Smith", game.getWhiteName());
+        assertEquals(GameRecord.RESULT_WHITE_WINS, game.getResult());
+        assertEquals(GameRecord.TERMINATION_CHECKMATE, game.getTermination());
+        assertEquals(300_000, game.getTimeBaseMillis());
+        assertEquals(3_000, game.getTimeIncrementMillis());
+        assertTrue(game.getStartedAt() > 0);
+        assertNull(reader.next());
+        assertEquals(SCHOLARS_MATE.length(), reader.getBytesRead());
+    }
+
+    @Test
+    public void read_skipsUnfinishedAndIllegalGames() throws IOException {
+        String pgn = "[Result \"*\"]\n\n1. e4 e5 *\n\n"
+                + "[Result \"0-1\"]\n\n1. e4 Ke7 2. Ke2 Qe8 0-1\n\n"
+                + "[Result \"1/2-1/2\"]\n\n1. d4 d5 1/2-1/2\n";
+        PgnReader reader = new PgnReader(trickle(pgn, 4096));
+        GameRecord game = reader.next();
+
+        assertEquals("d2d4 d7d5", uciMoves(game));
+        assertEquals(GameRecord.RESULT_DRAW, game.getResult());
+        assertEquals(GameRecord.TERMINATION_OTHER, game.getTermination());
+        assertEquals("?", game.getWhiteName());
+        assertNull(reader.next());
+        assertEquals(2, reader.getSkippedGames());
+    }
+
+    @Test
+    public void read_parsesCastlingPromotionAndDisambiguation() throws IOException {
+        String moves = "1. O-O Kd7 2. bxa8=Q Ke6 3. Rfe1+ Kf5 4. Ra5+ Kg4 ";
+        String tags = "[SetUp \"1\"]\n[FEN \"r3k3/1P6/8/8/8/8/8/R3K2R w KQq - 0 1\"]\n\n";
+        GameRecord game = new PgnReader(trickle(tags + moves + "1-0\n", 4096)).next();
+        assertEquals("e1g1 e8d7 b7a8q d7e6 f1e1 e6f5 a1a5 f5g4", uciMoves(game));
+        assertEquals("r3k3/1P6/8/8/8/8/8/R3K2R w KQq - 0 1", game.getStartFen());
+
+        // White has castled already
+        assertNull(new PgnReader(trickle(tags + moves + "5. O-O 1-0\n", 4096)).next());
+    }
+
+    @Test
+    public void write_thenRead_roundTrips() throws IOException {
+        GameRecord original = new PgnReader(trickle(SCHOLARS_MATE, 4096)).next();
+        String fen = "4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1";
+        GameRecord knights = new GameRecord("W", "B", GameRecord.RESULT_DRAW, GameRecord.TERMINATION_TIMEOUT,
+                60_000, 0, 0, fen, MoveCodec.toBytes(new short[]{MoveCodec.fromUci("b1d2")}, 1), 0, 0);
+
+        String pgn = write(original, knights);
+        assertTrue(pgn, pgn.contains("1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0"));
+        assertTrue(pgn, pgn.contains("[White \"Alice \\\"Ace\\\" Smith\"]"));
+        assertTrue(pgn, pgn.contains("[FEN \"" + fen + "\"]"));
+        assertTrue(pgn, pgn.contains("1. Nbd2 1/2-1/2"));
+
+        PgnReader reader = new PgnReader(trickle(pgn, 4096));
+        GameRecord first = reader.next();
+        GameRecord second = reader.next();
+        assertNull(reader.next());
+        assertArrayEquals(original.getMoves(), first.getMoves());
+        assertEquals(original.getWhiteName(), first.getWhiteName());
+        assertEquals(original.getTimeBaseMillis(), first.getTimeBaseMillis());
+        assertEquals(original.getStartedAt(), first.getStartedAt());
+        assertArrayEquals(knights.getMoves(), second.getMoves());
+        assertEquals(GameRecord.TERMINATION_TIMEOUT, second.getTermination());
+    }
+}
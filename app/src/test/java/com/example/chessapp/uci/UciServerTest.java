@@ -0,0 +1,69 @@
+package com.example.chessapp.uci;
+
+import com.example.chessapp.engine.Search;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives {@link UciServer} with scripted GUI commands.
+ */
+public class UciServerTest {
+
+    private static List<String> run(String... commands) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, "UTF-8");
+        BufferedReader in = new BufferedReader(new StringReader(String.join("\n", commands) + "\n"));
+        new UciServer(in, out).run();
+        return Arrays.asList(new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+    }
+
+    @Test
+    public void handshake_answersUciokAndReadyok() throws IOException {
+        List<String> lines = run("uci", "setoption name Hash value 4", "isready", "quit");
+        assertTrue(lines.contains("id name " + UciServer.ENGINE_NAME));
+        assertTrue(lines.contains("uciok"));
+        assertEquals("readyok", lines.get(lines.size() - 1));
+    }
+
+    @Test
+    public void go_findsMateInOne() throws IOException {
+        // "isready" is answered while searching, "position" waits for the search to finish
+        List<String> lines = run("uci", "position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", "go depth 4",
+                "position startpos", "quit");
+        assertEquals("bestmove a1a8", lines.get(lines.size() - 1));
+    }
+
+    @Test
+    public void go_playsFromMovesAfterStartpos() throws IOException {
+        List<String> lines = run("position startpos moves f2f3 e7e5 g2g4", "go depth 2", "position startpos", "quit");
+        assertEquals("bestmove d8h4", lines.get(lines.size() - 1));
+    }
+
+    @Test
+    public void score_roundTripsMates() {
+        // Mates are reported in moves: exact for the mating side at odd plies, the mated side at even plies
+        for (int plies = 1; plies < 10; plies += 2) {
+            int score = Search.MATE - plies;
+            String[] text = UciFormat.formatScore(score).split(" ");
+            assertEquals(score, UciFormat.parseScore(text[0], Integer.parseInt(text[1])));
+        }
+        for (int plies = 2; plies < 10; plies += 2) {
+            int score = -Search.MATE + plies;
+            String[] text = UciFormat.formatScore(score).split(" ");
+            assertEquals(score, UciFormat.parseScore(text[0], Integer.parseInt(text[1])));
+        }
+        assertEquals("cp -35", UciFormat.formatScore(-35));
+    }
+}
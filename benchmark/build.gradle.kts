@@ -0,0 +1,44 @@
+// JVM benchmarks for the move generation and engine code, run with ./gradlew :benchmark:jmh.
+// Also packages the engine as a UCI engine for GUIs and engine matches: ./gradlew :benchmark:installDist
+// puts the launcher in build/install/chessapp-uci/bin.
+plugins {
+    java
+    application
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// The engine and uci packages only depend on chesslib, so they are compiled here straight from the app sources
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include("com/example/chessapp/engine/**")
+            include("com/example/chessapp/uci/**")
+            include("com/example/chessapp/MoveCodec.java")
+        }
+    }
+}
+
+application {
+    mainClass.set("com.example.chessapp.uci.UciServer")
+    applicationName = "chessapp-uci"
+}
+
+dependencies {
+    implementation(libs.chesslib)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    // Reports gc.alloc.rate.norm, the bytes allocated per operation
+    profilers = listOf("gc")
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "JSON"
+}
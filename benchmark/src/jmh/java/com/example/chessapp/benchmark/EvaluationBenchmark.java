@@ -0,0 +1,142 @@
+package com.example.chessapp.benchmark;
+
+import com.example.chessapp.engine.Evaluator;
+import com.example.chessapp.engine.MoveGenerator;
+import com.example.chessapp.engine.NnueEvaluator;
+import com.example.chessapp.engine.NnueNetwork;
+import com.example.chessapp.engine.Perft;
+import com.example.chessapp.engine.Position;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluations per second: the full 64-square scan against the running totals kept by
+ * {@link Position}, and the same for the NNUE evaluator. The "WithMakeUnmake" variants
+ * evaluate every child of the position, so the cost of maintaining the totals or the
+ * accumulators in make/unmake is included.
+ *
+ * The network has random weights of the size a bundled one would have: the speed does
+ * not depend on the values.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class EvaluationBenchmark {
+
+    @Param({"startpos", "kiwipete", "position3", "position4", "position5", "position6"})
+    public String position;
+
+    @Param({"256"})
+    public int hiddenSize;
+
+    private final Evaluator evaluator = new Evaluator();
+    private NnueEvaluator nnue;
+    private Position board;
+    private Position nnueBoard;
+    private short[] moves;
+    private int moveCount;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String fen = Perft.findPosition(position).fen;
+        board = new Position(fen);
+        moves = new short[MoveGenerator.MAX_MOVES];
+        moveCount = MoveGenerator.generateLegal(board, moves, 0);
+        if (evaluator.evaluate(board) != evaluator.evaluateFull(board)) {
+            throw new IllegalStateException("Incremental evaluation differs from the full one in " + position);
+        }
+
+        nnue = new NnueEvaluator(NnueNetwork.load(randomNetworkFile(hiddenSize)));
+        nnueBoard = new Position(fen);
+        nnue.attach(nnueBoard);
+        if (nnue.evaluate(nnueBoard) != nnue.evaluateFull(nnueBoard)) {
+            throw new IllegalStateException("Incremental NNUE evaluation differs from the full one in " + position);
+        }
+    }
+
+    private static ByteBuffer randomNetworkFile(int hiddenSize) {
+        Random random = new Random(1);
+        int size = 12 + 2 * NnueNetwork.FEATURES * hiddenSize + 2 * hiddenSize + 2 * hiddenSize + 4;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[]{'C', 'N', 'U', 'E'}).putInt(1).putInt(hiddenSize);
+        for (int i = 0; i < NnueNetwork.FEATURES * hiddenSize; i++) {
+            buffer.putShort((short) (random.nextInt(65) - 32));
+        }
+        for (int i = 0; i < hiddenSize; i++) {
+            buffer.putShort((short) random.nextInt(128));
+        }
+        for (int i = 0; i < 2 * hiddenSize; i++) {
+            buffer.put((byte) (random.nextInt(256) - 128));
+        }
+        buffer.putInt(0);
+        buffer.flip();
+        return buffer;
+    }
+
+    @Benchmark
+    public int full() {
+        return evaluator.evaluateFull(board);
+    }
+
+    @Benchmark
+    public int incremental() {
+        return evaluator.evaluate(board);
+    }
+
+    @Benchmark
+    public int fullWithMakeUnmake() {
+        int sum = 0;
+        for (int i = 0; i < moveCount; i++) {
+            board.makeMove(moves[i]);
+            sum += evaluator.evaluateFull(board);
+            board.unmakeMove();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int incrementalWithMakeUnmake() {
+        int sum = 0;
+        for (int i = 0; i < moveCount; i++) {
+            board.makeMove(moves[i]);
+            sum += evaluator.evaluate(board);
+            board.unmakeMove();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int nnueFull() {
+        return nnue.evaluateFull(nnueBoard);
+    }
+
+    @Benchmark
+    public int nnueIncremental() {
+        return nnue.evaluate(nnueBoard);
+    }
+
+    @Benchmark
+    public int nnueIncrementalWithMakeUnmake() {
+        int sum = 0;
+        for (int i = 0; i < moveCount; i++) {
+            nnueBoard.makeMove(moves[i]);
+            sum += nnue.evaluate(nnueBoard);
+            nnueBoard.unmakeMove();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.chessapp.benchmark;
+
+import com.example.chessapp.engine.MoveGenerator;
+import com.example.chessapp.engine.Perft;
+import com.example.chessapp.engine.Position;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the operations every board interaction and search node goes through, on chesslib
+ * and on the in-house {@link Position}. Run with the gc profiler (the default in
+ * build.gradle.kts) for bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class MoveGenerationBenchmark {
+
+    @Param({"startpos", "kiwipete", "position3", "position4", "position5", "position6"})
+    public String position;
+
+    private Board board;
+    private Move[] moves;
+    private Position inHouse;
+    private short[] inHouseMoves;
+    private int inHouseMoveCount;
+    private final short[] buffer = new short[MoveGenerator.MAX_MOVES];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String fen = Perft.findPosition(position).fen;
+        board = new Board();
+        board.loadFromFen(fen);
+        moves = board.legalMoves().toArray(new Move[0]);
+        inHouse = new Position(fen);
+        inHouseMoves = new short[MoveGenerator.MAX_MOVES];
+        inHouseMoveCount = MoveGenerator.generateLegal(inHouse, inHouseMoves, 0);
+    }
+
+    /** One legal move list. */
+    @Benchmark
+    public List<Move> legalMoves() {
+        return board.legalMoves();
+    }
+
+    /** doMove + undoMove of every legal move; doMove includes the incremental Zobrist update. */
+    @Benchmark
+    public int makeUnmakeAll() {
+        int made = 0;
+        for (Move move : moves) {
+            if (board.doMove(move)) {
+                made++;
+            }
+            board.undoMove();
+        }
+        return made;
+    }
+
+    /** Incrementally maintained key after each legal move, as the search reads it. */
+    @Benchmark
+    public long incrementalZobristAll() {
+        long keys = 0;
+        for (Move move : moves) {
+            board.doMove(move);
+            keys ^= board.getIncrementalHashKey();
+            board.undoMove();
+        }
+        return keys;
+    }
+
+    /** Key computed from scratch from the whole board, for comparison with the incremental one. */
+    @Benchmark
+    public long fullZobrist() {
+        return board.getZobristKey();
+    }
+
+    /** One legal move list into a reused buffer. */
+    @Benchmark
+    public int inHouseLegalMoves() {
+        return MoveGenerator.generateLegal(inHouse, buffer, 0);
+    }
+
+    /** makeMove + unmakeMove of every legal move, key update included. */
+    @Benchmark
+    public long inHouseMakeUnmakeAll() {
+        long keys = 0;
+        for (int i = 0; i < inHouseMoveCount; i++) {
+            inHouse.makeMove(inHouseMoves[i]);
+            keys ^= inHouse.key();
+            inHouse.unmakeMove();
+        }
+        return keys;
+    }
+}
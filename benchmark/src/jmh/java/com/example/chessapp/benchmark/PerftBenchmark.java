@@ -0,0 +1,87 @@
+package com.example.chessapp.benchmark;
+
+import com.example.chessapp.engine.Perft;
+import com.example.chessapp.engine.Position;
+import com.github.bhlangonijr.chesslib.Board;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Perft throughput of chesslib and of the in-house {@link Position} generator. The "nodes"
+ * counter is reported as leaf nodes per second; gc.alloc.rate.norm is the allocation per
+ * perft call, which should be 0 for {@link #inHousePerft}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class PerftBenchmark {
+
+    @Param({"startpos", "kiwipete", "position3", "position4", "position5", "position6"})
+    public String position;
+
+    @Param({"3"})
+    public int depth;
+
+    private Board board;
+    private Position inHouse;
+    private short[][] buffers;
+
+    /**
+     * Leaf nodes visited, reported by JMH as a rate next to the primary score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class NodeCounter {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Perft.TestPosition testPosition = Perft.findPosition(position);
+        board = new Board();
+        board.loadFromFen(testPosition.fen);
+        // A benchmark of a wrong move generator is worthless
+        long nodes = Perft.perft(board, depth);
+        if (depth <= testPosition.maxDepth() && nodes != testPosition.nodes[depth - 1]) {
+            throw new IllegalStateException(position + " perft(" + depth + ") = " + nodes
+                    + ", expected " + testPosition.nodes[depth - 1]);
+        }
+        inHouse = new Position(testPosition.fen);
+        buffers = Perft.newBuffers(depth);
+        long inHouseNodes = Perft.perft(inHouse, depth, buffers);
+        if (inHouseNodes != nodes) {
+            throw new IllegalStateException(position + " in-house perft(" + depth + ") = " + inHouseNodes
+                    + ", chesslib " + nodes);
+        }
+    }
+
+    @Benchmark
+    public long perft(NodeCounter counter) {
+        long nodes = Perft.perft(board, depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+
+    @Benchmark
+    public long inHousePerft(NodeCounter counter) {
+        long nodes = Perft.perft(inHouse, depth, buffers);
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
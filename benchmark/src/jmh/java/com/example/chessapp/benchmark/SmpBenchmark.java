@@ -0,0 +1,97 @@
+package com.example.chessapp.benchmark;
+
+import com.example.chessapp.engine.LazySmpSearch;
+import com.example.chessapp.engine.SearchLimits;
+import com.example.chessapp.engine.SearchResult;
+import com.example.chessapp.engine.TranspositionTable;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lazy SMP scaling: time for {@link LazySmpSearch} to reach a fixed depth on a fixed set of
+ * positions, per thread count. The speedup is the ratio of the threads=1 score to the others;
+ * the "nodes" counter is reported as nodes per second.
+ *
+ * The transposition table is cleared before every position so each search starts cold.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class SmpBenchmark {
+
+    static final String[] POSITIONS = {
+            // Start position
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            // Kiwipete
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            // Italian game middlegame
+            "r1bq1rk1/pppp1ppp/2n2n2/2b1p3/2B1P3/2NP1N2/PPP2PPP/R1BQ1RK1 w - - 0 7",
+            // Queen's gambit declined middlegame
+            "r2q1rk1/pp1nbppp/2p1pn2/3p4/2PP4/2NBPN2/PP3PPP/R2Q1RK1 w - - 0 10",
+            // Rook endgame
+            "8/5pk1/6p1/3R4/5P2/1r4P1/6K1/8 w - - 0 40",
+    };
+
+    private static final int HASH_MB = 64;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"8"})
+    public int depth;
+
+    private TranspositionTable table;
+    private LazySmpSearch search;
+    private SearchLimits limits;
+
+    /**
+     * Nodes searched, reported by JMH as a rate next to the primary score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class NodeCounter {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = new TranspositionTable(HASH_MB);
+        search = new LazySmpSearch(table, threads);
+        limits = new SearchLimits(depth, 0, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        search.shutdown();
+    }
+
+    @Benchmark
+    public long searchToDepth(NodeCounter counter) {
+        long nodes = 0;
+        for (String fen : POSITIONS) {
+            table.clear();
+            SearchResult result = search.search(fen, Collections.emptyList(), limits, null);
+            nodes += result.getNodes();
+        }
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
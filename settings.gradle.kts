@@ -22,3 +22,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "chessapp"
 include(":app")
+include(":benchmark")